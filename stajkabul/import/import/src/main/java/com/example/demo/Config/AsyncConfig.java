@@ -0,0 +1,56 @@
+package com.example.demo.Config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class AsyncConfig {
+
+    // Arka plan import işleri için havuz; boyutu import.processing.threadPoolSize'dan gelir
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor(ImportConfig importConfig) {
+        int poolSize = Math.max(1, importConfig.getProcessing().getThreadPoolSize());
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    // İlerleme akışının aralık sayacı; yalnızca anlık görüntü alır, SSE gönderimleri progressSendExecutor'da yapılır
+    @Bean(name = "progressScheduler")
+    public ThreadPoolTaskScheduler progressScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("import-progress-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    // SSE gönderimleri: yavaş bir istemcinin bloklayan send'i yalnızca bu havuzdan bir thread'i tutar
+    @Bean(name = "progressSendExecutor")
+    public ThreadPoolTaskExecutor progressSendExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setThreadNamePrefix("import-sse-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    // Biten iş, yükleme, oturum ve parse önbelleği temizlikleri; ilerleme akışından ayrı çalışır
+    @Bean(name = "cleanupScheduler")
+    public ThreadPoolTaskScheduler cleanupScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("import-cleanup-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
@@ -12,7 +12,14 @@ public class ImportConfig {
     
     private Map<String, ImportTypeConfig> types;
     private ValidationConfig validation;
-    private ProcessingConfig processing;
+    private ProcessingConfig processing = new ProcessingConfig();
+    private RetentionConfig retention = new RetentionConfig();
+    private WriterConfig writer = new WriterConfig();
+    private StagingConfig staging = new StagingConfig();
+    private UploadConfig upload = new UploadConfig();
+    private SessionConfig session = new SessionConfig();
+    private ParseCacheConfig parseCache = new ParseCacheConfig();
+    private RowStoreConfig rowStore = new RowStoreConfig();
     
     public static class ImportTypeConfig {
         private String name;
@@ -111,9 +118,20 @@ public class ImportConfig {
     }
     
     public static class ProcessingConfig {
-        private int batchSize;
-        private int threadPoolSize;
-        private long timeoutMs;
+        // import.processing tanımlı değilse kullanılan varsayılanlar
+        private int batchSize = 1000;
+        private int threadPoolSize = 4;
+        private long timeoutMs = 30000;
+        // SSE ilerleme akışında iki güncelleme arasındaki en kısa süre
+        private long progressIntervalMs = 500;
+        // Satır doğrulamasını ForkJoinPool üzerinde parçalara bölerek çalıştır
+        private boolean parallelValidation = false;
+        private int parallelism = 0;          // 0: işlemci sayısı
+        private int parallelChunkSize = 1000;
+        // JDBC toplu kayıtta bir transaction'a giren entity sayısı
+        private int insertBatchSize = 500;
+        // sharedStrings.xml bu boyutu (byte) aşarsa dizgiler heap yerine bellek eşlemeli geçici dosyada tutulur
+        private long offHeapSharedStringsThresholdBytes = 16 * 1024 * 1024;
         
         // Getters and Setters
         public int getBatchSize() { return batchSize; }
@@ -124,6 +142,147 @@ public class ImportConfig {
         
         public long getTimeoutMs() { return timeoutMs; }
         public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+        
+        public long getProgressIntervalMs() { return progressIntervalMs; }
+        public void setProgressIntervalMs(long progressIntervalMs) { this.progressIntervalMs = progressIntervalMs; }
+        
+        public boolean isParallelValidation() { return parallelValidation; }
+        public void setParallelValidation(boolean parallelValidation) { this.parallelValidation = parallelValidation; }
+        
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+        
+        public int getParallelChunkSize() { return parallelChunkSize; }
+        public void setParallelChunkSize(int parallelChunkSize) { this.parallelChunkSize = parallelChunkSize; }
+        
+        public int getInsertBatchSize() { return insertBatchSize; }
+        public void setInsertBatchSize(int insertBatchSize) { this.insertBatchSize = insertBatchSize; }
+        
+        public long getOffHeapSharedStringsThresholdBytes() { return offHeapSharedStringsThresholdBytes; }
+        public void setOffHeapSharedStringsThresholdBytes(long offHeapSharedStringsThresholdBytes) { this.offHeapSharedStringsThresholdBytes = offHeapSharedStringsThresholdBytes; }
+    }
+    
+    // Biten arka plan işlerinin bellekte ne kadar tutulacağı
+    public static class RetentionConfig {
+        private long ttlMs = 3600000;        // bitişten sonra 1 saat
+        private int maxEntries = 1000;       // çalışan işler sayılmaz, onlar hiç silinmez
+        private String evictionOrder = "FINISHED_AT"; // FINISHED_AT ya da CREATED_AT: önce en eski olan silinir
+        private long sweepIntervalMs = 60000;
+        private int errorSampleSize = 20;    // bitince sonuçta tutulan en fazla hata sayısı
+        
+        // Getters and Setters
+        public long getTtlMs() { return ttlMs; }
+        public void setTtlMs(long ttlMs) { this.ttlMs = ttlMs; }
+        
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+        
+        public String getEvictionOrder() { return evictionOrder; }
+        public void setEvictionOrder(String evictionOrder) { this.evictionOrder = evictionOrder; }
+        
+        public long getSweepIntervalMs() { return sweepIntervalMs; }
+        public void setSweepIntervalMs(long sweepIntervalMs) { this.sweepIntervalMs = sweepIntervalMs; }
+        
+        public int getErrorSampleSize() { return errorSampleSize; }
+        public void setErrorSampleSize(int errorSampleSize) { this.errorSampleSize = errorSampleSize; }
+    }
+    
+    // Tüm import işlerinin yazmalarını tek bağlantıdan yapan SQLite yazıcı thread'i
+    public static class WriterConfig {
+        private int queueCapacity = 64;       // dolunca gönderen iş bekler
+        private int maxGroupSize = 32;        // tek commit'te birleştirilen en fazla yazma
+        private String synchronous = "NORMAL"; // WAL'de NORMAL commit başına fsync yapmaz, yine de tutarlıdır
+        private int cacheSizeKb = 65536;
+        private int busyTimeoutMs = 5000;
+        
+        // Getters and Setters
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public int getMaxGroupSize() { return maxGroupSize; }
+        public void setMaxGroupSize(int maxGroupSize) { this.maxGroupSize = maxGroupSize; }
+        
+        public String getSynchronous() { return synchronous; }
+        public void setSynchronous(String synchronous) { this.synchronous = synchronous; }
+        
+        public int getCacheSizeKb() { return cacheSizeKb; }
+        public void setCacheSizeKb(int cacheSizeKb) { this.cacheSizeKb = cacheSizeKb; }
+        
+        public int getBusyTimeoutMs() { return busyTimeoutMs; }
+        public void setBusyTimeoutMs(int busyTimeoutMs) { this.busyTimeoutMs = busyTimeoutMs; }
+    }
+    
+    // Staging import modu (satırlar SQLite geçici tablosunda doğrulanır)
+    public static class StagingConfig {
+        private int maxReportedErrors = 1000; // yanıttaki en fazla hatalı satır; errorCount her zaman tamdır
+        
+        // Getters and Setters
+        public int getMaxReportedErrors() { return maxReportedErrors; }
+        public void setMaxReportedErrors(int maxReportedErrors) { this.maxReportedErrors = maxReportedErrors; }
+    }
+    
+    // Parça parça (kaldığı yerden devam edebilen) dosya yükleme
+    public static class UploadConfig {
+        private String spoolDir = "";                    // boşsa java.io.tmpdir/grispi-uploads
+        private long maxFileBytes = 2147483648L;         // 2 GB
+        private int maxChunkBytes = 16 * 1024 * 1024;    // tek PUT'un en fazla boyutu
+        private long ttlMs = 86400000;                   // son işlemden sonra 24 saat; dolunca dosya silinir
+        
+        // Getters and Setters
+        public String getSpoolDir() { return spoolDir; }
+        public void setSpoolDir(String spoolDir) { this.spoolDir = spoolDir; }
+        
+        public long getMaxFileBytes() { return maxFileBytes; }
+        public void setMaxFileBytes(long maxFileBytes) { this.maxFileBytes = maxFileBytes; }
+        
+        public int getMaxChunkBytes() { return maxChunkBytes; }
+        public void setMaxChunkBytes(int maxChunkBytes) { this.maxChunkBytes = maxChunkBytes; }
+        
+        public long getTtlMs() { return ttlMs; }
+        public void setTtlMs(long ttlMs) { this.ttlMs = ttlMs; }
+    }
+    
+    // Sihirbaz adımlarının paylaştığı import oturumu (dosya bir kez yüklenip parse edilir)
+    public static class SessionConfig {
+        private long ttlMs = 1800000;       // son erişimden sonra 30 dakika
+        private int maxSessions = 20;       // aşılınca en uzun süredir kullanılmayan oturum silinir
+        
+        // Getters and Setters
+        public long getTtlMs() { return ttlMs; }
+        public void setTtlMs(long ttlMs) { this.ttlMs = ttlMs; }
+        
+        public int getMaxSessions() { return maxSessions; }
+        public void setMaxSessions(int maxSessions) { this.maxSessions = maxSessions; }
+    }
+    
+    // Spool'a alınmış dosyaların önizlemeleri (yazılırken hesaplanan içerik hash'i ile, single-flight)
+    public static class ParseCacheConfig {
+        private int maxEntries = 8;         // 0: önbellek kapalı, aynı anda gelen istekler de ayrı parse eder
+        private long ttlMs = 600000;        // son erişimden sonra 10 dakika
+        
+        // Getters and Setters
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+        
+        public long getTtlMs() { return ttlMs; }
+        public void setTtlMs(long ttlMs) { this.ttlMs = ttlMs; }
+    }
+    
+    // Okunan sheet'ler: ilk maxInMemoryRows satır kolon dizilerinde, kalanı bellek eşlemeli geçici dosyada
+    public static class RowStoreConfig {
+        private int maxInMemoryRows = 100000;  // sheet başına heap'te tutulan satır; fazlası geçici dosyaya yazılır
+        private String spillDir = "";          // boşsa java.io.tmpdir
+        private int maxReportedErrors = 1000;  // senkron importta yanıttaki en fazla hatalı satır; errorCount her zaman tamdır
+        
+        // Getters and Setters
+        public int getMaxInMemoryRows() { return maxInMemoryRows; }
+        public void setMaxInMemoryRows(int maxInMemoryRows) { this.maxInMemoryRows = maxInMemoryRows; }
+        
+        public String getSpillDir() { return spillDir; }
+        public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+        
+        public int getMaxReportedErrors() { return maxReportedErrors; }
+        public void setMaxReportedErrors(int maxReportedErrors) { this.maxReportedErrors = maxReportedErrors; }
     }
     
     // Main class getters and setters
@@ -135,4 +294,25 @@ public class ImportConfig {
     
     public ProcessingConfig getProcessing() { return processing; }
     public void setProcessing(ProcessingConfig processing) { this.processing = processing; }
+    
+    public RetentionConfig getRetention() { return retention; }
+    public void setRetention(RetentionConfig retention) { this.retention = retention; }
+    
+    public WriterConfig getWriter() { return writer; }
+    public void setWriter(WriterConfig writer) { this.writer = writer; }
+    
+    public StagingConfig getStaging() { return staging; }
+    public void setStaging(StagingConfig staging) { this.staging = staging; }
+    
+    public UploadConfig getUpload() { return upload; }
+    public void setUpload(UploadConfig upload) { this.upload = upload; }
+    
+    public SessionConfig getSession() { return session; }
+    public void setSession(SessionConfig session) { this.session = session; }
+    
+    public ParseCacheConfig getParseCache() { return parseCache; }
+    public void setParseCache(ParseCacheConfig parseCache) { this.parseCache = parseCache; }
+    
+    public RowStoreConfig getRowStore() { return rowStore; }
+    public void setRowStore(RowStoreConfig rowStore) { this.rowStore = rowStore; }
 }
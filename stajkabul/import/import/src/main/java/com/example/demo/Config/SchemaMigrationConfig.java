@@ -0,0 +1,22 @@
+package com.example.demo.Config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    // Migration'lar EntityManagerFactory oluşmadan önce çalışır
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(DataSource dataSource) {
+        return new SchemaMigrator(dataSource);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigratorDependsOnPostProcessor() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.Config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * classpath:db/migration altındaki V{sürüm}__{açıklama}.sql dosyalarını sürüm sırasıyla bir kez çalıştırır.
+ * Uygulanan sürümler schema_migrations tablosunda tutulur; her dosya kendi transaction'ında çalışır.
+ * Şema artık Hibernate ddl-auto ile değil bu dosyalarla yönetilir.
+ */
+public class SchemaMigrator {
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void migrate() throws SQLException, IOException {
+        Map<Integer, Resource> migrations = findMigrations();
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table if not exists schema_migrations ("
+                        + "version integer primary key, description varchar(255) not null, installed_at datetime not null)");
+            }
+            Set<Integer> applied = appliedVersions(connection);
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (Map.Entry<Integer, Resource> migration : migrations.entrySet()) {
+                    if (applied.contains(migration.getKey())) continue;
+                    apply(connection, migration.getKey(), migration.getValue());
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private Map<Integer, Resource> findMigrations() throws IOException {
+        Map<Integer, Resource> migrations = new TreeMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+            if (!matcher.matches()) continue;
+
+            Integer version = Integer.valueOf(matcher.group(1));
+            if (migrations.put(version, resource) != null) {
+                throw new IllegalStateException("Aynı sürüme ait birden fazla migration var: V" + version);
+            }
+        }
+        return migrations;
+    }
+
+    private Set<Integer> appliedVersions(Connection connection) throws SQLException {
+        Set<Integer> applied = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select version from schema_migrations")) {
+            while (rs.next()) {
+                applied.add(rs.getInt(1));
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, int version, Resource resource) throws SQLException {
+        Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+        String description = matcher.matches() ? matcher.group(2).replace('_', ' ') : resource.getFilename();
+
+        try {
+            ScriptUtils.executeSqlScript(connection, resource);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into schema_migrations (version, description, installed_at) values (?, ?, ?)")) {
+                insert.setInt(1, version);
+                insert.setString(2, description);
+                insert.setString(3, LocalDateTime.now().toString());
+                insert.executeUpdate();
+            }
+            connection.commit();
+        } catch (RuntimeException | SQLException e) {
+            connection.rollback();
+            throw new IllegalStateException("Migration V" + version + " (" + resource.getFilename() + ") başarısız: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.ChunkedUploadService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Büyük dosyalar için parça parça yükleme:
+ * POST /api/import/uploads ile oturum açılır, PUT /api/import/uploads/{uploadId}?offset=..&checksum=..
+ * ile parçalar (ham byte, SHA-256 hex checksum) gönderilir, POST /api/import/uploads/{uploadId}/finalize
+ * ile tamamlanır. Dönen fileId preview ve import endpoint'lerine file yerine verilir.
+ */
+@RestController
+@RequestMapping("/api/import/uploads")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService uploadService;
+
+    public ChunkedUploadController(ChunkedUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    // checksum: tüm dosyanın SHA-256'sı, verilirse finalize sırasında kontrol edilir
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createUpload(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("size") long size,
+            @RequestParam(value = "checksum", required = false) String checksum) {
+        try {
+            return ResponseEntity.ok(toResponse(uploadService.createSession(fileName, size, checksum)));
+        } catch (Exception e) {
+            return error(e, null);
+        }
+    }
+
+    // Bağlantı koptuktan sonra istemci receivedBytes'tan devam eder
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(toResponse(uploadService.getSession(uploadId)));
+        } catch (Exception e) {
+            return error(e, null);
+        }
+    }
+
+    // Gövde multipart değil, ham byte'tır; Spring'in multipart tamponundan geçmeden dosyaya akar
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam("offset") long offset,
+            @RequestParam("checksum") String checksum,
+            HttpServletRequest request) {
+        try (InputStream body = request.getInputStream()) {
+            return ResponseEntity.ok(toResponse(uploadService.writeChunk(uploadId, offset, body, checksum)));
+        } catch (Exception e) {
+            return error(e, uploadId);
+        }
+    }
+
+    @PostMapping("/{uploadId}/finalize")
+    public ResponseEntity<Map<String, Object>> finalizeUpload(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(toResponse(uploadService.complete(uploadId)));
+        } catch (Exception e) {
+            return error(e, uploadId);
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> deleteUpload(@PathVariable String uploadId) {
+        try {
+            uploadService.delete(uploadId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("uploadId", uploadId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(e, null);
+        }
+    }
+
+    private Map<String, Object> toResponse(ChunkedUploadService.UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("uploadId", session.getId());
+        response.put("fileName", session.getFileName());
+        response.put("size", session.getSize());
+        response.put("receivedBytes", session.getReceivedBytes());
+        response.put("completed", session.isCompleted());
+        if (session.isCompleted()) {
+            response.put("fileId", session.getId());
+        }
+        return response;
+    }
+
+    // Bilinmeyen yükleme 404, yanlış offset/eksik dosya 409, hatalı parça 400; hata yanıtında güncel receivedBytes döner
+    private ResponseEntity<Map<String, Object>> error(Exception e, String uploadId) {
+        HttpStatus status = e instanceof ChunkedUploadService.UploadNotFoundException ? HttpStatus.NOT_FOUND
+                : e instanceof IllegalStateException ? HttpStatus.CONFLICT
+                : e instanceof IllegalArgumentException ? HttpStatus.BAD_REQUEST
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", e.getMessage());
+        if (uploadId != null && status != HttpStatus.NOT_FOUND) {
+            try {
+                response.put("receivedBytes", uploadService.getSession(uploadId).getReceivedBytes());
+            } catch (ChunkedUploadService.UploadNotFoundException ignored) {
+                // Bu arada silinmiş olabilir
+            }
+        }
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -9,6 +9,7 @@ import com.example.demo.Validation.CustomFieldValidator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -32,18 +33,20 @@ public class CustomFieldController {
     public ResponseEntity<CustomFieldImportResponse> importCustomFields(@RequestBody List<Map<String, Object>> data) {
         CustomFieldImportResponse response = new CustomFieldImportResponse();
 
+        List<CustomField> validFields = new ArrayList<>();
         for (Map<String, Object> row : data) {
             CustomField field = mapper.mapToCustomField(row);
             CustomFieldValidationResult result = validator.validate(field);
 
             if (result.isValid()) {
-                service.save(field);
+                validFields.add(field);
                 response.getSavedCustomFields().add(field.getKey());
             } else {
                 result.setCustomFieldKey(field.getKey());
                 response.getFailedCustomFields().add(result);
             }
         }
+        service.saveCustomFields(validFields);
 
         return ResponseEntity.ok(response);
     }
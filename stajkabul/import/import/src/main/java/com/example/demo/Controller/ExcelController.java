@@ -1,10 +1,13 @@
 package com.example.demo.Controller;
 
 import com.example.demo.Service.ExcelService;
+import com.example.demo.Service.ImportSessionService;
+import com.example.demo.Service.StreamingExcelReader;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -13,14 +16,19 @@ import java.util.Map;
 public class ExcelController {
 
     private final ExcelService excelService;
+    private final ImportSessionService importSessionService;
 
-    public ExcelController(ExcelService excelService) {
+    public ExcelController(ExcelService excelService, ImportSessionService importSessionService) {
         this.excelService = excelService;
+        this.importSessionService = importSessionService;
     }
 
     @PostMapping("/preview")
-    public ResponseEntity<Map<String, Object>> previewExcel(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> previewExcel(@RequestParam(value = "file", required = false) MultipartFile file,
+                                                            @RequestParam(value = "fileId", required = false) String fileId,
+                                                            @RequestParam(value = "sessionId", required = false) String sessionId) {
         try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
             // İlk 5 satırı önizleme için alıyoruz
             Map<String, Object> previewData = (Map) excelService.readExcelPreview(file, 5);
             return ResponseEntity.ok(previewData);
@@ -28,4 +36,18 @@ public class ExcelController {
             return ResponseEntity.badRequest().body(Map.of("error", "Dosya okunamadı: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/sheets")
+    public ResponseEntity<Map<String, Object>> sheetInfo(@RequestParam(value = "file", required = false) MultipartFile file,
+                                                         @RequestParam(value = "fileId", required = false) String fileId,
+                                                         @RequestParam(value = "sessionId", required = false) String sessionId) {
+        try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
+            // Sheet adları ve boyutları, satırlar okunmadan
+            List<StreamingExcelReader.SheetInfo> sheets = excelService.readSheetInfo(file);
+            return ResponseEntity.ok(Map.of("sheets", sheets));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Dosya okunamadı: " + e.getMessage()));
+        }
+    }
 }
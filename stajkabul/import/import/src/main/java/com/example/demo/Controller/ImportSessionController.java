@@ -0,0 +1,95 @@
+package com.example.demo.Controller;
+
+import com.example.demo.Service.ColumnarExcelData;
+import com.example.demo.Service.ImportSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sihirbaz için import oturumu: dosya bir kez yüklenip parse edilir, dönen sessionId
+ * /api/excel/preview, /api/excel/sheets ve /api/import/... endpoint'lerine file yerine verilir.
+ */
+@RestController
+@RequestMapping("/api/import/sessions")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ImportSessionController {
+
+    private final ImportSessionService importSessionService;
+
+    public ImportSessionController(ImportSessionService importSessionService) {
+        this.importSessionService = importSessionService;
+    }
+
+    // file (multipart) ya da fileId (tamamlanmış parça parça yükleme) ile oturum aç
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createSession(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "fileId", required = false) String fileId) {
+        try {
+            return ResponseEntity.ok(toResponse(importSessionService.createSession(file, fileId)));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<Map<String, Object>> getSession(@PathVariable String sessionId) {
+        try {
+            return ResponseEntity.ok(toResponse(importSessionService.getSession(sessionId)));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Map<String, Object>> deleteSession(@PathVariable String sessionId) {
+        try {
+            importSessionService.deleteSession(sessionId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("sessionId", sessionId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    private Map<String, Object> toResponse(ImportSessionService.ImportSession session) {
+        List<Map<String, Object>> sheets = new ArrayList<>();
+        for (ColumnarExcelData data : session.getSheets().values()) {
+            Map<String, Object> sheet = new LinkedHashMap<>();
+            sheet.put("name", data.getSheetName());
+            sheet.put("headers", data.getHeaders());
+            sheet.put("rowCount", data.getRowCount());
+            sheets.add(sheet);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("sessionId", session.getId());
+        response.put("fileId", session.getFileId());
+        response.put("fileName", session.getFileName());
+        response.put("size", session.getSize());
+        response.put("sheets", sheets);
+        return response;
+    }
+
+    // Bilinmeyen oturum 404, hatalı istek 400
+    private ResponseEntity<Map<String, Object>> error(Exception e) {
+        HttpStatus status = e instanceof ImportSessionService.SessionNotFoundException ? HttpStatus.NOT_FOUND
+                : e instanceof IllegalArgumentException || e instanceof IllegalStateException ? HttpStatus.BAD_REQUEST
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -10,8 +10,10 @@ import com.example.demo.Validation.OrganizationValidator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/organizations")
@@ -38,17 +40,22 @@ public class OrganizationController {
     public ResponseEntity<OrganizationImportResponse> importOrganizations(@RequestBody List<Organization> organizations) {
         OrganizationImportResponse response = new OrganizationImportResponse();
 
+        // Var olan externalId'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = organizationService.findExistingExternalIds(organizations);
+
+        List<Organization> validOrganizations = new ArrayList<>();
         for (Organization organization : organizations) {
             OrganizationValidationResult validationResult = organizationValidator.validate(organization);
 
             if (validationResult.isValid()) {
-                organizationService.saveOrganization(organization);
+                validOrganizations.add(organization);
                 response.getSavedOrganizations().add(organization.getExternalId());
             } else {
                 validationResult.setOrganizationIdentifier(organization.getExternalId());
                 response.getFailedOrganizations().add(validationResult);
             }
         }
+        organizationService.saveOrganizations(validOrganizations, existingExternalIds);
 
         return ResponseEntity.ok(response);
     }
@@ -57,18 +64,26 @@ public class OrganizationController {
     public ResponseEntity<OrganizationImportResponse> importMappedOrganizations(@RequestBody OrganizationImportRequest request) {
         OrganizationImportResponse response = new OrganizationImportResponse();
 
+        List<Organization> organizations = new ArrayList<>(request.getData().size());
         for (Map<String, Object> row : request.getData()) {
-            Organization organization = organizationMapper.mapWithMapping(row, request.getColumnMappings());
+            organizations.add(organizationMapper.mapWithMapping(row, request.getColumnMappings()));
+        }
+        // Var olan externalId'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = organizationService.findExistingExternalIds(organizations);
+
+        List<Organization> validOrganizations = new ArrayList<>();
+        for (Organization organization : organizations) {
             OrganizationValidationResult validationResult = organizationValidator.validate(organization);
 
             if (validationResult.isValid()) {
-                organizationService.saveOrganization(organization);
+                validOrganizations.add(organization);
                 response.getSavedOrganizations().add(organization.getExternalId());
             } else {
                 validationResult.setOrganizationIdentifier(organization.getExternalId());
                 response.getFailedOrganizations().add(validationResult);
             }
         }
+        organizationService.saveOrganizations(validOrganizations, existingExternalIds);
 
         return ResponseEntity.ok(response);
     }
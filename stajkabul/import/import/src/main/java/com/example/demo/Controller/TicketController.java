@@ -3,6 +3,7 @@ package com.example.demo.Controller;
 import com.example.demo.DTO.TicketImportRequest;
 import com.example.demo.DTO.TicketImportResponse;
 import com.example.demo.Entity.Ticket;
+import com.example.demo.Mapper.ReferenceResolver;
 import com.example.demo.Mapper.TicketMapper;
 import com.example.demo.Service.TicketService;
 import com.example.demo.Validation.TicketValidationResult;
@@ -10,8 +11,11 @@ import com.example.demo.Validation.TicketValidator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -38,17 +42,22 @@ public class TicketController {
     public ResponseEntity<TicketImportResponse> importTickets(@RequestBody List<Ticket> tickets) {
         TicketImportResponse response = new TicketImportResponse();
 
+        // Var olan externalId'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = ticketService.findExistingExternalIds(tickets);
+
+        List<Ticket> validTickets = new ArrayList<>();
         for (Ticket ticket : tickets) {
             TicketValidationResult validationResult = ticketValidator.validate(ticket);
 
             if (validationResult.isValid()) {
-                ticketService.saveTicket(ticket);
+                validTickets.add(ticket);
                 response.getSavedTickets().add(ticket.getExternalId());
             } else {
                 validationResult.setTicketIdentifier(ticket.getExternalId());
                 response.getFailedTickets().add(validationResult);
             }
         }
+        ticketService.saveTickets(validTickets, existingExternalIds);
 
         return ResponseEntity.ok(response);
     }
@@ -57,19 +66,40 @@ public class TicketController {
     public ResponseEntity<TicketImportResponse> importMappedTickets(@RequestBody TicketImportRequest request) {
         TicketImportResponse response = new TicketImportResponse();
 
+        // İstek boyunca referanslar bir kez toplu yüklenir
+        ReferenceResolver references = ticketMapper.newReferenceResolver();
+        references.preload(request.getData());
+
+        List<Ticket> tickets = new ArrayList<>(request.getData().size());
         for (Map<String, Object> row : request.getData()) {
-            Ticket ticket = ticketMapper.mapWithMapping(row, request.getColumnMappings());
+            tickets.add(ticketMapper.mapWithMapping(row, request.getColumnMappings(), references));
+        }
+        // Var olan externalId'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = ticketService.findExistingExternalIds(tickets);
+
+        List<Ticket> validTickets = new ArrayList<>();
+        for (Ticket ticket : tickets) {
             TicketValidationResult validationResult = ticketValidator.validate(ticket);
 
             if (validationResult.isValid()) {
-                ticketService.saveTicket(ticket);
+                validTickets.add(ticket);
                 response.getSavedTickets().add(ticket.getExternalId());
             } else {
                 validationResult.setTicketIdentifier(ticket.getExternalId());
                 response.getFailedTickets().add(validationResult);
             }
         }
+        ticketService.saveTickets(validTickets, existingExternalIds);
+
+        return ResponseEntity.ok(response);
+    }
 
+    // Ertelenmiş kullanıcı referanslarını, kullanıcıları artık var olan ticket'lara bağla
+    @PostMapping("/resolve-references")
+    public ResponseEntity<Map<String, Object>> resolvePendingReferences() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("resolvedTickets", ticketService.resolvePendingReferences());
         return ResponseEntity.ok(response);
     }
 
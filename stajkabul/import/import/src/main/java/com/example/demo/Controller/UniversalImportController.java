@@ -1,15 +1,25 @@
 package com.example.demo.Controller;
 
 import com.example.demo.Factory.ImportServiceFactory;
+import com.example.demo.Service.AsyncImportService;
+import com.example.demo.Service.BatchedImportRunner;
+import com.example.demo.Service.ImportProgressStreamService;
+import com.example.demo.Service.ImportContext;
 import com.example.demo.Service.ImportService;
 import com.example.demo.Config.ImportConfig;
 import com.example.demo.Service.ExcelService;
+import com.example.demo.Service.ImportSessionService;
+import com.example.demo.Service.StagingImportService;
+import com.example.demo.Service.WorkbookImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -25,12 +35,30 @@ public class UniversalImportController {
     private final ImportServiceFactory serviceFactory;
     private final ImportConfig importConfig;
     private final ExcelService excelService;
+    private final AsyncImportService asyncImportService;
+    private final ImportProgressStreamService progressStreamService;
+    private final WorkbookImportService workbookImportService;
+    private final StagingImportService stagingImportService;
+    private final ImportSessionService importSessionService;
+    private final BatchedImportRunner batchedImportRunner;
     private final ObjectMapper objectMapper;
     
     @Autowired
-    public UniversalImportController(ImportServiceFactory serviceFactory, ExcelService excelService) {
+    public UniversalImportController(ImportServiceFactory serviceFactory, ExcelService excelService,
+                                     AsyncImportService asyncImportService,
+                                     ImportProgressStreamService progressStreamService,
+                                     WorkbookImportService workbookImportService,
+                                     StagingImportService stagingImportService,
+                                     ImportSessionService importSessionService,
+                                     BatchedImportRunner batchedImportRunner) {
         this.serviceFactory = serviceFactory;
         this.excelService = excelService;
+        this.asyncImportService = asyncImportService;
+        this.progressStreamService = progressStreamService;
+        this.workbookImportService = workbookImportService;
+        this.stagingImportService = stagingImportService;
+        this.importSessionService = importSessionService;
+        this.batchedImportRunner = batchedImportRunner;
         this.importConfig = null; // Şimdilik null, sonra implement edilecek
         this.objectMapper = new ObjectMapper();
     }
@@ -108,8 +136,11 @@ public class UniversalImportController {
      * Excel preview endpoint'i
      */
     @PostMapping("/excel/preview")
-    public ResponseEntity<?> previewExcel(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> previewExcel(@RequestParam(value = "file", required = false) MultipartFile file,
+                                          @RequestParam(value = "fileId", required = false) String fileId,
+                                          @RequestParam(value = "sessionId", required = false) String sessionId) {
         try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
             if (file.isEmpty()) {
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("success", false);
@@ -140,10 +171,13 @@ public class UniversalImportController {
     @PostMapping("/{importType}/import-excel")
     public ResponseEntity<Map<String, Object>> importExcelWithMapping(
             @PathVariable String importType,
-            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "fileId", required = false) String fileId,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
             @RequestParam("mappings") String mappingsJson) {
         
         try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
             if (file.isEmpty()) {
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("success", false);
@@ -158,29 +192,12 @@ public class UniversalImportController {
                 return ResponseEntity.badRequest().body(errorResponse);
             }
             
-            // Excel dosyasını oku
-            ExcelService.ExcelData excelData = excelService.readFullExcel(file);
+            // Excel dosyasını bir kez oku ve mapping'e göre dönüştür
+            ImportContext context = excelService.createImportContext(importType, file, parseMappings(mappingsJson));
             
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = new ArrayList<>();
-            try {
-                // Jackson ile JSON parsing
-                List<Map<String, Object>> parsedMappings = objectMapper.readValue(
-                    mappingsJson, 
-                    new TypeReference<List<Map<String, Object>>>() {}
-                );
-                mappings = parsedMappings;
-            } catch (Exception e) {
-                // Hata durumunda boş liste kullan
-                mappings = new ArrayList<>();
-            }
-            
-            // Excel verilerini mapping'e göre dönüştür
-            List<Map<String, Object>> transformedData = excelService.transformDataWithMapping(excelData, mappings);
-            
-            // ImportServiceFactory'den uygun servisi al
+            // ImportServiceFactory'den uygun servisi al; satırlar batch'ler halinde işlenir
             ImportService importService = serviceFactory.getService(importType);
-            Map<String, Object> result = importService.importExcelWithMapping(file, mappingsJson);
+            Map<String, Object> result = batchedImportRunner.run(importService, context);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -190,6 +207,7 @@ public class UniversalImportController {
             response.put("successCount", result.get("successCount"));
             response.put("errorCount", result.get("errorCount"));
             response.put("errors", result.get("errors"));
+            response.put("errorsTruncated", result.get("errorsTruncated"));
             
             return ResponseEntity.ok(response);
             
@@ -201,6 +219,171 @@ public class UniversalImportController {
         }
     }
     
+    /**
+     * Excel dosyasını staging modunda import et: satırlar SQLite geçici tablosuna yüklenir, doğrulama ve
+     * tekrar/çakışma kontrolü set tabanlı SQL ile yapılır, geçerli satırlar toplu aktarılır (Contact, Organization, Ticket)
+     */
+    @PostMapping("/{importType}/import-excel/staged")
+    public ResponseEntity<Map<String, Object>> importExcelStaged(
+            @PathVariable String importType,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "fileId", required = false) String fileId,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
+            @RequestParam("mappings") String mappingsJson) {
+        
+        try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
+            if (file.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Dosya boş olamaz");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            
+            if (!stagingImportService.isSupported(importType)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Staging modu bu import türünü desteklemiyor: " + importType);
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            
+            return ResponseEntity.ok(stagingImportService.importExcel(importType, file, parseMappings(mappingsJson)));
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Excel import hatası: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+    
+    /**
+     * Birden fazla sheet'i olan Excel dosyasını tek işte import et.
+     * sheets: [{"sheetName": "Contacts", "importType": "User", "mappings": [...]}, ...]
+     * Sheet'ler bağımlılık sırasıyla (Group -> Organization -> User -> Ticket) çalışır, bağımsız olanlar paralel.
+     */
+    @PostMapping("/workbook/import-excel")
+    public ResponseEntity<Map<String, Object>> importWorkbook(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "fileId", required = false) String fileId,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
+            @RequestParam("sheets") String sheetsJson) {
+        
+        try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
+            if (file.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Dosya boş olamaz");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            
+            List<WorkbookImportService.SheetImport> sheetImports = objectMapper.readValue(sheetsJson,
+                new TypeReference<List<WorkbookImportService.SheetImport>>() {});
+            return ResponseEntity.ok(workbookImportService.importWorkbook(file, sheetImports));
+            
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Excel import hatası: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+    
+    /**
+     * Excel import'unu arka planda başlatır; dosya işin içinde okunur, iş id'si hemen döner
+     */
+    @PostMapping("/{importType}/import-excel/async")
+    public ResponseEntity<Map<String, Object>> startAsyncExcelImport(
+            @PathVariable String importType,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "fileId", required = false) String fileId,
+            @RequestParam(value = "sessionId", required = false) String sessionId,
+            @RequestParam("mappings") String mappingsJson) {
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            file = importSessionService.resolveFile(file, fileId, sessionId);
+            if (file.isEmpty()) {
+                response.put("success", false);
+                response.put("error", "Dosya boş olamaz");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            if (!serviceFactory.isSupported(importType)) {
+                response.put("success", false);
+                response.put("error", "Desteklenmeyen import türü: " + importType);
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            // Dosya işin içinde parse edilir; satır sayısı /jobs/{importId} ile gelir
+            String importId = asyncImportService.startAsyncExcelImport(importType, file, parseMappings(mappingsJson));
+            
+            response.put("success", true);
+            response.put("importId", importId);
+            response.put("importType", importType);
+            return ResponseEntity.accepted().body(response);
+            
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", "Excel import hatası: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
+    /**
+     * Arka plan import işinin durumunu döner
+     */
+    @GetMapping("/jobs/{importId}")
+    public ResponseEntity<?> getImportProgress(@PathVariable String importId) {
+        AsyncImportService.ImportProgress progress = asyncImportService.getImportProgress(importId);
+        if (progress == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(progress.snapshot());
+    }
+    
+    /**
+     * Arka plan import işinin ilerlemesini Server-Sent Events olarak iter (yoklama yerine).
+     * "progress" olayları birleştirilerek gönderilir, iş bitince akış kapanır.
+     */
+    @GetMapping(value = "/jobs/{importId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamImportProgress(@PathVariable String importId) {
+        SseEmitter emitter = progressStreamService.subscribe(importId);
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * Arka plan import işini iptal eder
+     */
+    @DeleteMapping("/jobs/{importId}")
+    public ResponseEntity<Map<String, Object>> cancelImport(@PathVariable String importId) {
+        Map<String, Object> response = new HashMap<>();
+        boolean cancelled = asyncImportService.cancelImport(importId);
+        response.put("success", cancelled);
+        if (!cancelled) {
+            response.put("error", "İş bulunamadı ya da zaten tamamlandı: " + importId);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    // Mapping JSON'ını parse et; hata durumunda boş liste kullanılır
+    private List<Map<String, Object>> parseMappings(String mappingsJson) {
+        try {
+            return objectMapper.readValue(mappingsJson, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+    
     /**
      * Veri validation endpoint'i
      */
@@ -10,8 +10,10 @@ import com.example.demo.Validation.UserValidator;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/users")
@@ -39,11 +41,15 @@ public class UserController {
     public ResponseEntity<UserImportResponse> importUsers(@RequestBody List<User> users) {
         UserImportResponse response = new UserImportResponse();
 
+        // Var olan External ID'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = userService.findExistingExternalIds(users);
+
+        List<User> validUsers = new ArrayList<>();
         for (User user : users) {
             UserValidationResult validationResult = userValidator.validate(user);
 
             if (validationResult.isValid()) {
-                userService.saveUser(user); // Geçerli kullanıcıyı kaydet
+                validUsers.add(user); // Geçerli kullanıcılar döngüden sonra toplu kaydedilir
                 response.getSavedUsers().add(user.getExternalId());
             } else {
                 // Hatalı kullanıcı için kimliğini setle
@@ -53,6 +59,7 @@ public class UserController {
                 response.getFailedUsers().add(validationResult);
             }
         }
+        userService.saveUsers(validUsers, existingExternalIds);
 
         return ResponseEntity.ok(response);
     }
@@ -61,13 +68,24 @@ public class UserController {
     public ResponseEntity<UserImportResponse> importMappedUsers(@RequestBody UserImportRequest request) {
         UserImportResponse response = new UserImportResponse();
 
+        // Organizasyon ve gruplar istek başına bir kez toplu bulunur/oluşturulur
+        UserMapper.ContactReferences references = userMapper.resolveReferences(request.getData());
+
+        List<User> users = new ArrayList<>(request.getData().size());
+        for (Map<String, Object> row : request.getData()) {
+            users.add(userMapper.mapWithMapping(row, request.getColumnMappings(), references));
+        }
+        // Var olan External ID'ler satır başına değil, toplu IN sorgularıyla alınır
+        Set<String> existingExternalIds = userService.findExistingExternalIds(users);
+
+        List<User> validUsers = new ArrayList<>();
         for (int i = 0; i < request.getData().size(); i++) {
             Map<String, Object> row = request.getData().get(i);
-            User user = userMapper.mapWithMapping(row, request.getColumnMappings());
+            User user = users.get(i);
             UserValidationResult validationResult = userValidator.validate(user);
 
             if (validationResult.isValid()) {
-                userService.saveUser(user);
+                validUsers.add(user);
                 response.getSavedUsers().add(user.getExternalId());
             } else {
                 validationResult.setUserIdentifier(user.getExternalId());
@@ -76,6 +94,7 @@ public class UserController {
                 response.getFailedUsers().add(validationResult);
             }
         }
+        userService.saveUsers(validUsers, existingExternalIds);
 
         return ResponseEntity.ok(response);
     }
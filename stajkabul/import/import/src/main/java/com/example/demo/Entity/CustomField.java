@@ -6,7 +6,7 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "custom_fields")
+@Table(name = "custom_fields", indexes = @Index(name = "ux_custom_fields_key", columnList = "key", unique = true))
 public class CustomField {
 
     @Id
@@ -35,7 +35,8 @@ public class CustomField {
     private boolean enabled;
 
     @ElementCollection
-    @CollectionTable(name = "custom_field_options", joinColumns = @JoinColumn(name = "custom_field_id"))
+    @CollectionTable(name = "custom_field_options", joinColumns = @JoinColumn(name = "custom_field_id"),
+            indexes = @Index(name = "ix_custom_field_options_custom_field_id", columnList = "custom_field_id"))
     @Column(name = "option_value")
     private List<String> options;
 
@@ -43,7 +44,8 @@ public class CustomField {
     @JoinTable(
             name = "custom_field_groups",
             joinColumns = @JoinColumn(name = "custom_field_id"),
-            inverseJoinColumns = @JoinColumn(name = "group_id")
+            inverseJoinColumns = @JoinColumn(name = "group_id"),
+            indexes = @Index(name = "ix_custom_field_groups_custom_field_id", columnList = "custom_field_id")
     )
     private List<Group> groups;
 
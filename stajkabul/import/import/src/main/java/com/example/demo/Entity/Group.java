@@ -3,7 +3,7 @@ package com.example.demo.Entity;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "groups")
+@Table(name = "groups", indexes = @Index(name = "ux_groups_name", columnList = "name", unique = true))
 public class Group {
 
     @Id
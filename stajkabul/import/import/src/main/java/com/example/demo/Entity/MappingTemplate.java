@@ -6,7 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "mapping_templates")
+@Table(name = "mapping_templates", indexes = @Index(name = "ix_mapping_templates_import_type", columnList = "importType"))
 public class MappingTemplate {
     
     @Id
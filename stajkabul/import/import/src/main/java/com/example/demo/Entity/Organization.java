@@ -4,7 +4,7 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "organizations")
+@Table(name = "organizations", indexes = @Index(name = "ux_organizations_external_id", columnList = "externalId", unique = true))
 public class Organization {
 
     @Id
@@ -24,13 +24,15 @@ public class Organization {
 
     // Eğer domains virgülle ayrılan listeyse, şu şekilde tutulabilir:
     @ElementCollection
-    @CollectionTable(name = "organization_domains", joinColumns = @JoinColumn(name = "organization_id"))
+    @CollectionTable(name = "organization_domains", joinColumns = @JoinColumn(name = "organization_id"),
+            indexes = @Index(name = "ix_organization_domains_organization_id", columnList = "organization_id"))
     @Column(name = "domain")
     private List<String> domains;
 
     // Tags da benzer şekilde listelenebilir
     @ElementCollection
-    @CollectionTable(name = "organization_tags", joinColumns = @JoinColumn(name = "organization_id"))
+    @CollectionTable(name = "organization_tags", joinColumns = @JoinColumn(name = "organization_id"),
+            indexes = @Index(name = "ix_organization_tags_organization_id", columnList = "organization_id"))
     @Column(name = "tag")
     private List<String> tags;
 
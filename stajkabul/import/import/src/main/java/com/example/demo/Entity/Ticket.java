@@ -7,10 +7,15 @@ import com.example.demo.Entity.enums.TicketType;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets", indexes = {
+        @Index(name = "ux_tickets_external_id", columnList = "externalId", unique = true),
+        @Index(name = "ix_tickets_requester_id", columnList = "requester_id")
+})
 public class Ticket {
 
     @Id
@@ -59,10 +64,16 @@ public class Ticket {
     private LocalDateTime solvedAt;
 
     @ElementCollection
-    @CollectionTable(name = "ticket_tags", joinColumns = @JoinColumn(name = "ticket_id"))
+    @CollectionTable(name = "ticket_tags", joinColumns = @JoinColumn(name = "ticket_id"),
+            indexes = @Index(name = "ix_ticket_tags_ticket_id", columnList = "ticket_id"))
     @Column(name = "tag")
     private List<String> tags;
 
+    // Import sırasında bulunamayan kullanıcı referansları (rol -> externalId);
+    // toplu kayıtta ticket_pending_references'a yazılır, kullanıcılar gelince bağlanır
+    @Transient
+    private Map<String, String> pendingUserReferences = new LinkedHashMap<>();
+
     // Getter ve Setter'lar
 
     public Long getId() {
@@ -208,4 +219,12 @@ public class Ticket {
     public void setTags(List<String> tags) {
         this.tags = tags;
     }
+
+    public Map<String, String> getPendingUserReferences() {
+        return pendingUserReferences;
+    }
+
+    public void addPendingUserReference(String role, String externalId) {
+        this.pendingUserReferences.put(role, externalId);
+    }
 }
@@ -7,7 +7,11 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_external_id", columnList = "externalId", unique = true),
+        @Index(name = "ix_users_phone", columnList = "phone"),
+        @Index(name = "ix_users_organization_id", columnList = "organization_id")
+})
 public class User {
 
     @Id
@@ -22,7 +26,10 @@ public class User {
     private String phone;
 
     @ElementCollection
-    @CollectionTable(name = "user_emails", joinColumns = @JoinColumn(name = "user_id"))
+    @CollectionTable(name = "user_emails", joinColumns = @JoinColumn(name = "user_id"), indexes = {
+            @Index(name = "ix_user_emails_email", columnList = "email"),
+            @Index(name = "ix_user_emails_user_id", columnList = "user_id")
+    })
     @Column(name = "email")
     private List<String> emails;
 
@@ -36,7 +43,8 @@ public class User {
     private Language language;
 
     @ElementCollection
-    @CollectionTable(name = "user_tags", joinColumns = @JoinColumn(name = "user_id"))
+    @CollectionTable(name = "user_tags", joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "ix_user_tags_user_id", columnList = "user_id"))
     @Column(name = "tag")
     private List<String> tags;
 
@@ -44,7 +52,8 @@ public class User {
     @JoinTable(
             name = "user_groups",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "group_id")
+            inverseJoinColumns = @JoinColumn(name = "group_id"),
+            indexes = @Index(name = "ix_user_groups_user_id", columnList = "user_id")
     )
     private List<Group> groups;
 
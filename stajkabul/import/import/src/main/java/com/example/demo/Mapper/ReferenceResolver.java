@@ -0,0 +1,146 @@
+package com.example.demo.Mapper;
+
+import com.example.demo.Entity.Group;
+import com.example.demo.Entity.Organization;
+import com.example.demo.Entity.User;
+import com.example.demo.Repository.ExternalIdLookup;
+import com.example.demo.Repository.GroupRepository;
+import com.example.demo.Repository.OrganizationRepository;
+import com.example.demo.Repository.UserRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bir import işi boyunca ticket satırlarındaki referansların (creator/requester/assignee,
+ * assigneeGroup, organization) önbelleği. Satır başına sorgu yerine her batch'te henüz görülmemiş
+ * anahtarlar IN sorgularıyla toplu yüklenir; map'leme sırasında çözümleme bir hash lookup'tır.
+ * Bulunamayan anahtarlar da hatırlanır. Paralel doğrulamada birden fazla thread'den okunabilir.
+ */
+public class ReferenceResolver {
+
+    private static final List<String> USER_FIELDS = List.of("creator", "requester", "assignee");
+
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final OrganizationRepository organizationRepository;
+
+    private final Map<String, Optional<User>> users = new ConcurrentHashMap<>();
+    private final Map<String, Optional<Group>> groups = new ConcurrentHashMap<>();
+    private final Map<String, Optional<Organization>> organizations = new ConcurrentHashMap<>();
+
+    ReferenceResolver(UserRepository userRepository,
+                      GroupRepository groupRepository,
+                      OrganizationRepository organizationRepository) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.organizationRepository = organizationRepository;
+    }
+
+    // Satırlarda geçen, önbellekte olmayan referansları toplu yükle (satırlar grispiField adıyla anahtarlı)
+    public void preload(List<Map<String, Object>> rows) {
+        Set<String> userIds = new LinkedHashSet<>();
+        Set<String> groupNames = new LinkedHashSet<>();
+        Set<String> organizationIds = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) {
+            for (String field : USER_FIELDS) {
+                collect(row, field, users, userIds);
+            }
+            collect(row, "assigneeGroup", groups, groupNames);
+            collect(row, "organization", organizations, organizationIds);
+        }
+
+        load(userIds, users, userRepository::findByExternalIdIn, User::getExternalId);
+        load(groupNames, groups, groupRepository::findByNameIn, Group::getName);
+        load(organizationIds, organizations, organizationRepository::findByExternalIdIn, Organization::getExternalId);
+    }
+
+    public User findUser(String externalId) {
+        return lookup(users, externalId, id -> userRepository.findByExternalId(id).orElse(null));
+    }
+
+    public Group findGroup(String name) {
+        return lookup(groups, name, groupRepository::findByName);
+    }
+
+    public Organization findOrganization(String externalId) {
+        return lookup(organizations, externalId, organizationRepository::findByExternalId);
+    }
+
+    // Çok sheet'li işte önceki aşamaların kaydettiği kayıtlar; sonraki aşamalar bunlar için sorgu yapmaz
+    public void registerUsers(Collection<User> created) {
+        register(created, users, User::getExternalId);
+    }
+
+    public void registerGroups(Collection<Group> created) {
+        register(created, groups, Group::getName);
+    }
+
+    public void registerOrganizations(Collection<Organization> created) {
+        register(created, organizations, Organization::getExternalId);
+    }
+
+    // Önbellekte bulunan ya da kaydedilmiş organizasyon; önbellekte yoksa sorgu yapmadan null
+    public Organization getCachedOrganization(String externalId) {
+        return cached(organizations, externalId);
+    }
+
+    public Group getCachedGroup(String name) {
+        return cached(groups, name);
+    }
+
+    private <E> void register(Collection<E> created, Map<String, Optional<E>> cache, Function<E, String> keyOf) {
+        for (E entity : created) {
+            String key = keyOf.apply(entity);
+            if (key != null) {
+                // Daha önce "yok" olarak hatırlanan anahtarın yerine geçer
+                cache.put(key, Optional.of(entity));
+            }
+        }
+    }
+
+    private <E> E cached(Map<String, Optional<E>> cache, String key) {
+        Optional<E> cachedValue = cache.get(key);
+        return cachedValue != null ? cachedValue.orElse(null) : null;
+    }
+
+    private <E> void collect(Map<String, Object> row, String field, Map<String, Optional<E>> cache, Set<String> keys) {
+        Object value = row.get(field);
+        if (value == null) return;
+
+        String key = value.toString().trim();
+        if (!key.isEmpty() && !cache.containsKey(key)) {
+            keys.add(key);
+        }
+    }
+
+    private <E> void load(Set<String> keys, Map<String, Optional<E>> cache,
+                          Function<Collection<String>, List<E>> finder, Function<E, String> keyOf) {
+        for (E entity : ExternalIdLookup.findExisting(keys, finder)) {
+            cache.putIfAbsent(keyOf.apply(entity), Optional.of(entity));
+        }
+        // Sorguda dönmeyen anahtarlar veritabanında yok
+        for (String key : keys) {
+            cache.putIfAbsent(key, Optional.empty());
+        }
+    }
+
+    // Önceden yüklenmemiş anahtar (preload çağrılmadıysa) tek sorguyla bulunup hatırlanır
+    private <E> E lookup(Map<String, Optional<E>> cache, String key, Function<String, E> finder) {
+        Optional<E> cached = cache.get(key);
+        if (cached == null) {
+            cached = Optional.ofNullable(finder.apply(key));
+            Optional<E> previous = cache.putIfAbsent(key, cached);
+            if (previous != null) {
+                cached = previous;
+            }
+        }
+        return cached.orElse(null);
+    }
+}
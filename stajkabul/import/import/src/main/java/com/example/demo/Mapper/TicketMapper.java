@@ -29,7 +29,16 @@ public class TicketMapper {
         this.organizationRepository = organizationRepository;
     }
 
+    // Bir import işi için referans önbelleği; iş boyunca aynı örnek kullanılmalı
+    public ReferenceResolver newReferenceResolver() {
+        return new ReferenceResolver(userRepository, groupRepository, organizationRepository);
+    }
+
     public Ticket mapToTicket(Map<String, Object> row, Map<String, String> mappings) {
+        return mapToTicket(row, mappings, newReferenceResolver());
+    }
+
+    public Ticket mapToTicket(Map<String, Object> row, Map<String, String> mappings, ReferenceResolver references) {
         Ticket ticket = new Ticket();
 
         // ExcelService zaten grispiField adını key olarak kullanıyor
@@ -92,23 +101,26 @@ public class TicketMapper {
                     } catch (Exception ignored) {}
                     break;
                 case "creator":
-                    User creator = userRepository.findByExternalId(value).orElse(null);
+                    User creator = references.findUser(value);
                     ticket.setCreator(creator);
+                    deferIfMissing(ticket, grispiField, value, creator);
                     break;
                 case "requester":
-                    User requester = userRepository.findByExternalId(value).orElse(null);
+                    User requester = references.findUser(value);
                     ticket.setRequester(requester);
+                    deferIfMissing(ticket, grispiField, value, requester);
                     break;
                 case "assignee":
-                    User assignee = userRepository.findByExternalId(value).orElse(null);
+                    User assignee = references.findUser(value);
                     ticket.setAssignee(assignee);
+                    deferIfMissing(ticket, grispiField, value, assignee);
                     break;
                 case "assigneeGroup":
-                    Group group = groupRepository.findByName(value);
+                    Group group = references.findGroup(value);
                     ticket.setAssigneeGroup(group);
                     break;
                 case "organization":
-                    Organization org = organizationRepository.findByExternalId(value);
+                    Organization org = references.findOrganization(value);
                     ticket.setOrganization(org);
                     break;
                 case "tags":
@@ -124,7 +136,18 @@ public class TicketMapper {
         return ticket;
     }
 
+    // Henüz olmayan kullanıcı kaybolmaz: kayıtta ertelenmiş referans olarak yazılır, kullanıcı gelince bağlanır
+    private void deferIfMissing(Ticket ticket, String role, String externalId, User user) {
+        if (user == null) {
+            ticket.addPendingUserReference(role, externalId);
+        }
+    }
+
     public Ticket mapWithMapping(Map<String, Object> row, Map<String, String> mappings) {
         return mapToTicket(row, mappings);
     }
+
+    public Ticket mapWithMapping(Map<String, Object> row, Map<String, String> mappings, ReferenceResolver references) {
+        return mapToTicket(row, mappings, references);
+    }
 }
@@ -5,8 +5,7 @@ import com.example.demo.Entity.Organization;
 import com.example.demo.Entity.User;
 import com.example.demo.Entity.enums.Language;
 import com.example.demo.Entity.enums.Role;
-import com.example.demo.Repository.GroupRepository;
-import com.example.demo.Repository.OrganizationRepository;
+import com.example.demo.Repository.OrganizationGroupRegistry;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -15,15 +14,75 @@ import java.util.HashMap;
 @Component
 public class UserMapper {
 
-    private final GroupRepository groupRepository;
-    private final OrganizationRepository organizationRepository;
+    private final OrganizationGroupRegistry registry;
 
-    public UserMapper(GroupRepository groupRepository, OrganizationRepository organizationRepository) {
-        this.groupRepository = groupRepository;
-        this.organizationRepository = organizationRepository;
+    public UserMapper(OrganizationGroupRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Bir grup satırda geçen organizasyon ve grupları bulur, olmayanları toplu oluşturur.
+     * Satırlar map'lenmeden önce parça başına bir kez çağrılır; map'leme sırasında sorgu yapılmaz.
+     */
+    public static class ContactReferences {
+        private final Map<String, Organization> organizations;
+        private final Map<String, Group> groups;
+
+        ContactReferences(Map<String, Organization> organizations, Map<String, Group> groups) {
+            this.organizations = organizations;
+            this.groups = groups;
+        }
+
+        public Organization getOrganization(String externalId) { return organizations.get(externalId); }
+        public Group getGroup(String name) { return groups.get(name); }
+    }
+
+    public ContactReferences resolveReferences(List<Map<String, Object>> rows) {
+        return resolveReferences(rows, null);
+    }
+
+    // known: çok sheet'li işin önbelleği; önceki aşamalarda kaydedilenler için sorgu yapılmaz,
+    // bu parçada bulunan/oluşturulanlar sonraki aşamalar için önbelleğe eklenir
+    public ContactReferences resolveReferences(List<Map<String, Object>> rows, ReferenceResolver known) {
+        Map<String, Organization> organizations = new HashMap<>();
+        Map<String, Group> groups = new HashMap<>();
+        List<String> organizationIds = new ArrayList<>();
+        List<String> groupNames = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            String orgExternalId = getString(row, "organization");
+            if (orgExternalId != null && !orgExternalId.isEmpty()) {
+                Organization organization = known != null ? known.getCachedOrganization(orgExternalId) : null;
+                if (organization != null) {
+                    organizations.put(orgExternalId, organization);
+                } else {
+                    organizationIds.add(orgExternalId);
+                }
+            }
+            for (String name : splitGroups(getString(row, "groups"))) {
+                Group group = known != null ? known.getCachedGroup(name) : null;
+                if (group != null) {
+                    groups.put(name, group);
+                } else {
+                    groupNames.add(name);
+                }
+            }
+        }
+        Map<String, Organization> resolvedOrganizations = registry.getOrCreateOrganizations(organizationIds);
+        Map<String, Group> resolvedGroups = registry.getOrCreateGroups(groupNames);
+        if (known != null) {
+            known.registerOrganizations(resolvedOrganizations.values());
+            known.registerGroups(resolvedGroups.values());
+        }
+        organizations.putAll(resolvedOrganizations);
+        groups.putAll(resolvedGroups);
+        return new ContactReferences(organizations, groups);
     }
 
     public User mapWithMapping(Map<String, Object> row, List<Map<String, Object>> mappings) {
+        return mapWithMapping(row, mappings, resolveReferences(Collections.singletonList(row)));
+    }
+
+    public User mapWithMapping(Map<String, Object> row, List<Map<String, Object>> mappings, ContactReferences references) {
         User user = new User();
 
         // Mapping'den grispi field adlarını al
@@ -36,9 +95,9 @@ public class UserMapper {
             }
         }
 
-        // ExternalId - boşsa null bırak
+        // ExternalId - boşsa null bırak (unique index boş string'leri çakışma sayar, NULL'ları saymaz)
         String externalId = getString(row, "externalId");
-        user.setExternalId(externalId);
+        user.setExternalId(externalId != null && !externalId.isEmpty() ? externalId : null);
         
         user.setFirstName(getString(row, "firstName"));
         user.setLastName(getString(row, "lastName"));
@@ -120,37 +179,18 @@ public class UserMapper {
             user.setLanguage(Language.TR); // varsayılan dil
         }
 
-        // Organization
+        // Organization (resolveReferences ile önceden bulunmuş/oluşturulmuş)
         String orgExternalId = getString(row, "organization");
-        if (orgExternalId != null && !orgExternalId.trim().isEmpty()) {
-            Organization org = organizationRepository.findByExternalId(orgExternalId);
-            if (org == null) {
-                // Organization bulunamadıysa otomatik oluştur
-                org = new Organization();
-                org.setExternalId(orgExternalId);
-                org.setName(orgExternalId);
-                org = organizationRepository.save(org);
-            }
-            user.setOrganization(org);
+        if (orgExternalId != null && !orgExternalId.isEmpty()) {
+            user.setOrganization(references.getOrganization(orgExternalId));
         }
 
         // Groups (boşluk ile ayrılmış isimler)
-        String groupsStr = getString(row, "groups");
-        if (groupsStr != null && !groupsStr.trim().isEmpty()) {
-            List<String> groupNames = Arrays.asList(groupsStr.split(" "));
+        List<String> groupNames = splitGroups(getString(row, "groups"));
+        if (!groupNames.isEmpty()) {
             List<Group> groups = new ArrayList<>();
             for (String name : groupNames) {
-                String trimmedName = name.trim();
-                if (!trimmedName.isEmpty()) {
-                    Group group = groupRepository.findByName(trimmedName);
-                    if (group == null) {
-                        // Group bulunamadıysa otomatik oluştur
-                        group = new Group();
-                        group.setName(trimmedName);
-                        group = groupRepository.save(group);
-                    }
-                    groups.add(group);
-                }
+                groups.add(references.getGroup(name));
             }
             user.setGroups(groups);
         }
@@ -180,4 +220,16 @@ public class UserMapper {
         }
         return trimmed;
     }
+
+    private List<String> splitGroups(String groupsStr) {
+        List<String> names = new ArrayList<>();
+        if (groupsStr == null) return names;
+        for (String name : groupsStr.split(" ")) {
+            String trimmedName = name.trim();
+            if (!trimmedName.isEmpty()) {
+                names.add(trimmedName);
+            }
+        }
+        return names;
+    }
 }
@@ -0,0 +1,319 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Entity.CustomField;
+import com.example.demo.Entity.Group;
+import com.example.demo.Entity.Organization;
+import com.example.demo.Entity.Ticket;
+import com.example.demo.Entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * User, Ticket, Organization ve CustomField için JDBC toplu kayıt yolu.
+ * IDENTITY üretimi Hibernate batch'ini kapattığı için satır başına save yerine:
+ * - her parça (import.processing.insertBatchSize) SqliteWriter'a tek yazma olarak gider (atomik, group commit ile),
+ * - parçanın ID'leri tablo kilitlendikten sonra max(id)+1'den blok olarak ayrılır,
+ * - ana tablo ve element collection tabloları çok satırlı VALUES ile batch halinde eklenir.
+ * Commit edilen entity'lerin id alanı set edilir; hata veren parçanın id'leri null'a döner ve
+ * PartialInsertException fırlatılır. Parçalar sırayla yazıldığı için kaydedilenler listenin başıdır
+ * (getPersistedCount); çağıran sadece geri kalan satırları hatalı saymalıdır.
+ */
+@Repository
+public class BulkInsertRepository {
+
+    // Tek INSERT'teki parametre sayısı SQLite'ın eski sürümlerdeki 999 sınırının altında kalır
+    private static final int MAX_PARAMETERS = 999;
+
+    private static final String[] USER_COLUMNS = {"id", "enabled", "external_id", "first_name", "language",
+            "last_name", "phone", "role", "organization_id"};
+    private static final String[] ORGANIZATION_COLUMNS = {"id", "description", "details", "external_id", "name",
+            "notes", "group_id"};
+    private static final String[] TICKET_COLUMNS = {"id", "channel", "created_at", "description", "external_id",
+            "form", "priority", "solved_at", "status", "subject", "type", "updated_at", "assignee_id",
+            "assignee_group_id", "creator_id", "organization_id", "requester_id"};
+    private static final String[] CUSTOM_FIELD_COLUMNS = {"id", "description", "description_for_agents",
+            "description_for_customers", "enabled", "key", "name", "permission", "required", "title_for_agents",
+            "title_for_customers", "type"};
+
+    private final SqliteWriter sqliteWriter;
+    private final ImportConfig importConfig;
+
+    public BulkInsertRepository(SqliteWriter sqliteWriter, ImportConfig importConfig) {
+        this.sqliteWriter = sqliteWriter;
+        this.importConfig = importConfig;
+    }
+
+    /**
+     * İlk persistedCount entity commit edildi, sonrakiler kaydedilmedi (id'leri null).
+     */
+    public static class PartialInsertException extends RuntimeException {
+        private final int persistedCount;
+
+        PartialInsertException(int persistedCount, RuntimeException cause) {
+            super(cause.getMessage(), cause);
+            this.persistedCount = persistedCount;
+        }
+
+        public int getPersistedCount() {
+            return persistedCount;
+        }
+    }
+
+    public void insertUsers(List<User> users) {
+        // Bu kullanıcıları bekleyen ticket'lar varsa son parçayla aynı yazmada bağlanır
+        inChunks(users, "users", User::setId, this::resolvePendingTicketReferences, (jdbc, chunk) -> {
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            List<Object[]> emails = new ArrayList<>();
+            List<Object[]> tags = new ArrayList<>();
+            List<Object[]> groups = new ArrayList<>();
+            for (User user : chunk) {
+                rows.add(new Object[]{user.getId(), user.isEnabled(), user.getExternalId(), user.getFirstName(),
+                        user.getLanguage(), user.getLastName(), user.getPhone(), user.getRole(),
+                        idOf(user.getOrganization(), Organization::getId)});
+                addElements(emails, user.getId(), user.getEmails());
+                addElements(tags, user.getId(), user.getTags());
+                addReferences(groups, user.getId(), user.getGroups());
+            }
+            insertRows(jdbc, "users", USER_COLUMNS, rows);
+            insertRows(jdbc, "user_emails", new String[]{"user_id", "email"}, emails);
+            insertRows(jdbc, "user_tags", new String[]{"user_id", "tag"}, tags);
+            insertRows(jdbc, "user_groups", new String[]{"user_id", "group_id"}, groups);
+        });
+    }
+
+    public void insertOrganizations(List<Organization> organizations) {
+        inChunks(organizations, "organizations", Organization::setId, null, (jdbc, chunk) -> {
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            List<Object[]> domains = new ArrayList<>();
+            List<Object[]> tags = new ArrayList<>();
+            for (Organization org : chunk) {
+                rows.add(new Object[]{org.getId(), org.getDescription(), org.getDetails(), org.getExternalId(),
+                        org.getName(), org.getNotes(), idOf(org.getGroup(), Group::getId)});
+                addElements(domains, org.getId(), org.getDomains());
+                addElements(tags, org.getId(), org.getTags());
+            }
+            insertRows(jdbc, "organizations", ORGANIZATION_COLUMNS, rows);
+            insertRows(jdbc, "organization_domains", new String[]{"organization_id", "domain"}, domains);
+            insertRows(jdbc, "organization_tags", new String[]{"organization_id", "tag"}, tags);
+        });
+    }
+
+    public void insertTickets(List<Ticket> tickets) {
+        boolean[] deferred = new boolean[1];
+        // Map'leme ile kayıt arasında eklenmiş kullanıcılar beklenmeden, son parçayla aynı yazmada bağlanır
+        Function<JdbcTemplate, Integer> resolveDeferred = jdbc -> deferred[0] ? resolvePendingTicketReferences(jdbc) : 0;
+        inChunks(tickets, "tickets", Ticket::setId, resolveDeferred, (jdbc, chunk) -> {
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            List<Object[]> tags = new ArrayList<>();
+            List<Object[]> pendingReferences = new ArrayList<>();
+            for (Ticket ticket : chunk) {
+                rows.add(new Object[]{ticket.getId(), ticket.getChannel(), ticket.getCreatedAt(),
+                        ticket.getDescription(), ticket.getExternalId(), ticket.getForm(), ticket.getPriority(),
+                        ticket.getSolvedAt(), ticket.getStatus(), ticket.getSubject(), ticket.getType(),
+                        ticket.getUpdatedAt(), idOf(ticket.getAssignee(), User::getId),
+                        idOf(ticket.getAssigneeGroup(), Group::getId), idOf(ticket.getCreator(), User::getId),
+                        idOf(ticket.getOrganization(), Organization::getId), idOf(ticket.getRequester(), User::getId)});
+                addElements(tags, ticket.getId(), ticket.getTags());
+                ticket.getPendingUserReferences().forEach((role, externalId) ->
+                        pendingReferences.add(new Object[]{ticket.getId(), role, externalId}));
+            }
+            insertRows(jdbc, "tickets", TICKET_COLUMNS, rows);
+            insertRows(jdbc, "ticket_tags", new String[]{"ticket_id", "tag"}, tags);
+            insertRows(jdbc, "ticket_pending_references", new String[]{"ticket_id", "role", "external_id"}, pendingReferences);
+            deferred[0] |= !pendingReferences.isEmpty();
+        });
+    }
+
+    /**
+     * Ertelenmiş ticket referanslarını, kullanıcısı artık var olanlar için tek geçişte bağlar:
+     * bekleyen satırlar users ile join edilip ticket başına rol kolonlarına pivotlanır ve tek bir
+     * UPDATE ... FROM ile yazılır, bağlanan satırlar silinir. İkisi aynı yazmada (transaction'da) çalışır.
+     * Güncellenen ticket sayısını döner.
+     */
+    public int resolvePendingTicketReferences() {
+        return sqliteWriter.execute(this::resolvePendingTicketReferences);
+    }
+
+    private int resolvePendingTicketReferences(JdbcTemplate jdbc) {
+        int updated = jdbc.update(
+                "update tickets set"
+                + " creator_id = coalesce(resolved.creator_id, tickets.creator_id),"
+                + " requester_id = coalesce(resolved.requester_id, tickets.requester_id),"
+                + " assignee_id = coalesce(resolved.assignee_id, tickets.assignee_id)"
+                + " from (select p.ticket_id,"
+                + " max(case when p.role = 'creator' then u.id end) as creator_id,"
+                + " max(case when p.role = 'requester' then u.id end) as requester_id,"
+                + " max(case when p.role = 'assignee' then u.id end) as assignee_id"
+                + " from ticket_pending_references p join users u on u.external_id = p.external_id"
+                + " group by p.ticket_id) as resolved"
+                + " where tickets.id = resolved.ticket_id");
+        jdbc.update("delete from ticket_pending_references where exists"
+                + " (select 1 from users u where u.external_id = ticket_pending_references.external_id)");
+        return updated;
+    }
+
+    public void insertCustomFields(List<CustomField> customFields) {
+        inChunks(customFields, "custom_fields", CustomField::setId, null, (jdbc, chunk) -> {
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            List<Object[]> options = new ArrayList<>();
+            List<Object[]> groups = new ArrayList<>();
+            for (CustomField field : chunk) {
+                rows.add(new Object[]{field.getId(), field.getDescription(), field.getDescriptionForAgents(),
+                        field.getDescriptionForCustomers(), field.isEnabled(), field.getKey(), field.getName(),
+                        field.getPermission(), field.isRequired(), field.getTitleForAgents(),
+                        field.getTitleForCustomers(), field.getType()});
+                addElements(options, field.getId(), field.getOptions());
+                addReferences(groups, field.getId(), field.getGroups());
+            }
+            insertRows(jdbc, "custom_fields", CUSTOM_FIELD_COLUMNS, rows);
+            insertRows(jdbc, "custom_field_options", new String[]{"custom_field_id", "option_value"}, options);
+            insertRows(jdbc, "custom_field_groups", new String[]{"custom_field_id", "group_id"}, groups);
+        });
+    }
+
+    // Olmayan organizasyonları (adı externalId ile aynı) ekler, var olanlara dokunmaz
+    public void insertMissingOrganizations(Collection<String> externalIds) {
+        List<Object[]> rows = new ArrayList<>(externalIds.size());
+        for (String externalId : externalIds) {
+            rows.add(new Object[]{externalId, externalId});
+        }
+        upsert("organizations", new String[]{"external_id", "name"}, rows, "external_id");
+    }
+
+    // Olmayan grupları ekler, var olanlara dokunmaz
+    public void insertMissingGroups(Collection<String> names) {
+        List<Object[]> rows = new ArrayList<>(names.size());
+        for (String name : names) {
+            rows.add(new Object[]{name});
+        }
+        upsert("groups", new String[]{"name"}, rows, "name");
+    }
+
+    // Unique index'e çarpan satırlar atlanır: aynı anda aynı kaydı ekleyen iki iş çakışmaz
+    private void upsert(String table, String[] columns, List<Object[]> rows, String conflictColumn) {
+        if (rows.isEmpty()) return;
+        sqliteWriter.execute(jdbc -> {
+            insertRows(jdbc, table, columns, rows, " on conflict (" + conflictColumn + ") do nothing");
+            return null;
+        });
+    }
+
+    // Her parça yazıcı thread'inde tek seferde: ID bloğu ayrılır, id'ler set edilir, satırlar yazılır.
+    // afterLast (varsa) son parçayla aynı yazmada çalışır; hata verirse son parça da geri alınır
+    private <T> void inChunks(List<T> entities, String table, BiConsumer<T, Long> idSetter,
+                              Function<JdbcTemplate, ?> afterLast, BiConsumer<JdbcTemplate, List<T>> writer) {
+        int chunkSize = Math.max(1, importConfig.getProcessing().getInsertBatchSize());
+        for (int from = 0; from < entities.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, entities.size());
+            List<T> chunk = entities.subList(from, to);
+            boolean last = to == entities.size();
+            try {
+                sqliteWriter.execute(jdbc -> {
+                    long id = allocateIds(jdbc, table);
+                    for (T entity : chunk) {
+                        idSetter.accept(entity, id++);
+                    }
+                    writer.accept(jdbc, chunk);
+                    if (last && afterLast != null) {
+                        afterLast.apply(jdbc);
+                    }
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Rollback olan parçanın id'leri veritabanında yok; önceki parçalar commit edildi
+                chunk.forEach(entity -> idSetter.accept(entity, null));
+                throw new PartialInsertException(from, e);
+            }
+        }
+    }
+
+    // Boş bir UPDATE yazma kilidini alır; JPA üzerinden yapılan tekil kayıtlar da (ör. mapper'ların
+    // oluşturduğu grup/organizasyonlar) commit'e kadar bekler, max(id) sonrası blok başkasına verilmez
+    long allocateIds(JdbcTemplate jdbcTemplate, String table) {
+        jdbcTemplate.update("update " + table + " set id = id where 0");
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return maxId + 1;
+    }
+
+    // INSERT INTO t (..) VALUES (..),(..),.. ; tam gruplar tek batch'te, kalan satırlar son bir INSERT'te
+    void insertRows(JdbcTemplate jdbcTemplate, String table, String[] columns, List<Object[]> rows) {
+        insertRows(jdbcTemplate, table, columns, rows, "");
+    }
+
+    private void insertRows(JdbcTemplate jdbcTemplate, String table, String[] columns, List<Object[]> rows, String suffix) {
+        if (rows.isEmpty()) return;
+
+        int rowsPerStatement = Math.max(1, MAX_PARAMETERS / columns.length);
+        int fullGroups = rows.size() / rowsPerStatement;
+
+        if (fullGroups > 0) {
+            List<Object[]> batch = new ArrayList<>(fullGroups);
+            for (int group = 0; group < fullGroups; group++) {
+                batch.add(flatten(rows.subList(group * rowsPerStatement, (group + 1) * rowsPerStatement), columns.length));
+            }
+            jdbcTemplate.batchUpdate(insertSql(table, columns, rowsPerStatement) + suffix, batch);
+        }
+
+        List<Object[]> rest = rows.subList(fullGroups * rowsPerStatement, rows.size());
+        if (!rest.isEmpty()) {
+            jdbcTemplate.update(insertSql(table, columns, rest.size()) + suffix, flatten(rest, columns.length));
+        }
+    }
+
+    private String insertSql(String table, String[] columns, int rowCount) {
+        String[] marks = new String[columns.length];
+        Arrays.fill(marks, "?");
+        String row = "(" + String.join(", ", marks) + ")";
+        return "insert into " + table + " (" + String.join(", ", columns) + ") values "
+                + String.join(", ", Collections.nCopies(rowCount, row));
+    }
+
+    private Object[] flatten(List<Object[]> rows, int columnCount) {
+        Object[] values = new Object[rows.size() * columnCount];
+        int i = 0;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                values[i++] = toJdbcValue(value);
+            }
+        }
+        return values;
+    }
+
+    // Hibernate ile aynı saklama biçimi: enum'lar isimleriyle, tarih-saatler Timestamp olarak
+    private Object toJdbcValue(Object value) {
+        if (value instanceof Enum) return ((Enum<?>) value).name();
+        if (value instanceof LocalDateTime) return Timestamp.valueOf((LocalDateTime) value);
+        return value;
+    }
+
+    private void addElements(List<Object[]> target, Long ownerId, List<String> values) {
+        if (values == null) return;
+        for (String value : values) {
+            target.add(new Object[]{ownerId, value});
+        }
+    }
+
+    private void addReferences(List<Object[]> target, Long ownerId, List<Group> groups) {
+        if (groups == null) return;
+        for (Group group : groups) {
+            if (group != null && group.getId() != null) {
+                target.add(new Object[]{ownerId, group.getId()});
+            }
+        }
+    }
+
+    private <E> Long idOf(E entity, Function<E, Long> getId) {
+        return entity != null ? getId.apply(entity) : null;
+    }
+}
@@ -2,9 +2,23 @@ package com.example.demo.Repository;
 
 import com.example.demo.Entity.CustomField;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public interface CustomFieldRepository extends JpaRepository<CustomField, Long> {
 
     boolean existsByKey(String key);
 
+    @Query("select f.key from CustomField f where f.key in :keys")
+    List<String> findKeysIn(@Param("keys") Collection<String> keys);
+
+    // Satır başına existsByKey yerine key'ler IN (...) sorgularıyla parça parça sorulur
+    default Set<String> findExistingKeys(Collection<String> keys) {
+        return new HashSet<>(ExternalIdLookup.findExisting(keys, this::findKeysIn));
+    }
 }
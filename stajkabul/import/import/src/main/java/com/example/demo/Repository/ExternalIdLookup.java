@@ -0,0 +1,44 @@
+package com.example.demo.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * externalId'si olan entity repository'leri için toplu varlık kontrolü.
+ * Satır başına findByExternalId yerine ID'ler IN (...) sorgularıyla parça parça sorulur.
+ */
+public interface ExternalIdLookup {
+
+    // SQLite'ın sorgu başına parametre sınırının (eski sürümlerde 999) altında kalır
+    int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    // Verilen ID'lerden veritabanında bulunanlar (her repository kendi @Query'si ile tanımlar)
+    List<String> findExternalIdsIn(Collection<String> externalIds);
+
+    default Set<String> findExistingExternalIds(Collection<String> externalIds) {
+        return new HashSet<>(findExisting(externalIds, this::findExternalIdsIn));
+    }
+
+    // Değerleri IN_CLAUSE_CHUNK_SIZE'lık parçalar halinde query'ye verir ve sonuçları birleştirir;
+    // tekrarlar ve boş değerler sorulmaz. Sonuç ID listesi de olabilir, entity listesi de
+    static <R> List<R> findExisting(Collection<String> values, Function<? super List<String>, ? extends Collection<R>> query) {
+        List<R> existing = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(Math.min(values.size(), IN_CLAUSE_CHUNK_SIZE));
+        for (String value : new HashSet<>(values)) {
+            if (value == null || value.trim().isEmpty()) continue;
+            chunk.add(value);
+            if (chunk.size() == IN_CLAUSE_CHUNK_SIZE) {
+                existing.addAll(query.apply(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            existing.addAll(query.apply(chunk));
+        }
+        return existing;
+    }
+}
@@ -3,7 +3,14 @@ package com.example.demo.Repository;
 import com.example.demo.Entity.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface GroupRepository extends JpaRepository<Group, Long> {
 
     Group findByName(String name);
+
+    List<Group> findByNameIn(Collection<String> names);
+
+    boolean existsByName(String name);
 }
@@ -0,0 +1,80 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Entity.Group;
+import com.example.demo.Entity.Organization;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Kişi satırlarında adı geçen organizasyon ve gruplar için bul-yoksa-oluştur.
+ * Bir parçadaki anahtarlar bellekte tekilleştirilir, var olanlar IN sorgularıyla bulunur,
+ * eksikler tek bir "insert ... on conflict do nothing" ile eklenip tekrar okunur.
+ * Yazma SqliteWriter'dan geçtiği ve çakışmayı unique index çözdüğü için aynı anda çalışan
+ * işler ya da paralel worker'lar aynı kaydı iki kez oluşturamaz; JVM içi kilit gerekmez.
+ */
+@Component
+public class OrganizationGroupRegistry {
+
+    private final OrganizationRepository organizationRepository;
+    private final GroupRepository groupRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+
+    public OrganizationGroupRegistry(OrganizationRepository organizationRepository,
+                                     GroupRepository groupRepository,
+                                     BulkInsertRepository bulkInsertRepository) {
+        this.organizationRepository = organizationRepository;
+        this.groupRepository = groupRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+    }
+
+    // externalId -> organizasyon; olmayanlar adı externalId olacak şekilde oluşturulur
+    public Map<String, Organization> getOrCreateOrganizations(Collection<String> externalIds) {
+        Set<String> keys = distinct(externalIds);
+        Map<String, Organization> found = find(keys, organizationRepository::findByExternalIdIn, Organization::getExternalId);
+
+        Set<String> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            bulkInsertRepository.insertMissingOrganizations(missing);
+            found.putAll(find(missing, organizationRepository::findByExternalIdIn, Organization::getExternalId));
+        }
+        return found;
+    }
+
+    // isim -> grup; olmayanlar oluşturulur
+    public Map<String, Group> getOrCreateGroups(Collection<String> names) {
+        Set<String> keys = distinct(names);
+        Map<String, Group> found = find(keys, groupRepository::findByNameIn, Group::getName);
+
+        Set<String> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            bulkInsertRepository.insertMissingGroups(missing);
+            found.putAll(find(missing, groupRepository::findByNameIn, Group::getName));
+        }
+        return found;
+    }
+
+    private Set<String> distinct(Collection<String> keys) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key != null && !key.trim().isEmpty()) {
+                distinct.add(key.trim());
+            }
+        }
+        return distinct;
+    }
+
+    private <E> Map<String, E> find(Set<String> keys, Function<Collection<String>, List<E>> finder, Function<E, String> keyOf) {
+        Map<String, E> found = new HashMap<>();
+        ExternalIdLookup.findExisting(keys, finder).forEach(entity -> found.put(keyOf.apply(entity), entity));
+        return found;
+    }
+}
@@ -2,8 +2,21 @@ package com.example.demo.Repository;
 
 import com.example.demo.Entity.Organization;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrganizationRepository extends JpaRepository<Organization, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface OrganizationRepository extends JpaRepository<Organization, Long>, ExternalIdLookup {
 
     Organization findByExternalId(String externalId);
+
+    List<Organization> findByExternalIdIn(Collection<String> externalIds);
+
+    boolean existsByExternalId(String externalId);
+
+    @Override
+    @Query("select o.externalId from Organization o where o.externalId in :externalIds")
+    List<String> findExternalIdsIn(@Param("externalIds") Collection<String> externalIds);
 }
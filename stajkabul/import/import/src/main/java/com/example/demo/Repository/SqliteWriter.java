@@ -0,0 +1,213 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * SQLite'a toplu yazmaların tek sahibi.
+ * Tek bir thread kendi bağlantısını WAL modunda açar; import işleri yazmalarını sınırlı bir kuyruğa bırakır.
+ * Thread kuyrukta biriken yazmaları (en fazla import.writer.maxGroupSize) tek transaction'da çalıştırır
+ * ve bir kez commit eder (group commit). Her yazma kendi savepoint'indedir; hata veren yazma geri alınır,
+ * gruptaki diğerleri etkilenmez. Yazmadan Error (ör. OutOfMemoryError) çıksa da yazıcı thread'i ölmez:
+ * hata sadece o yazmayı çağırana döner, kuyruk işlenmeye devam eder.
+ * WAL'de okuyucular yazıcıyı beklemez: Spring'in bağlantı havuzu (JPA okumaları) yazma sürerken de okur.
+ */
+@Component
+public class SqliteWriter {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final ImportConfig.WriterConfig config;
+    private final BlockingQueue<WriteRequest<?>> queue;
+
+    private Connection connection;
+    private JdbcTemplate jdbcTemplate;
+    private Thread thread;
+    private volatile boolean running;
+
+    public SqliteWriter(DataSourceProperties dataSourceProperties, ImportConfig importConfig) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.config = importConfig.getWriter();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+    }
+
+    private static class WriteRequest<T> {
+        private final Function<JdbcTemplate, T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+
+        WriteRequest(Function<JdbcTemplate, T> work) {
+            this.work = work;
+        }
+
+        void run(JdbcTemplate jdbcTemplate) {
+            value = work.apply(jdbcTemplate);
+        }
+
+        void complete() {
+            result.complete(value);
+        }
+    }
+
+    @PostConstruct
+    void start() throws SQLException {
+        connection = DriverManager.getConnection(dataSourceProperties.determineUrl());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("pragma journal_mode = WAL");
+            statement.execute("pragma synchronous = " + config.getSynchronous());
+            // Negatif değer sayfa değil KiB cinsindendir
+            statement.execute("pragma cache_size = -" + config.getCacheSizeKb());
+            statement.execute("pragma busy_timeout = " + config.getBusyTimeoutMs());
+            // Staging tabloları (temp) bellekte değil geçici dosyada tutulur; bellekte sadece cache_size kadarı kalır.
+            // Sadece staging modunu kapsar: normal import yolunun satırları ColumnarExcelData'da (import.rowStore) durur
+            statement.execute("pragma temp_store = FILE");
+        }
+        org.sqlite.Function.create(connection, "regexp", new RegexpFunction());
+        connection.setAutoCommit(false);
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+        running = true;
+        thread = new Thread(this::drain, "sqlite-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // "x regexp 'p'" için: SQLite varsayılan olarak REGEXP tanımlamaz. Java regex'i kullanılır,
+    // böylece staging doğrulaması Validator sınıflarındaki pattern'lerle birebir aynıdır
+    private static class RegexpFunction extends org.sqlite.Function {
+        // Sadece yazıcı thread'inden çağrılır
+        private final Map<String, Pattern> patterns = new HashMap<>();
+
+        @Override
+        protected void xFunc() throws SQLException {
+            String pattern = value_text(0);
+            String text = value_text(1);
+            if (pattern == null || text == null) {
+                result();
+                return;
+            }
+            result(patterns.computeIfAbsent(pattern, Pattern::compile).matcher(text).find() ? 1 : 0);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, SQLException {
+        // Kuyrukta kalan yazmalar bitirilir, sonra bağlantı kapanır
+        running = false;
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        // Kapanırken kuyruğa girmiş ama çalışmamış yazmalar bekleyen çağıranları asılı bırakmasın
+        IllegalStateException stopped = new IllegalStateException("SQLite yazıcısı kapandı");
+        for (WriteRequest<?> request = queue.poll(); request != null; request = queue.poll()) {
+            request.result.completeExceptionally(stopped);
+        }
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Yazmayı kuyruğa bırakır ve commit edilene kadar bekler. Kuyruk doluysa önce yer açılmasını bekler.
+     * work yazıcı thread'inde, grubun transaction'ı içinde çalışır; kendi commit/rollback'ini yapmamalıdır.
+     */
+    public <T> T execute(Function<JdbcTemplate, T> work) {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("SqliteWriter.execute yazıcı thread'inden çağrılamaz");
+        }
+        if (!running) {
+            throw new IllegalStateException("SQLite yazıcısı çalışmıyor");
+        }
+
+        WriteRequest<T> request = new WriteRequest<>(work);
+        try {
+            queue.put(request);
+            return request.result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Yazma kuyruğunda beklerken kesildi", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Kuyrukta bekleyen (henüz gruba alınmamış) yazma sayısı
+    int pendingWrites() {
+        return queue.size();
+    }
+
+    private void drain() {
+        int maxGroupSize = Math.max(1, config.getMaxGroupSize());
+        List<WriteRequest<?>> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteRequest<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<WriteRequest<?>> group) {
+        List<WriteRequest<?>> succeeded = new ArrayList<>(group.size());
+        try {
+            for (WriteRequest<?> request : group) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    request.run(jdbcTemplate);
+                    connection.releaseSavepoint(savepoint);
+                    succeeded.add(request);
+                } catch (Throwable e) {
+                    // Error da yakalanır: yazıcı thread'i ölürse execute() ile bekleyen herkes sonsuza kadar asılı kalır
+                    connection.rollback(savepoint);
+                    request.result.completeExceptionally(e);
+                }
+            }
+            connection.commit();
+            succeeded.forEach(WriteRequest::complete);
+        } catch (Throwable e) {
+            // Commit olmadıysa gruptaki başarılı yazmalar da geri alınmıştır
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            IllegalStateException failure = new IllegalStateException("SQLite commit başarısız: " + e.getMessage(), e);
+            group.forEach(request -> request.result.completeExceptionally(failure));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.Repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staging import modunun SQL tarafı.
+ * Her iş yazıcı bağlantısında kendi geçici (temp) tablosunu açar: dönüştürülmüş satırlar hedef tablonun
+ * kolonlarıyla, referanslar (organizasyon externalId'si, grup adı ...) ham anahtar olarak, çok değerli alanlar
+ * (e-posta, etiket, alan adı, grup) ayrı bir "_values" tablosunda satır numarasıyla tutulur.
+ * Doğrulama, dosya içi tekrar ve mevcut kayıtlarla çakışma satır satır değil, tüm tabloya tek UPDATE'lerle
+ * bakılarak işaretlenir; geçerli satırlar tek yazmada INSERT ... SELECT ... ON CONFLICT ile hedefe aktarılır.
+ * Temp tablolar sadece yazıcı bağlantısından görünür, bu yüzden tüm işlemler SqliteWriter'dan geçer.
+ */
+@Repository
+public class StagingImportRepository {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private static final String[] VALUE_COLUMNS = {"row_number", "kind", "value"};
+
+    private final SqliteWriter sqliteWriter;
+    private final BulkInsertRepository bulkInsertRepository;
+
+    public StagingImportRepository(SqliteWriter sqliteWriter, BulkInsertRepository bulkInsertRepository) {
+        this.sqliteWriter = sqliteWriter;
+        this.bulkInsertRepository = bulkInsertRepository;
+    }
+
+    // Yeni staging tablosunun adını döner; row_number Excel'deki satır numarasıdır
+    public String create(String[] columns) {
+        String table = "staging_" + SEQUENCE.incrementAndGet();
+        sqliteWriter.execute(jdbc -> {
+            jdbc.execute("create temp table " + table + " (row_number integer primary key, error text, "
+                    + String.join(", ", columns) + ")");
+            jdbc.execute("create temp table " + table + "_values (row_number integer not null, kind text not null, value text)");
+            return null;
+        });
+        return table;
+    }
+
+    // rows: {row_number, columns...}; values: {row_number, kind, value}. Bir parça tek yazmadır
+    public void load(String table, String[] columns, List<Object[]> rows, List<Object[]> values) {
+        String[] rowColumns = new String[columns.length + 1];
+        rowColumns[0] = "row_number";
+        System.arraycopy(columns, 0, rowColumns, 1, columns.length);
+        sqliteWriter.execute(jdbc -> {
+            bulkInsertRepository.insertRows(jdbc, table, rowColumns, rows);
+            bulkInsertRepository.insertRows(jdbc, table + "_values", VALUE_COLUMNS, values);
+            return null;
+        });
+    }
+
+    // Yükleme bittikten sonra: tekrar/çakışma kontrolü ve merge join'leri için index'ler
+    public void createIndexes(String table, String... columns) {
+        sqliteWriter.execute(jdbc -> {
+            for (String column : columns) {
+                jdbc.execute("create index " + table + "_" + column + " on " + table + " (" + column + ")");
+            }
+            jdbc.execute("create index " + table + "_values_row on " + table + "_values (row_number, kind)");
+            return null;
+        });
+    }
+
+    /**
+     * condition'ı sağlayan satırlara message'ı ekler. Staging tablosu condition içinde "s" adıyla görünür;
+     * message bir SQL ifadesidir (ör. 'External ID already exists: ' || s.external_id). Mesajlar satır sonuyla ayrılır.
+     */
+    public int addError(String table, String condition, String message) {
+        return sqliteWriter.execute(jdbc -> jdbc.update("update " + table + " as s set error = coalesce(s.error || char(10), '') || ("
+                + message + ") where " + condition));
+    }
+
+    // UserValidator ile aynı: başında + olmayan 10 haneli numaralara +90 eklenir
+    public void normalizePhones(String table) {
+        sqliteWriter.execute(jdbc -> jdbc.update("update " + table + " set phone = '+90' || phone"
+                + " where length(phone) = 10 and phone not glob '*[^0-9]*'"));
+    }
+
+    public long count(String table, String condition) {
+        return sqliteWriter.execute(jdbc -> jdbc.queryForObject(
+                "select count(*) from " + table + " as s where " + condition, Long.class));
+    }
+
+    // Hatalı satırlar satır sırasıyla, en fazla limit kadar
+    public List<Map<String, Object>> findErrors(String table, int limit) {
+        return sqliteWriter.execute(jdbc -> jdbc.queryForList(
+                "select row_number, external_id, error from " + table + " where error is not null order by row_number limit ?",
+                limit));
+    }
+
+    public void drop(String table) {
+        sqliteWriter.execute(jdbc -> {
+            jdbc.execute("drop table if exists " + table);
+            jdbc.execute("drop table if exists " + table + "_values");
+            return null;
+        });
+    }
+
+    /**
+     * Geçerli kişileri aktarır: satırlarda geçen organizasyon ve gruplar önce toplu bul-yoksa-oluştur ile eklenir,
+     * kişiler id bloğu ayrılarak (id = blok + row_number) eklenir, alt tablolar bu id'lerle doldurulur.
+     * Çakışma kontrolü kilit alındıktan sonra tekrarlanır; aktarılan satır sayısını döner.
+     */
+    public int mergeUsers(String table) {
+        return sqliteWriter.execute(jdbc -> {
+            jdbc.update("insert into organizations (external_id, name) select distinct organization_key, organization_key from "
+                    + table + " where error is null and organization_key is not null on conflict (external_id) do nothing");
+            jdbc.update("insert into groups (name) select distinct v.value from " + table + "_values v join " + table
+                    + " s on s.row_number = v.row_number where s.error is null and v.kind = 'group'"
+                    + " on conflict (name) do nothing");
+
+            long base = lockAndMarkConflicts(jdbc, table, "users");
+            int merged = jdbc.update("insert into users (id, enabled, external_id, first_name, language, last_name, phone, role, organization_id)"
+                    + " select ? + s.row_number, s.enabled, s.external_id, s.first_name, s.language, s.last_name, s.phone, s.role, o.id"
+                    + " from " + table + " s left join organizations o on o.external_id = s.organization_key"
+                    + " where s.error is null on conflict (external_id) do nothing", base);
+            insertValues(jdbc, table, base, "email", "user_emails (user_id, email)");
+            insertValues(jdbc, table, base, "tag", "user_tags (user_id, tag)");
+            jdbc.update("insert into user_groups (user_id, group_id) select ? + v.row_number, g.id from " + table + "_values v join "
+                    + table + " s on s.row_number = v.row_number join groups g on g.name = v.value"
+                    + " where s.error is null and v.kind = 'group'", base);
+            return merged;
+        });
+    }
+
+    // Geçerli organizasyonları aktarır; grup adı varsa var olan gruba bağlanır (olmayan grup oluşturulmaz)
+    public int mergeOrganizations(String table) {
+        return sqliteWriter.execute(jdbc -> {
+            long base = lockAndMarkConflicts(jdbc, table, "organizations");
+            int merged = jdbc.update("insert into organizations (id, description, details, external_id, name, notes, group_id)"
+                    + " select ? + s.row_number, s.description, s.details, s.external_id, s.name, s.notes, g.id"
+                    + " from " + table + " s left join groups g on g.name = s.group_key"
+                    + " where s.error is null on conflict (external_id) do nothing", base);
+            insertValues(jdbc, table, base, "domain", "organization_domains (organization_id, domain)");
+            insertValues(jdbc, table, base, "tag", "organization_tags (organization_id, tag)");
+            return merged;
+        });
+    }
+
+    // Geçerli ticket'ları aktarır; henüz olmayan kullanıcı referansları ticket_pending_references'a yazılır
+    public int mergeTickets(String table) {
+        return sqliteWriter.execute(jdbc -> {
+            long base = lockAndMarkConflicts(jdbc, table, "tickets");
+            int merged = jdbc.update("insert into tickets (id, channel, created_at, description, external_id, form, priority,"
+                    + " solved_at, status, subject, type, updated_at, assignee_id, assignee_group_id, creator_id, organization_id, requester_id)"
+                    + " select ? + s.row_number, s.channel, s.created_at, s.description, s.external_id, s.form, s.priority,"
+                    + " s.solved_at, s.status, s.subject, s.type, s.updated_at, assignee.id, g.id, creator.id, o.id, requester.id"
+                    + " from " + table + " s"
+                    + " left join users creator on creator.external_id = s.creator_key"
+                    + " left join users requester on requester.external_id = s.requester_key"
+                    + " left join users assignee on assignee.external_id = s.assignee_key"
+                    + " left join groups g on g.name = s.assignee_group_key"
+                    + " left join organizations o on o.external_id = s.organization_key"
+                    + " where s.error is null on conflict (external_id) do nothing", base);
+            insertValues(jdbc, table, base, "tag", "ticket_tags (ticket_id, tag)");
+            for (String role : List.of("creator", "requester", "assignee")) {
+                jdbc.update("insert into ticket_pending_references (ticket_id, role, external_id) select ? + s.row_number, ?, s."
+                        + role + "_key from " + table + " s where s.error is null and s." + role + "_key is not null"
+                        + " and not exists (select 1 from users u where u.external_id = s." + role + "_key)", base, role);
+            }
+            return merged;
+        });
+    }
+
+    // Hedef tablonun yazma kilidini alıp id bloğunu ayırır; kilit altında mevcut kayıtlarla çakışmayı yeniden işaretler
+    private long lockAndMarkConflicts(JdbcTemplate jdbc, String table, String target) {
+        long base = bulkInsertRepository.allocateIds(jdbc, target);
+        jdbc.update("update " + table + " as s set error = coalesce(s.error || char(10), '') || 'External ID already exists: ' || s.external_id"
+                + " where s.error is null and exists (select 1 from " + target + " t where t.external_id = s.external_id)");
+        return base;
+    }
+
+    private void insertValues(JdbcTemplate jdbc, String table, long base, String kind, String target) {
+        jdbc.update("insert into " + target + " select ? + v.row_number, v.value from " + table + "_values v join " + table
+                + " s on s.row_number = v.row_number where s.error is null and v.kind = ?", base, kind);
+    }
+}
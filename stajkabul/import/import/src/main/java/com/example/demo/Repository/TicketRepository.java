@@ -2,7 +2,20 @@ package com.example.demo.Repository;
 
 import com.example.demo.Entity.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface TicketRepository extends JpaRepository<Ticket, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+public interface TicketRepository extends JpaRepository<Ticket, Long>, ExternalIdLookup {
+
+    Optional<Ticket> findByExternalId(String externalId);
+
+    boolean existsByExternalId(String externalId);
+
+    @Override
+    @Query("select t.externalId from Ticket t where t.externalId in :externalIds")
+    List<String> findExternalIdsIn(@Param("externalIds") Collection<String> externalIds);
 }
@@ -2,15 +2,28 @@ package com.example.demo.Repository;
 
 import com.example.demo.Entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, ExternalIdLookup {
 
     Optional<User> findByExternalId(String externalId);
+
+    List<User> findByExternalIdIn(Collection<String> externalIds);
     
     Optional<User> findByPhone(String phone);
     
-    Optional<User> findByEmailsContaining(String email);
+    // user_emails.email index'i üzerinden join; aynı e-posta birden fazla kullanıcıda olabilir
+    @Query("select distinct u from User u join u.emails e where e = :email")
+    List<User> findByEmail(@Param("email") String email);
+
+    boolean existsByExternalId(String externalId);
 
+    @Override
+    @Query("select u.externalId from User u where u.externalId in :externalIds")
+    List<String> findExternalIdsIn(@Param("externalIds") Collection<String> externalIds);
 }
@@ -1,51 +1,192 @@
 package com.example.demo.Service;
 
-import org.springframework.scheduling.annotation.Async;
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Factory.ImportServiceFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class AsyncImportService {
     
     private final Map<String, ImportProgress> progressMap = new ConcurrentHashMap<>();
     
+    private final ImportServiceFactory serviceFactory;
+    private final ExcelService excelService;
+    private final ChunkedUploadService uploadService;
+    private final ImportConfig importConfig;
+    private final TaskExecutor importExecutor;
+    private final TaskScheduler cleanupScheduler;
+    
+    public AsyncImportService(ImportServiceFactory serviceFactory,
+                              ExcelService excelService,
+                              ChunkedUploadService uploadService,
+                              ImportConfig importConfig,
+                              @Qualifier("importExecutor") TaskExecutor importExecutor,
+                              @Qualifier("cleanupScheduler") TaskScheduler cleanupScheduler) {
+        this.serviceFactory = serviceFactory;
+        this.excelService = excelService;
+        this.uploadService = uploadService;
+        this.importConfig = importConfig;
+        this.importExecutor = importExecutor;
+        this.cleanupScheduler = cleanupScheduler;
+    }
+    
+    public enum ImportStatus {
+        PENDING, PROCESSING, COMPLETED, FAILED, CANCELLED;
+        
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+    
+    /**
+     * Tek bir işin ilerlemesi. Sayaçlar LongAdder'dır; birden fazla batch worker'ı kilitsiz günceller.
+     * Durum geçişleri compareAndSet ile yapılır, biten bir iş tekrar açılamaz.
+     * Okuyucular snapshot() ile tutarlı bir görüntü alır.
+     */
     public static class ImportProgress {
-        private String id;
-        private String status; // PENDING, PROCESSING, COMPLETED, FAILED
-        private int totalRows;
-        private int processedRows;
-        private int successCount;
-        private int errorCount;
-        private String message;
-        private Object result;
+        private final String id;
+        private final AtomicReference<ImportStatus> status = new AtomicReference<>(ImportStatus.PENDING);
+        private volatile int totalRows;
+        private final LongAdder processedRows = new LongAdder();
+        private final LongAdder successCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private volatile String message;
+        private volatile Object result;
+        private final long createdAt;
+        private volatile long startedAt;
+        private volatile long finishedAt;
         
         public ImportProgress(String id) {
             this.id = id;
-            this.status = "PENDING";
+            this.createdAt = System.currentTimeMillis();
         }
         
         // Getters and setters
         public String getId() { return id; }
-        public String getStatus() { return status; }
-        public void setStatus(String status) { this.status = status; }
+        public ImportStatus getStatus() { return status.get(); }
         public int getTotalRows() { return totalRows; }
         public void setTotalRows(int totalRows) { this.totalRows = totalRows; }
-        public int getProcessedRows() { return processedRows; }
-        public void setProcessedRows(int processedRows) { this.processedRows = processedRows; }
-        public int getSuccessCount() { return successCount; }
-        public void setSuccessCount(int successCount) { this.successCount = successCount; }
-        public int getErrorCount() { return errorCount; }
-        public void setErrorCount(int errorCount) { this.errorCount = errorCount; }
+        public int getProcessedRows() { return processedRows.intValue(); }
+        public int getSuccessCount() { return successCount.intValue(); }
+        public int getErrorCount() { return errorCount.intValue(); }
         public String getMessage() { return message; }
         public void setMessage(String message) { this.message = message; }
         public Object getResult() { return result; }
         public void setResult(Object result) { this.result = result; }
+        public long getStartedAt() { return startedAt; }
+        public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+        public long getCreatedAt() { return createdAt; }
+        public long getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(long finishedAt) { this.finishedAt = finishedAt; }
+        
+        public boolean isFinished() {
+            return status.get().isFinished();
+        }
+        
+        // Sadece beklenen durumdaysa geçer (ör. PROCESSING -> COMPLETED; iptal edilmiş iş tamamlanmış sayılmaz)
+        public boolean transition(ImportStatus expected, ImportStatus next) {
+            return status.compareAndSet(expected, next);
+        }
+        
+        // PENDING ya da PROCESSING ise CANCELLED yap
+        public boolean cancel() {
+            ImportStatus current = status.get();
+            while (!current.isFinished()) {
+                if (status.compareAndSet(current, ImportStatus.CANCELLED)) {
+                    return true;
+                }
+                current = status.get();
+            }
+            return false;
+        }
+        
+        // Biten batch'in sayaçlarını ekle. processed önce artırılır, snapshot() ise en son okur;
+        // böylece bir görüntüde success + error hiçbir zaman processed'i geçmez.
+        public void recordBatch(int processed, int success, int errors) {
+            processedRows.add(processed);
+            successCount.add(success);
+            errorCount.add(errors);
+        }
+        
+        public double getProgress() {
+            int total = totalRows;
+            if (total == 0) return 0.0;
+            return (double) processedRows.sum() / total * 100.0;
+        }
+        
+        public Snapshot snapshot() {
+            // Durum önce okunur: iş bitmişse sayaçlar da son hâlindedir (sayaçlar geçişten önce yazılır)
+            ImportStatus currentStatus = status.get();
+            long success = successCount.sum();
+            long errors = errorCount.sum();
+            long processed = processedRows.sum();
+            return new Snapshot(id, currentStatus, totalRows, processed, success, errors,
+                message, currentStatus.isFinished() ? result : null, createdAt, startedAt, finishedAt);
+        }
+    }
+    
+    /**
+     * ImportProgress'in değişmez anlık görüntüsü (HTTP yanıtları ve SSE olayları için)
+     */
+    public static class Snapshot {
+        private final String id;
+        private final ImportStatus status;
+        private final int totalRows;
+        private final long processedRows;
+        private final long successCount;
+        private final long errorCount;
+        private final String message;
+        private final Object result;
+        private final long createdAt;
+        private final long startedAt;
+        private final long finishedAt;
+        
+        Snapshot(String id, ImportStatus status, int totalRows, long processedRows, long successCount, long errorCount,
+                 String message, Object result, long createdAt, long startedAt, long finishedAt) {
+            this.id = id;
+            this.status = status;
+            this.totalRows = totalRows;
+            this.processedRows = processedRows;
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+            this.message = message;
+            this.result = result;
+            this.createdAt = createdAt;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+        }
+        
+        public String getId() { return id; }
+        public ImportStatus getStatus() { return status; }
+        public int getTotalRows() { return totalRows; }
+        public long getProcessedRows() { return processedRows; }
+        public long getSuccessCount() { return successCount; }
+        public long getErrorCount() { return errorCount; }
+        public String getMessage() { return message; }
+        public Object getResult() { return result; }
+        public long getCreatedAt() { return createdAt; }
+        public long getStartedAt() { return startedAt; }
+        public long getFinishedAt() { return finishedAt; }
         
         public double getProgress() {
             if (totalRows == 0) return 0.0;
@@ -54,20 +195,67 @@ public class AsyncImportService {
     }
     
     /**
-     * Asenkron import işlemi başlatır
+     * Excel import'unu arka planda başlatır ve id'yi hemen döner. Dosya parse edilmeden işe verilir:
+     * düz multipart dosya istek içinde spool dizinine bir kez kopyalanmıştır (ChunkedUploadService.resolveFile);
+     * iş bu kopyanın silinmesini istekten devralır, parse işin kendisinde yapılır. fileId/sessionId ile gelen
+     * dosya yüklemesiyle birlikte yaşar.
      */
-    public String startAsyncImport(String importType, List<Map<String, Object>> data) {
+    public String startAsyncExcelImport(String importType, MultipartFile file, List<Map<String, Object>> mappings) throws IOException {
+        if (file instanceof SpooledMultipartFile) {
+            // Bu istek için spool'a alınmış dosya iş bitince silinir; fileId ve oturum dosyaları yüklemeleriyle yaşar
+            String uploadId = uploadService.detachFromRequest(file);
+            try {
+                return startAsyncImport(importType, () -> excelService.createImportContext(importType, file, mappings),
+                    uploadId != null ? () -> deleteUpload(uploadId) : () -> {});
+            } catch (RuntimeException e) {
+                if (uploadId != null) {
+                    deleteUpload(uploadId);
+                }
+                throw e;
+            }
+        }
+
+        String uploadId = uploadService.spool(file).getId();
+        try {
+            MultipartFile spooled = uploadService.resolveFile(null, uploadId);
+            return startAsyncImport(importType, () -> excelService.createImportContext(importType, spooled, mappings),
+                () -> deleteUpload(uploadId));
+        } catch (IOException | RuntimeException e) {
+            deleteUpload(uploadId);
+            throw e;
+        }
+    }
+
+    // cleanup iş bittiğinde (kuyruktayken iptal edilse de) çalışır
+    private String startAsyncImport(String importType, Callable<ImportContext> contextLoader, Runnable cleanup) {
+        ImportService importService = serviceFactory.getService(importType);
+        
         String importId = UUID.randomUUID().toString();
         ImportProgress progress = new ImportProgress(importId);
-        progress.setTotalRows(data.size());
         progressMap.put(importId, progress);
+        if (progressMap.size() > importConfig.getRetention().getMaxEntries()) {
+            evictFinished();
+        }
         
-        // Asenkron işlemi başlat
-        processImportAsync(importId, importType, data);
+        importExecutor.execute(() -> {
+            try {
+                processImport(progress, importService, importType, contextLoader);
+            } finally {
+                cleanup.run();
+            }
+        });
         
         return importId;
     }
     
+    private void deleteUpload(String uploadId) {
+        try {
+            uploadService.delete(uploadId);
+        } catch (ChunkedUploadService.UploadNotFoundException ignored) {
+            // Yükleme kendi süresi dolup silinmiş olabilir
+        }
+    }
+    
     /**
      * Import durumunu döner
      */
@@ -76,100 +264,147 @@ public class AsyncImportService {
     }
     
     /**
-     * Tüm aktif import'ları döner
+     * Bellekte tutulan tüm import'ları döner (kopya değil, salt okunur görünüm)
      */
     public Map<String, ImportProgress> getAllActiveImports() {
-        return new ConcurrentHashMap<>(progressMap);
+        return Collections.unmodifiableMap(progressMap);
+    }
+    
+    @PostConstruct
+    void scheduleEviction() {
+        long intervalMs = Math.max(1000, importConfig.getRetention().getSweepIntervalMs());
+        cleanupScheduler.scheduleWithFixedDelay(this::evictFinished, Duration.ofMillis(intervalMs));
+    }
+    
+    // TTL'i dolan biten işleri sil; kayıt sayısı hâlâ maxEntries'i aşıyorsa biten işlerin en eskilerini sil.
+    // Bekleyen ve çalışan işler hiç silinmez.
+    void evictFinished() {
+        ImportConfig.RetentionConfig retention = importConfig.getRetention();
+        long expiredBefore = System.currentTimeMillis() - retention.getTtlMs();
+        progressMap.values().removeIf(progress -> progress.getFinishedAt() > 0 && progress.getFinishedAt() < expiredBefore);
+        
+        int excess = progressMap.size() - retention.getMaxEntries();
+        if (excess <= 0) {
+            return;
+        }
+        Comparator<ImportProgress> order = "CREATED_AT".equalsIgnoreCase(retention.getEvictionOrder())
+            ? Comparator.comparingLong(ImportProgress::getCreatedAt)
+            : Comparator.comparingLong(ImportProgress::getFinishedAt);
+        List<String> evicted = progressMap.values().stream()
+            .filter(progress -> progress.getFinishedAt() > 0)
+            .sorted(order)
+            .limit(excess)
+            .map(ImportProgress::getId)
+            .collect(Collectors.toList());
+        evicted.forEach(progressMap::remove);
     }
     
     /**
-     * Import işlemini iptal eder
+     * Import işlemini iptal eder (işlenmekte olan batch bittikten sonra durur)
      */
     public boolean cancelImport(String importId) {
         ImportProgress progress = progressMap.get(importId);
-        if (progress != null && "PROCESSING".equals(progress.getStatus())) {
-            progress.setStatus("CANCELLED");
+        if (progress != null && progress.cancel()) {
             progress.setMessage("İşlem kullanıcı tarafından iptal edildi");
             return true;
         }
         return false;
     }
     
-    @Async
-    protected CompletableFuture<Void> processImportAsync(String importId, String importType, List<Map<String, Object>> data) {
-        ImportProgress progress = progressMap.get(importId);
+    // Dosyayı okuyup batch'lere böler ve ilgili import service'ine sırayla verir
+    private void processImport(ImportProgress progress, ImportService importService, String importType,
+                               Callable<ImportContext> contextLoader) {
+        // Kuyruktayken iptal edildiyse hiç başlama
+        progress.setStartedAt(System.currentTimeMillis());
+        if (!progress.transition(ImportStatus.PENDING, ImportStatus.PROCESSING)) {
+            progress.setFinishedAt(System.currentTimeMillis());
+            return;
+        }
         
+        int errorSampleSize = Math.max(0, importConfig.getRetention().getErrorSampleSize());
         try {
-            progress.setStatus("PROCESSING");
+            progress.setMessage("Dosya okunuyor...");
+            ImportContext context = contextLoader.call();
+            progress.setTotalRows(context.getRowCount());
             progress.setMessage("İşlem başlatıldı...");
             
-            // Batch işleme
-            int batchSize = 100;
+            int totalRows = context.getRowCount();
+            int batchSize = Math.max(1, importConfig.getProcessing().getBatchSize());
             int successCount = 0;
             int errorCount = 0;
+            // Tüm hata detayları tutulmaz; sonuçta sayaçlar ve ilk birkaç hata kalır
+            List<Object> errorSample = new ArrayList<>();
             
-            for (int i = 0; i < data.size(); i += batchSize) {
+            for (int i = 0; i < totalRows; i += batchSize) {
                 // İptal kontrolü
-                if ("CANCELLED".equals(progress.getStatus())) {
+                if (progress.getStatus() == ImportStatus.CANCELLED) {
                     break;
                 }
                 
-                int endIndex = Math.min(i + batchSize, data.size());
-                List<Map<String, Object>> batch = data.subList(i, endIndex);
+                int endIndex = Math.min(i + batchSize, totalRows);
+                Map<String, Object> batchResult = importService.importExcelWithMapping(context.slice(i, endIndex));
                 
-                try {
-                    // Batch'i işle (burada gerçek import service'i çağrılacak)
-                    processBatch(importType, batch);
-                    successCount += batch.size();
-                    
-                } catch (Exception e) {
-                    errorCount += batch.size();
-                    System.err.println("Batch işleme hatası: " + e.getMessage());
+                int batchSuccess;
+                int batchErrors;
+                if (Boolean.TRUE.equals(batchResult.get("success"))) {
+                    batchSuccess = toInt(batchResult.get("successCount"));
+                    batchErrors = toInt(batchResult.get("errorCount"));
+                    Object errorList = batchResult.get("errors");
+                    if (errorList instanceof List) {
+                        for (Object error : (List<?>) errorList) {
+                            if (errorSample.size() >= errorSampleSize) break;
+                            errorSample.add(error);
+                        }
+                    }
+                } else {
+                    batchSuccess = 0;
+                    batchErrors = endIndex - i;
+                    if (errorSample.size() < errorSampleSize) {
+                        errorSample.add(batchResult.get("error"));
+                    }
                 }
                 
                 // Progress güncelle
-                progress.setProcessedRows(endIndex);
-                progress.setSuccessCount(successCount);
-                progress.setErrorCount(errorCount);
-                progress.setMessage("İşlenen: " + endIndex + "/" + data.size());
-                
-                // Kısa bekle (CPU'yu rahatlatmak için)
-                Thread.sleep(10);
+                successCount += batchSuccess;
+                errorCount += batchErrors;
+                progress.recordBatch(endIndex - i, batchSuccess, batchErrors);
+                progress.setMessage("İşlenen: " + endIndex + "/" + totalRows);
             }
             
-            // Sonucu belirle
-            if ("CANCELLED".equals(progress.getStatus())) {
-                progress.setMessage("İşlem iptal edildi");
-            } else if (errorCount == 0) {
-                progress.setStatus("COMPLETED");
-                progress.setMessage("Tüm kayıtlar başarıyla işlendi");
-            } else if (successCount > 0) {
-                progress.setStatus("COMPLETED");
-                progress.setMessage(successCount + " başarılı, " + errorCount + " hatalı");
-            } else {
-                progress.setStatus("FAILED");
+            Map<String, Object> result = new HashMap<>();
+            result.put("importType", importType);
+            result.put("totalRecords", totalRows);
+            result.put("successCount", successCount);
+            result.put("errorCount", errorCount);
+            result.put("errors", errorSample);
+            result.put("errorsTruncated", errorCount > errorSample.size());
+            progress.setResult(result);
+            
+            // Sonucu belirle; bu arada iptal edildiyse geçiş başarısız olur ve CANCELLED kalır
+            if (errorCount == 0 || successCount > 0) {
+                if (progress.transition(ImportStatus.PROCESSING, ImportStatus.COMPLETED)) {
+                    progress.setMessage(errorCount == 0
+                        ? "Tüm kayıtlar başarıyla işlendi"
+                        : successCount + " başarılı, " + errorCount + " hatalı");
+                }
+            } else if (progress.transition(ImportStatus.PROCESSING, ImportStatus.FAILED)) {
                 progress.setMessage("Hiçbir kayıt işlenemedi");
             }
+            if (progress.getStatus() == ImportStatus.CANCELLED) {
+                progress.setMessage("İşlem iptal edildi");
+            }
             
         } catch (Exception e) {
-            progress.setStatus("FAILED");
-            progress.setMessage("İşlem hatası: " + e.getMessage());
+            if (progress.transition(ImportStatus.PROCESSING, ImportStatus.FAILED)) {
+                progress.setMessage("İşlem hatası: " + e.getMessage());
+            }
             System.err.println("Async import hatası: " + e.getMessage());
+        } finally {
+            progress.setFinishedAt(System.currentTimeMillis());
         }
-        
-        return CompletableFuture.completedFuture(null);
     }
     
-    private void processBatch(String importType, List<Map<String, Object>> batch) throws Exception {
-        // Burada gerçek import işlemi yapılacak
-        // ImportServiceFactory kullanılarak ilgili service çağrılabilir
-        
-        // Simülasyon için kısa bekle
-        Thread.sleep(50);
-        
-        // Rastgele hata simülasyonu (test için)
-        if (Math.random() < 0.05) { // %5 hata oranı
-            throw new Exception("Simüle edilmiş batch hatası");
-        }
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
     }
 }
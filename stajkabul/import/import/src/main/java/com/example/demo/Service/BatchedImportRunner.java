@@ -0,0 +1,82 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Senkron import yolları (tek sheet import ve çok sheet'li importun aşamaları) için batch'li çalıştırma.
+ * Context, arka plan işlerindeki gibi processing.batchSize'lık dilimlere bölünür; her dilimin doğrulama
+ * sonuçları ve hata detayları dilim bitince bırakılır. Sayaçlar tamdır, yanıttaki hata listesi
+ * rowStore.maxReportedErrors ile sınırlanır (errorsTruncated).
+ * Dosya içi duplicate kontrolü tüm dilimlerde paylaşıldığı için externalId başına bir kayıt yine tutulur.
+ */
+@Service
+public class BatchedImportRunner {
+
+    private final ImportConfig importConfig;
+
+    public BatchedImportRunner(ImportConfig importConfig) {
+        this.importConfig = importConfig;
+    }
+
+    // Bir dilim hata verirse kalan dilimler yine işlenir; sonuç success=false ve ilk hatayı taşır
+    public Map<String, Object> run(ImportService importService, ImportContext context) {
+        int rowCount = context.getRowCount();
+        int batchSize = Math.max(1, importConfig.getProcessing().getBatchSize());
+        int maxReportedErrors = Math.max(0, importConfig.getRowStore().getMaxReportedErrors());
+
+        int totalRecords = 0;
+        int successCount = 0;
+        int errorCount = 0;
+        List<Object> errors = new ArrayList<>();
+        Object failure = null;
+
+        for (int i = 0; i < rowCount; i += batchSize) {
+            int endIndex = Math.min(i + batchSize, rowCount);
+            Map<String, Object> batchResult = importService.importExcelWithMapping(context.slice(i, endIndex));
+
+            if (Boolean.TRUE.equals(batchResult.get("success"))) {
+                totalRecords += toInt(batchResult.get("totalRecords"));
+                successCount += toInt(batchResult.get("successCount"));
+                errorCount += toInt(batchResult.get("errorCount"));
+                Object errorList = batchResult.get("errors");
+                if (errorList instanceof List) {
+                    for (Object error : (List<?>) errorList) {
+                        if (errors.size() >= maxReportedErrors) break;
+                        errors.add(error);
+                    }
+                }
+            } else {
+                totalRecords += endIndex - i;
+                errorCount += endIndex - i;
+                if (failure == null) {
+                    failure = batchResult.get("error");
+                }
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(batchResult.get("error"));
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", failure == null);
+        if (failure != null) {
+            result.put("error", failure);
+        }
+        result.put("totalRecords", totalRecords);
+        result.put("successCount", successCount);
+        result.put("errorCount", errorCount);
+        result.put("errors", errors);
+        result.put("errorsTruncated", errorCount > errors.size());
+        return result;
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Büyük import dosyaları için kaldığı yerden devam edebilen yükleme.
+ * Oturum açılır, parçalar offset'leriyle gönderilir ve doğrudan spool dosyasına FileChannel ile yazılır
+ * (istek gövdesi bellekte tutulmaz); her parça SHA-256 ile doğrulanır. Bağlantı koparsa istemci
+ * oturumdan receivedBytes'ı okuyup o offset'ten devam eder. Tamamlanan dosyanın id'si preview ve import
+ * endpoint'lerinde multipart dosya yerine kullanılabilir.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final ImportConfig importConfig;
+    private final TaskScheduler cleanupScheduler;
+    private Path spoolDir;
+
+    public ChunkedUploadService(ImportConfig importConfig,
+                                @Qualifier("cleanupScheduler") TaskScheduler cleanupScheduler) {
+        this.importConfig = importConfig;
+        this.cleanupScheduler = cleanupScheduler;
+    }
+
+    /**
+     * Tek bir yükleme. Parçalar sırayla kabul edilir: receivedBytes'a kadar olan kısım yazılmış ve doğrulanmıştır.
+     * Yazmalar oturum üzerinde senkronizedir.
+     */
+    public static class UploadSession {
+        private final String id;
+        private final String fileName;
+        private final long size;
+        private final String checksum;
+        private final Path path;
+        private final long createdAt;
+        private volatile long receivedBytes;
+        private volatile boolean completed;
+        private volatile long lastActivityAt;
+        private volatile String contentHash;
+        // Tek bir istek için spool'a alınmış multipart dosya: istek bitince silinir
+        private volatile boolean requestScoped;
+
+        UploadSession(String id, String fileName, long size, String checksum, Path path) {
+            this.id = id;
+            this.fileName = fileName;
+            this.size = size;
+            this.checksum = checksum;
+            this.path = path;
+            this.createdAt = System.currentTimeMillis();
+            this.lastActivityAt = createdAt;
+        }
+
+        public String getId() { return id; }
+        public String getFileName() { return fileName; }
+        public long getSize() { return size; }
+        public String getChecksum() { return checksum; }
+        public long getReceivedBytes() { return receivedBytes; }
+        public boolean isCompleted() { return completed; }
+        public long getCreatedAt() { return createdAt; }
+        public long getLastActivityAt() { return lastActivityAt; }
+        // Tamamlanınca dosyanın SHA-256'sı (hex)
+        public String getContentHash() { return contentHash; }
+
+        Path getPath() { return path; }
+
+        void touch() {
+            lastActivityAt = System.currentTimeMillis();
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        String configured = importConfig.getUpload().getSpoolDir();
+        spoolDir = configured == null || configured.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "grispi-uploads")
+                : Paths.get(configured);
+        Files.createDirectories(spoolDir);
+
+        long intervalMs = Math.max(1000, importConfig.getRetention().getSweepIntervalMs());
+        cleanupScheduler.scheduleWithFixedDelay(this::evictExpired, Duration.ofMillis(intervalMs));
+    }
+
+    // checksum: tüm dosyanın SHA-256'sı (hex), verilirse tamamlarken kontrol edilir
+    public UploadSession createSession(String fileName, long size, String checksum) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Dosya boyutu pozitif olmalı");
+        }
+        if (size > importConfig.getUpload().getMaxFileBytes()) {
+            throw new IllegalArgumentException("Dosya çok büyük: " + size + " byte (en fazla "
+                    + importConfig.getUpload().getMaxFileBytes() + ")");
+        }
+        String id = UUID.randomUUID().toString();
+        Path path = spoolDir.resolve(id + ".upload");
+        Files.createFile(path);
+        UploadSession session = new UploadSession(id, fileName, size, normalizeChecksum(checksum), path);
+        sessions.put(id, session);
+        return session;
+    }
+
+    // Multipart olarak gelmiş dosyayı tamamlanmış bir yükleme olarak spool dizinine alır
+    public UploadSession spool(MultipartFile file) throws IOException {
+        if (file.getSize() > importConfig.getUpload().getMaxFileBytes()) {
+            throw new IllegalArgumentException("Dosya çok büyük: " + file.getSize() + " byte (en fazla "
+                    + importConfig.getUpload().getMaxFileBytes() + ")");
+        }
+        String id = UUID.randomUUID().toString();
+        Path path = spoolDir.resolve(id + ".upload");
+        // Kopyalarken SHA-256 da hesaplanır; içerik belleğe alınmaz
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        UploadSession session = new UploadSession(id, file.getOriginalFilename(), Files.size(path), null, path);
+        session.contentHash = HexFormat.of().formatHex(digest.digest());
+        session.receivedBytes = session.getSize();
+        session.completed = true;
+        sessions.put(id, session);
+        return session;
+    }
+
+    public UploadSession getSession(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new UploadNotFoundException(uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * offset'ten başlayan parçayı yazar. offset receivedBytes'tan büyük olamaz (boşluk kalmaz);
+     * küçükse daha önce gönderilmiş kısım tekrar yazılır. Parça herhangi bir sebeple kabul edilmezse
+     * receivedBytes en fazla offset olur.
+     */
+    public UploadSession writeChunk(String uploadId, long offset, InputStream body, String checksum) throws IOException {
+        UploadSession session = getSession(uploadId);
+        String expected = normalizeChecksum(checksum);
+        if (expected == null) {
+            throw new IllegalArgumentException("Parça için SHA-256 checksum gerekli");
+        }
+        synchronized (session) {
+            if (session.isCompleted()) {
+                throw new IllegalStateException("Yükleme zaten tamamlandı: " + uploadId);
+            }
+            if (offset < 0 || offset > session.getReceivedBytes()) {
+                throw new IllegalStateException("Beklenen offset en fazla " + session.getReceivedBytes() + ", gelen: " + offset);
+            }
+
+            long written = 0;
+            // Parça yarıda kalırsa (fazla büyük, bağlantı koptu, checksum tutmadı) offset'ten sonrası yazılmış olabilir:
+            // daha önce doğrulanmış kısmın üzerine bozuk veri gelmiş olabileceği için o kısım tekrar istenir
+            try {
+                MessageDigest digest = sha256();
+                long limit = Math.min(importConfig.getUpload().getMaxChunkBytes(), session.getSize() - offset);
+                long position = offset;
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                try (ReadableByteChannel source = Channels.newChannel(body);
+                     FileChannel target = FileChannel.open(session.getPath(), StandardOpenOption.WRITE)) {
+                    int read;
+                    while ((read = source.read(buffer)) != -1) {
+                        written += read;
+                        if (written > limit) {
+                            throw new IllegalArgumentException("Parça çok büyük ya da dosya boyutunu aşıyor (en fazla " + limit + " byte)");
+                        }
+                        buffer.flip();
+                        digest.update(buffer.duplicate());
+                        while (buffer.hasRemaining()) {
+                            position += target.write(buffer, position);
+                        }
+                        buffer.clear();
+                    }
+                }
+
+                String actual = HexFormat.of().formatHex(digest.digest());
+                if (!actual.equals(expected)) {
+                    throw new IllegalArgumentException("Parça checksum'ı uyuşmuyor: beklenen " + expected + ", hesaplanan " + actual);
+                }
+            } catch (IOException | RuntimeException e) {
+                session.receivedBytes = Math.min(session.getReceivedBytes(), offset);
+                throw e;
+            }
+            session.receivedBytes = Math.max(session.getReceivedBytes(), offset + written);
+            session.touch();
+            return session;
+        }
+    }
+
+    // Tüm byte'lar geldiyse (ve dosya checksum'ı verildiyse tutuyorsa) yüklemeyi tamamlar
+    public UploadSession complete(String uploadId) throws IOException {
+        UploadSession session = getSession(uploadId);
+        synchronized (session) {
+            if (session.isCompleted()) {
+                return session;
+            }
+            if (session.getReceivedBytes() != session.getSize()) {
+                throw new IllegalStateException("Yükleme eksik: " + session.getReceivedBytes() + "/" + session.getSize() + " byte");
+            }
+            // Hash verilmemiş olsa da hesaplanır: aynı içerikteki dosyalar önizleme sonucunu paylaşır (bkz. ParseResultCache)
+            String actual = fileChecksum(session.getPath());
+            if (session.getChecksum() != null && !actual.equals(session.getChecksum())) {
+                throw new IllegalArgumentException("Dosya checksum'ı uyuşmuyor: beklenen " + session.getChecksum() + ", hesaplanan " + actual);
+            }
+            session.contentHash = actual;
+            session.completed = true;
+            session.touch();
+            return session;
+        }
+    }
+
+    public void delete(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            throw new UploadNotFoundException(uploadId);
+        }
+        deleteFile(session);
+    }
+
+    /**
+     * fileId verilmişse tamamlanmış yüklemenin dosyası. Verilmemişse multipart dosya bu istek için bir kez
+     * spool'a alınır (SHA-256 kopyalarken hesaplanır); dosya türü kontrolü, önizleme önbelleği ve parse bu
+     * kopyadan okur. İstek bittiğinde spool dosyası silinir; istekten sonra da okunacaksa detachFromRequest.
+     */
+    public MultipartFile resolveFile(MultipartFile file, String fileId) throws IOException {
+        if (fileId == null || fileId.isBlank()) {
+            if (file == null) {
+                throw new IllegalArgumentException("file ya da fileId parametresi gerekli");
+            }
+            return file instanceof SpooledMultipartFile || file.isEmpty() ? file : spoolForRequest(file);
+        }
+        UploadSession session = getSession(fileId);
+        if (!session.isCompleted()) {
+            throw new IllegalStateException("Yükleme henüz tamamlanmadı: " + fileId);
+        }
+        session.touch();
+        return toSpooledFile(session);
+    }
+
+    /**
+     * Bu isteğin spool dosyasının silinmesini çağırana bırakır (arka plan işi istek bittikten sonra okur).
+     * Yükleme id'sini döner; dosya bu istek için spool'a alınmamışsa (fileId, import oturumu) null döner.
+     */
+    public String detachFromRequest(MultipartFile file) {
+        String uploadId = file instanceof SpooledMultipartFile ? ((SpooledMultipartFile) file).getUploadId() : null;
+        UploadSession session = uploadId != null ? sessions.get(uploadId) : null;
+        if (session == null || !session.requestScoped) {
+            return null;
+        }
+        session.requestScoped = false;
+        return uploadId;
+    }
+
+    // İstek dışında (web isteği yokken) çağrılırsa dosya upload.ttlMs dolunca silinir
+    private SpooledMultipartFile spoolForRequest(MultipartFile file) throws IOException {
+        UploadSession session = spool(file);
+        session.requestScoped = true;
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.registerDestructionCallback("importUpload." + session.getId(), () -> {
+                if (session.requestScoped && sessions.remove(session.getId(), session)) {
+                    deleteFile(session);
+                }
+            }, RequestAttributes.SCOPE_REQUEST);
+        }
+        return toSpooledFile(session);
+    }
+
+    private SpooledMultipartFile toSpooledFile(UploadSession session) {
+        return new SpooledMultipartFile(session.getId(), session.getPath(), session.getFileName(), session.getSize(),
+                session.getContentHash());
+    }
+
+    // Son işlemden bu yana ttlMs geçen yüklemeleri (tamamlanmış ya da yarım) dosyalarıyla siler
+    void evictExpired() {
+        long expiresBefore = System.currentTimeMillis() - importConfig.getUpload().getTtlMs();
+        sessions.values().removeIf(session -> {
+            if (session.getLastActivityAt() >= expiresBefore) {
+                return false;
+            }
+            deleteFile(session);
+            return true;
+        });
+    }
+
+    private void deleteFile(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.getPath());
+        } catch (IOException e) {
+            session.getPath().toFile().deleteOnExit();
+        }
+    }
+
+    private String fileChecksum(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalizeChecksum(String checksum) {
+        return checksum == null || checksum.isBlank() ? null : checksum.trim().toLowerCase();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Bilinmeyen ya da süresi dolup silinmiş yükleme
+     */
+    public static class UploadNotFoundException extends RuntimeException {
+        public UploadNotFoundException(String uploadId) {
+            super("Yükleme bulunamadı: " + uploadId);
+        }
+    }
+}
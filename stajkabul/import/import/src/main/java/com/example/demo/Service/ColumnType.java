@@ -0,0 +1,67 @@
+package com.example.demo.Service;
+
+import java.util.List;
+
+/**
+ * Bir Excel kolonunun başlıktan ve örnek satırlardan bir kez çıkarılan türü
+ */
+public enum ColumnType {
+    INTEGER,  // telefon numarası gibi tam sayılar
+    DECIMAL,
+    DATE,
+    BOOLEAN,
+    TEXT;
+
+    // Örnekleme sırasında tek bir hücrede görülen değer türü
+    public enum CellKind { EMPTY, STRING, INTEGRAL, DECIMAL, DATE, BOOLEAN }
+
+    private static final String[] INTEGER_HEADER_KEYWORDS = { "phone", "telefon", "gsm", "mobile" };
+    // "updatedBy" gibi kolonlar tarih sayılmasın diye sonek olarak aranır
+    private static final String[] DATE_HEADER_SUFFIXES = { "date", "tarih", "tarihi", "createdat", "updatedat", "solvedat" };
+    private static final String[] BOOLEAN_HEADER_KEYWORDS = { "enabled", "required", "aktif" };
+
+    public static ColumnType infer(String header, List<CellKind> samples) {
+        String lowerHeader = header != null ? header.toLowerCase().replace(" ", "") : "";
+        if (containsAny(lowerHeader, INTEGER_HEADER_KEYWORDS) || lowerHeader.equals("tel")) return INTEGER;
+        if (endsWithAny(lowerHeader, DATE_HEADER_SUFFIXES)) return DATE;
+        if (containsAny(lowerHeader, BOOLEAN_HEADER_KEYWORDS)) return BOOLEAN;
+
+        // Başlık bir şey söylemiyorsa boş olmayan örnek hücrelerin hepsi aynı türdeyse o türü kullan
+        CellKind common = null;
+        for (CellKind kind : samples) {
+            if (kind == CellKind.EMPTY) continue;
+            if (common == null) {
+                common = kind;
+            } else if (common != kind) {
+                return TEXT;
+            }
+        }
+        if (common == null) return TEXT;
+        switch (common) {
+            case INTEGRAL:
+                return INTEGER;
+            case DECIMAL:
+                return DECIMAL;
+            case DATE:
+                return DATE;
+            case BOOLEAN:
+                return BOOLEAN;
+            default:
+                return TEXT;
+        }
+    }
+
+    private static boolean endsWithAny(String value, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (value.endsWith(suffix)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String value, String[] keywords) {
+        for (String keyword : keywords) {
+            if (value.contains(keyword)) return true;
+        }
+        return false;
+    }
+}
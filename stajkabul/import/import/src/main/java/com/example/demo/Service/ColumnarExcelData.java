@@ -0,0 +1,318 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * ExcelData'nın kolon bazlı varyantı: her kolon tek bir dizi olarak tutulur.
+ * Düşük kardinaliteli kolonlar (status, priority, channel, language, role...) sözlükle kodlanır;
+ * her değer bir kez saklanır, satırlarda sadece 2 byte'lık kod durur.
+ * Mapper'lara satır başına HashMap kopyası yerine kolonları okuyan hafif bir görünüm verilir.
+ * Kolon dizilerinde en fazla maxInMemoryRows satır tutulur; sonraki satırlar SpilledRows ile geçici dosyaya
+ * yazılır ve trimToSize()'dan sonra bellek eşlemeli okunur. Böylece heap kullanımı dosyanın satır sayısıyla
+ * değil bu sınırla büyür. Okuma bitmeden hata olursa close() ile geçici dosyalar silinir.
+ */
+public class ColumnarExcelData implements AutoCloseable {
+
+    private final String sheetName;
+    private final List<String> headers;
+    private final Column[] columns;
+    private final int maxInMemoryRows;
+    private final Path spillDirectory;
+    private List<ColumnType> columnTypes = List.of();
+    private SpilledRows spilledRows;
+    private int inMemoryRows;
+    private int rowCount;
+
+    public ColumnarExcelData(String sheetName, List<String> headers) {
+        this(sheetName, headers, Integer.MAX_VALUE, null);
+    }
+
+    // spillDirectory null ise java.io.tmpdir kullanılır
+    public ColumnarExcelData(String sheetName, List<String> headers, int maxInMemoryRows, Path spillDirectory) {
+        this.sheetName = sheetName;
+        this.headers = List.copyOf(headers);
+        this.columns = new Column[headers.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column();
+        }
+        this.maxInMemoryRows = Math.max(0, maxInMemoryRows);
+        this.spillDirectory = spillDirectory;
+    }
+
+    // Klasik ExcelData'dan dönüştür
+    public static ColumnarExcelData from(ExcelService.ExcelData excelData) {
+        ColumnarExcelData data = new ColumnarExcelData(excelData.getSheetName(), excelData.getHeaders());
+        for (List<String> row : excelData.getRows()) {
+            data.addRow(row);
+        }
+        data.trimToSize();
+        return data;
+    }
+
+    // Satırı ekle; eksik hücreler "" olarak saklanır
+    public void addRow(List<String> row) {
+        if (inMemoryRows < maxInMemoryRows) {
+            for (int i = 0; i < columns.length; i++) {
+                String value = i < row.size() ? row.get(i) : null;
+                columns[i].add(value != null ? value : "");
+            }
+            inMemoryRows++;
+        } else {
+            try {
+                if (spilledRows == null) {
+                    spilledRows = SpilledRows.create(spillDirectory, columns.length);
+                }
+                spilledRows.append(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Satır geçici dosyaya yazılamadı", e);
+            }
+        }
+        rowCount++;
+    }
+
+    // Okuma bitti: kolon dizileri kırpılır, geçici dosyaya yazılan satırlar okunmaya açılır
+    public void trimToSize() {
+        for (Column column : columns) {
+            column.trimToSize(inMemoryRows);
+        }
+        if (spilledRows != null) {
+            try {
+                spilledRows.seal();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Satır deposu açılamadı", e);
+            }
+        }
+    }
+
+    // Geçici dosyalar silinir; trimToSize()'dan sonra çağrılması okunan satırları etkilemez
+    @Override
+    public void close() {
+        if (spilledRows != null) {
+            spilledRows.close();
+        }
+    }
+
+    public String getSheetName() { return sheetName; }
+
+    public List<String> getHeaders() { return headers; }
+
+    public int getRowCount() { return rowCount; }
+
+    // Geçici dosyaya yazılan satır sayısı
+    public int getSpilledRowCount() { return rowCount - inMemoryRows; }
+
+    public String getValue(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Satır: " + row);
+        }
+        return value(row, column);
+    }
+
+    private String value(int row, int column) {
+        return row < inMemoryRows ? columns[column].get(row) : spilledRows.get(row - inMemoryRows, column);
+    }
+
+    // Tipli okumada çıkarılan kolon türleri; tür bilgisi yoksa TEXT
+    public ColumnType getColumnType(int column) {
+        return column < columnTypes.size() ? columnTypes.get(column) : ColumnType.TEXT;
+    }
+
+    public void setColumnTypes(List<ColumnType> columnTypes) {
+        this.columnTypes = List.copyOf(columnTypes);
+    }
+
+    public boolean isDictionaryEncoded(int column) {
+        return columns[column].isDictionaryEncoded();
+    }
+
+    // Bir satırın tüm hücreleri (başlık sırasıyla)
+    public List<String> getRow(int row) {
+        List<String> values = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            values.add(getValue(row, i));
+        }
+        return values;
+    }
+
+    // Mapping planına göre dönüştürülmüş satırlar; her eleman kolonları okuyan salt okunur bir görünümdür
+    public List<Map<String, Object>> rowViews(MappingPlan plan) {
+        Map<String, Integer> fieldIndexes = plan.fieldIndexes(headers.size());
+        if (fieldIndexes.isEmpty()) {
+            // Dönüşüm sonrası boş kalan satırlar zaten listeye alınmıyordu
+            return List.of();
+        }
+        String[] fields = fieldIndexes.keySet().toArray(new String[0]);
+        int[] indexes = fieldIndexes.values().stream().mapToInt(Integer::intValue).toArray();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            positions.put(fields[i], i);
+        }
+
+        return new AbstractList<>() {
+            @Override
+            public Map<String, Object> get(int row) {
+                if (row < 0 || row >= rowCount) {
+                    throw new IndexOutOfBoundsException("Satır: " + row);
+                }
+                return new RowView(row, fields, indexes, positions);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * Tek bir satırın mapping uygulanmış görünümü. Değerler kolon dizilerinden ya da satır deposundan okunur, kopyalanmaz.
+     */
+    private final class RowView extends AbstractMap<String, Object> {
+        private final int row;
+        private final String[] fields;
+        private final int[] indexes;
+        private final Map<String, Integer> positions;
+
+        RowView(int row, String[] fields, int[] indexes, Map<String, Integer> positions) {
+            this.row = row;
+            this.fields = fields;
+            this.indexes = indexes;
+            this.positions = positions;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer position = positions.get(key);
+            return position != null ? value(row, indexes[position]) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return positions.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return fields.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < fields.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int current = position++;
+                            return new SimpleImmutableEntry<>(fields[current], value(row, indexes[current]));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return fields.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Tek kolonun değerleri. Farklı değer sayısı MAX_DICTIONARY_SIZE'ı aşana kadar sözlükle kodlanır,
+     * aşınca düz String dizisine çevrilir.
+     */
+    static final class Column {
+        static final int MAX_DICTIONARY_SIZE = 4096;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private char[] codes = new char[INITIAL_CAPACITY];
+        private List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> lookup = new HashMap<>();
+        private String[] values;
+        private int size;
+
+        void add(String value) {
+            if (values == null) {
+                if (lookup == null) {
+                    rebuildLookup();
+                }
+                Integer code = lookup.get(value);
+                if (code == null && dictionary.size() < MAX_DICTIONARY_SIZE) {
+                    code = dictionary.size();
+                    dictionary.add(value);
+                    lookup.put(value, code);
+                }
+                if (code != null) {
+                    if (size == codes.length) {
+                        codes = Arrays.copyOf(codes, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+                    }
+                    codes[size++] = (char) code.intValue();
+                    return;
+                }
+                decode();
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+            }
+            values[size++] = value.isEmpty() ? "" : value;
+        }
+
+        // Sözlük taştı: mevcut kodları düz diziye aç (sözlükteki String örnekleri paylaşılmaya devam eder)
+        private void decode() {
+            values = new String[Math.max(INITIAL_CAPACITY, codes.length)];
+            for (int i = 0; i < size; i++) {
+                values[i] = dictionary.get(codes[i]);
+            }
+            codes = null;
+            dictionary = null;
+            lookup = null;
+        }
+
+        private void rebuildLookup() {
+            lookup = new HashMap<>();
+            for (int i = 0; i < dictionary.size(); i++) {
+                lookup.put(dictionary.get(i), i);
+            }
+        }
+
+        String get(int row) {
+            return values != null ? values[row] : dictionary.get(codes[row]);
+        }
+
+        boolean isDictionaryEncoded() {
+            return values == null;
+        }
+
+        void trimToSize(int rowCount) {
+            if (values != null) {
+                values = Arrays.copyOf(values, rowCount);
+            } else {
+                codes = Arrays.copyOf(codes, rowCount);
+                // Arama tablosu sadece ekleme sırasında gerekli; yeni satır gelirse yeniden kurulur
+                lookup = null;
+            }
+        }
+    }
+}
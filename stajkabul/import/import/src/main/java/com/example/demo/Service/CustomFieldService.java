@@ -1,39 +1,41 @@
 package com.example.demo.Service;
 
 import com.example.demo.Entity.CustomField;
+import com.example.demo.Repository.BulkInsertRepository;
 import com.example.demo.Repository.CustomFieldRepository;
 import com.example.demo.Mapper.CustomFieldMapper;
 import com.example.demo.Validation.CustomFieldValidator;
 import com.example.demo.Validation.CustomFieldValidationResult;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.poi.ss.usermodel.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.ArrayList;
 
 @Service
 public class CustomFieldService implements ImportService {
 
     private final CustomFieldRepository customFieldRepository;
+    private final BulkInsertRepository bulkInsertRepository;
     private final CustomFieldMapper customFieldMapper;
     private final CustomFieldValidator customFieldValidator;
-    private final ObjectMapper objectMapper;
+    private final ParallelRowValidator rowValidator;
 
     public CustomFieldService(CustomFieldRepository customFieldRepository, 
+                             BulkInsertRepository bulkInsertRepository,
                              CustomFieldMapper customFieldMapper, 
                              CustomFieldValidator customFieldValidator,
-                             ObjectMapper objectMapper) {
+                             ParallelRowValidator rowValidator) {
         this.customFieldRepository = customFieldRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
         this.customFieldMapper = customFieldMapper;
         this.customFieldValidator = customFieldValidator;
-        this.objectMapper = objectMapper;
+        this.rowValidator = rowValidator;
     }
 
     public List<CustomField> getAllCustomFields() {
@@ -56,51 +58,81 @@ public class CustomFieldService implements ImportService {
         return customFieldRepository.save(field);
     }
 
+    // JDBC ile parça parça toplu kayıt
+    public void saveCustomFields(List<CustomField> fields) {
+        bulkInsertRepository.insertCustomFields(fields);
+    }
+
     @Override
-    public Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson) {
+    public Map<String, Object> importExcelWithMapping(ImportContext context) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = objectMapper.readValue(
-                mappingsJson, 
-                new TypeReference<List<Map<String, Object>>>() {}
-            );
+            // Frontend formatı: excelColumn -> grispiField
+            Map<String, String> columnMappings = context.getColumnMappings();
             
-            // Mapping'i Map formatına çevir
-            Map<String, String> columnMappings = new HashMap<>();
-            for (Map<String, Object> mapping : mappings) {
-                String excelColumn = (String) mapping.get("excelColumn");
-                String grispiField = (String) mapping.get("grispiField");
-                if (excelColumn != null && grispiField != null) {
-                    // Frontend formatı: excelColumn -> grispiField
-                    columnMappings.put(excelColumn, grispiField);
-                }
-            }
+            // CustomFieldMapper Excel başlıklarıyla anahtarlanmış ham satırları bekliyor
+            List<Map<String, Object>> excelData = readExcelData(context);
             
-            // Excel verilerini gerçekten oku
-            List<Map<String, Object>> excelData = readExcelData(file);
+            // Satırlar (gerekirse paralel) map'lenip doğrulanır; sonuçlar satır sırasıyla döner
+            List<ParallelRowValidator.RowResult> rowResults = rowValidator.validate(excelData.size(), i -> {
+                try {
+                    CustomField customField = customFieldMapper.mapWithMapping(excelData.get(i), columnMappings);
+                    
+                    CustomFieldValidationResult validationResult = customFieldValidator.validate(customField);
+                    return validationResult.isValid()
+                        ? ParallelRowValidator.RowResult.valid(null, customField)
+                        : ParallelRowValidator.RowResult.invalid(null, validationResult.getErrors());
+                } catch (Exception e) {
+                    return ParallelRowValidator.RowResult.failed(e);
+                }
+            });
             
             int successCount = 0;
             int errorCount = 0;
             List<String> errors = new ArrayList<>();
+            List<CustomField> pendingFields = new ArrayList<>();
+            Set<String> pendingKeys = new HashSet<>();
+            // Var olan key'ler tek seferde (IN sorgularıyla) alınır
+            Set<String> existingKeys = context.isPersistValidRows()
+                ? customFieldRepository.findExistingKeys(rowResults.stream()
+                    .filter(ParallelRowValidator.RowResult::isValid)
+                    .map(rowResult -> ((CustomField) rowResult.getEntity()).getKey())
+                    .collect(Collectors.toList()))
+                : Set.of();
             
-            for (Map<String, Object> row : excelData) {
+            for (ParallelRowValidator.RowResult rowResult : rowResults) {
+                CustomField customField = (CustomField) rowResult.getEntity();
+                if (rowResult.isValid() && context.isPersistValidRows()
+                        && (!pendingKeys.add(customField.getKey()) || existingKeys.contains(customField.getKey()))) {
+                    // Çok sheet'li importta key tekrarını yazmadan önce yakala (unique index tüm parçayı düşürür)
+                    errorCount++;
+                    errors.add("Custom field key already exists: " + customField.getKey());
+                } else if (rowResult.isValid()) {
+                    // Tek sheet importta DB'ye kayıt yapma - sadece validasyon
+                    if (context.isPersistValidRows()) {
+                        pendingFields.add(customField);
+                    }
+                    successCount++;
+                } else if (rowResult.getFailure() != null) {
+                    errorCount++;
+                    errors.add("Row processing error: " + rowResult.getFailure().getMessage());
+                } else {
+                    errorCount++;
+                    errors.add("Row validation failed: " + rowResult.getErrors());
+                }
+            }
+            
+            if (!pendingFields.isEmpty()) {
                 try {
-                    CustomField customField = customFieldMapper.mapWithMapping(row, columnMappings);
-                    
-                    CustomFieldValidationResult validationResult = customFieldValidator.validate(customField);
-                    
-                    if (validationResult.isValid()) {
-                        // DB'ye kayıt yapma - sadece validasyon
-                        successCount++;
-                    } else {
+                    bulkInsertRepository.insertCustomFields(pendingFields);
+                } catch (BulkInsertRepository.PartialInsertException e) {
+                    // Önceki parçalar commit edildi: sadece kaydedilemeyen satırlar hatalı sayılır
+                    for (CustomField field : pendingFields.subList(e.getPersistedCount(), pendingFields.size())) {
+                        successCount--;
                         errorCount++;
-                        errors.add("Row validation failed: " + validationResult.getErrors());
+                        errors.add("Custom field could not be saved: " + field.getKey() + " (" + e.getMessage() + ")");
                     }
-                } catch (Exception e) {
-                    errorCount++;
-                    errors.add("Row processing error: " + e.getMessage());
                 }
             }
             
@@ -118,56 +150,8 @@ public class CustomFieldService implements ImportService {
         return result;
     }
 
-    private List<Map<String, Object>> readExcelData(MultipartFile file) throws Exception {
-        List<Map<String, Object>> data = new ArrayList<>();
-        
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-            
-            Sheet sheet = workbook.getSheetAt(0);
-            Row headerRow = sheet.getRow(0);
-            
-            if (headerRow == null) {
-                return data;
-            }
-            
-            // Header'ları al
-            List<String> headers = new ArrayList<>();
-            for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-                Cell cell = headerRow.getCell(i);
-                headers.add(cell != null ? cell.toString() : "Column" + i);
-            }
-            
-            // Veri satırlarını oku
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
-                Map<String, Object> rowData = new HashMap<>();
-                for (int j = 0; j < headers.size(); j++) {
-                    Cell cell = row.getCell(j);
-                    String value = "";
-                    if (cell != null) {
-                        switch (cell.getCellType()) {
-                            case STRING:
-                                value = cell.getStringCellValue();
-                                break;
-                            case NUMERIC:
-                                value = String.valueOf((int) cell.getNumericCellValue());
-                                break;
-                            case BOOLEAN:
-                                value = String.valueOf(cell.getBooleanCellValue());
-                                break;
-                            default:
-                                value = "";
-                        }
-                    }
-                    rowData.put(headers.get(j), value);
-                }
-                data.add(rowData);
-            }
-        }
-        
-        return data;
+    // Sayılar tipli okumada zaten sade gösterimle gelir ("1", "1.5"); tekrar parse edilmez
+    private List<Map<String, Object>> readExcelData(ImportContext context) {
+        return context.getRawRows();
     }
 }
@@ -1,12 +1,17 @@
 package com.example.demo.Service;
 
+import com.example.demo.Config.ImportConfig;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 @Service
 public class ExcelService {
@@ -19,13 +24,125 @@ public class ExcelService {
     
     @Autowired
     private com.example.demo.Mapper.OrganizationMapper organizationMapper;
+    
+    @Autowired
+    private StreamingExcelReader streamingExcelReader;
+    
+    @Autowired
+    private ParseResultCache parseResultCache;
+    
+    @Autowired
+    private ImportConfig importConfig;
 
     // Her sheet için ilk N satırı oku ve JSON benzeri yapı oluştur (List<Map<colName, value>>)
+    // xlsx dosyalarda her sheet stream edilir ve N satırdan sonra parse durur; süre dosya boyutuna bağlı değildir
     public Map<String, List<Map<String, String>>> readExcelPreview(MultipartFile file, int previewRowCount) throws Exception {
+        if (file instanceof ImportSessionFile) {
+            return readExcelPreviewFromSession((ImportSessionFile) file, previewRowCount);
+        }
+        // Hash'i spool'a yazılırken hesaplanmış dosyalarda aynı içerik için süren ya da biten önizleme paylaşılır;
+        // hash bilinmiyorsa sadece önbellek için dosya okunup hash'lenmez
+        String contentHash = knownContentHash(file);
+        if (contentHash == null) {
+            return parseExcelPreview(file, previewRowCount);
+        }
+        return parseResultCache.get("preview:" + previewRowCount + ":" + contentHash,
+                () -> parseExcelPreview(file, previewRowCount));
+    }
+    
+    private Map<String, List<Map<String, String>>> parseExcelPreview(MultipartFile file, int previewRowCount) throws Exception {
+        if (!isOoxml(file)) {
+            return readExcelPreviewFromWorkbook(file, previewRowCount);
+        }
+        
+        Map<String, List<Map<String, String>>> sheetData = new LinkedHashMap<>();
+        try (LocalUploadFile local = LocalUploadFile.of(file)) {
+            streamingExcelReader.readAllSheets(local.getFile(), previewRowCount, new StreamingExcelReader.RowHandler() {
+                private String sheetName;
+                private List<String> headers;
+                private List<Map<String, String>> rows;
+                
+                @Override
+                public void onSheetStart(String sheetName) {
+                    this.sheetName = sheetName;
+                }
+                
+                @Override
+                public void onHeader(List<String> headers) {
+                    this.headers = headers;
+                    this.rows = new ArrayList<>();
+                    sheetData.put(sheetName, rows);
+                }
+                
+                @Override
+                public void onRow(int rowNumber, List<String> values) {
+                    Map<String, String> rowData = new LinkedHashMap<>();
+                    for (int c = 0; c < headers.size(); c++) {
+                        rowData.put(headers.get(c), values.get(c));
+                    }
+                    rows.add(rowData);
+                }
+            });
+        }
+        return sheetData;
+    }
+    
+    // Sheet adları ve boyutları (xlsx'te <dimension> elementinden, satırlar okunmadan)
+    public List<StreamingExcelReader.SheetInfo> readSheetInfo(MultipartFile file) throws Exception {
+        if (isOoxml(file)) {
+            try (LocalUploadFile local = LocalUploadFile.of(file)) {
+                return streamingExcelReader.readSheetInfo(local.getFile());
+            }
+        }
+        
+        List<StreamingExcelReader.SheetInfo> sheetInfos = new ArrayList<>();
+        try (LocalUploadFile local = LocalUploadFile.of(file);
+             Workbook workbook = WorkbookFactory.create(local.getFile(), null, true)) {
+            for (Sheet sheet : workbook) {
+                Row headerRow = sheet.getRow(0);
+                int columnCount = headerRow != null ? headerRow.getLastCellNum() : 0;
+                sheetInfos.add(new StreamingExcelReader.SheetInfo(
+                    sheet.getSheetName(), null, sheet.getLastRowNum() + 1, columnCount));
+            }
+        }
+        return sheetInfos;
+    }
+    
+    // Spool'a yazılırken hesaplanan SHA-256; diğer dosyalarda null
+    private String knownContentHash(MultipartFile file) {
+        return file instanceof SpooledMultipartFile ? ((SpooledMultipartFile) file).getContentHash() : null;
+    }
+    
+    private boolean isOoxml(MultipartFile file) throws Exception {
+        try (InputStream is = FileMagic.prepareToCheckMagic(file.getInputStream())) {
+            return FileMagic.valueOf(is) == FileMagic.OOXML;
+        }
+    }
+    
+    // Import oturumu: önizleme oturum açılırken parse edilmiş sheet'lerden (değerler import'taki gibi tiplidir)
+    private Map<String, List<Map<String, String>>> readExcelPreviewFromSession(ImportSessionFile file, int previewRowCount) {
+        Map<String, List<Map<String, String>>> sheetData = new LinkedHashMap<>();
+        for (ColumnarExcelData data : file.getSheets().values()) {
+            List<String> headers = data.getHeaders();
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (int r = 0; r < data.getRowCount() && r < previewRowCount; r++) {
+                Map<String, String> rowData = new LinkedHashMap<>();
+                for (int c = 0; c < headers.size(); c++) {
+                    rowData.put(headers.get(c), data.getValue(r, c));
+                }
+                rows.add(rowData);
+            }
+            sheetData.put(data.getSheetName(), rows);
+        }
+        return sheetData;
+    }
+    
+    // .xls dosyalar için DOM tabanlı önizleme
+    private Map<String, List<Map<String, String>>> readExcelPreviewFromWorkbook(MultipartFile file, int previewRowCount) throws Exception {
         Map<String, List<Map<String, String>>> sheetData = new LinkedHashMap<>();
 
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
+        try (LocalUploadFile local = LocalUploadFile.of(file);
+             Workbook workbook = WorkbookFactory.create(local.getFile(), null, true)) {
 
             for (Sheet sheet : workbook) {
                 List<Map<String, String>> rows = new ArrayList<>();
@@ -92,8 +209,8 @@ public class ExcelService {
     public ExcelData readFullExcel(MultipartFile file) throws Exception {
         ExcelData excelData = new ExcelData();
         
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
+        try (LocalUploadFile local = LocalUploadFile.of(file);
+             Workbook workbook = WorkbookFactory.create(local.getFile(), null, true)) {
 
             Sheet sheet = workbook.getSheetAt(0); // İlk sheet'i al
             excelData.setSheetName(sheet.getSheetName());
@@ -157,74 +274,232 @@ public class ExcelService {
         }
     }
     
-    // Excel verilerini mapping'e göre dönüştür
+    // Excel verilerini mapping'e göre dönüştür (plan başlık satırından bir kez derlenir)
     public List<Map<String, Object>> transformDataWithMapping(ExcelData excelData, List<Map<String, Object>> mappings) {
-        List<Map<String, Object>> transformedData = new ArrayList<>();
+        MappingPlan plan = MappingPlan.compile(excelData.getHeaders(), mappings);
+        List<Map<String, Object>> transformedData = new ArrayList<>(excelData.getRows().size());
+        
+        for (List<String> row : excelData.getRows()) {
+            Map<String, Object> transformedRow = plan.apply(row);
+            if (!transformedRow.isEmpty()) {
+                transformedData.add(transformedRow);
+            }
+        }
         
-        // Mapping boşsa, tüm Excel verilerini direkt kullan
-        if (mappings == null || mappings.isEmpty()) {
-            for (List<String> row : excelData.getRows()) {
-                Map<String, Object> transformedRow = new HashMap<>();
-                for (int i = 0; i < excelData.getHeaders().size() && i < row.size(); i++) {
-                    String header = excelData.getHeaders().get(i);
-                    String value = row.get(i);
-                    transformedRow.put(header, value);
+        return transformedData;
+    }
+    
+    // Import isteği için dosyayı bir kez oku ve dönüştür; sonuç ImportService'lere aynen verilir
+    public ImportContext createImportContext(String importType, MultipartFile file, List<Map<String, Object>> mappings) throws Exception {
+        return new ImportContext(importType, readColumnarExcel(file), mappings);
+    }
+    
+    // İlk sheet'i stream ederek kolon bazlı, sözlükle kodlanmış yapıya oku (hücreler tipli çevrilir)
+    // Oturumdaki dosya tekrar parse edilmez; diğerleri istek başına bir kez okunur
+    public ColumnarExcelData readColumnarExcel(MultipartFile file) throws Exception {
+        if (file instanceof ImportSessionFile) {
+            return ((ImportSessionFile) file).getFirstSheet();
+        }
+        return parseColumnarExcel(file);
+    }
+    
+    private ColumnarExcelData parseColumnarExcel(MultipartFile file) throws Exception {
+        ColumnarExcelData[] data = new ColumnarExcelData[1];
+        try {
+            streamTypedExcel(file, new StreamingExcelReader.RowHandler() {
+                private String sheetName;
+                
+                @Override
+                public void onSheetStart(String sheetName) {
+                    this.sheetName = sheetName;
                 }
-                if (!transformedRow.isEmpty()) {
-                    transformedData.add(transformedRow);
+                
+                @Override
+                public void onHeader(List<String> headers) {
+                    data[0] = newColumnarData(sheetName, headers);
+                }
+                
+                @Override
+                public void onColumnTypes(List<ColumnType> columnTypes) {
+                    data[0].setColumnTypes(columnTypes);
+                }
+                
+                @Override
+                public void onRow(int rowNumber, List<String> values) {
+                    data[0].addRow(values);
                 }
+            });
+            data[0].trimToSize();
+        } catch (Exception e) {
+            // Yarım kalan okumanın geçici satır dosyaları silinir
+            if (data[0] != null) {
+                data[0].close();
+            }
+            throw e;
+        }
+        return data[0];
+    }
+    
+    // import.rowStore sınırıyla kolon deposu; config yoksa (birim testler) tüm satırlar heap'te tutulur
+    private ColumnarExcelData newColumnarData(String sheetName, List<String> headers) {
+        if (importConfig == null) {
+            return new ColumnarExcelData(sheetName, headers);
+        }
+        ImportConfig.RowStoreConfig rowStore = importConfig.getRowStore();
+        String spillDir = rowStore.getSpillDir();
+        Path spillDirectory = spillDir == null || spillDir.isBlank() ? null : Paths.get(spillDir);
+        return new ColumnarExcelData(sheetName, headers, rowStore.getMaxInMemoryRows(), spillDirectory);
+    }
+    
+    // Büyük dosyalar için streaming okuma: satırlar tek tek handler'a verilir, workbook belleğe alınmaz
+    // .xls (OLE2) dosyalar event modelle okunamadığı için readFullExcel üzerinden aynı handler'a aktarılır
+    public void streamFullExcel(MultipartFile file, StreamingExcelReader.RowHandler rowHandler) throws Exception {
+        if (isOoxml(file)) {
+            try (LocalUploadFile local = LocalUploadFile.of(file)) {
+                streamingExcelReader.readFirstSheet(local.getFile(), rowHandler);
             }
-            return transformedData;
+            return;
         }
         
-        // Mapping varsa, mapping'e göre dönüştür
-        for (List<String> row : excelData.getRows()) {
-            Map<String, Object> transformedRow = new HashMap<>();
+        ExcelData excelData = readFullExcel(file);
+        rowHandler.onSheetStart(excelData.getSheetName());
+        rowHandler.onHeader(excelData.getHeaders());
+        for (int i = 0; i < excelData.getRows().size(); i++) {
+            rowHandler.onRow(i + 2, excelData.getRows().get(i));
+        }
+    }
+    
+    // Import yolu için streaming okuma: sayılar "5.952159955E9" yerine "5952159955", tarihler
+    // yyyy-MM-dd'T'HH:mm:ss olarak gelir; kolon türleri ilk satırlardan bir kez çıkarılır
+    public void streamTypedExcel(MultipartFile file, StreamingExcelReader.RowHandler rowHandler) throws Exception {
+        if (isOoxml(file)) {
+            try (LocalUploadFile local = LocalUploadFile.of(file)) {
+                streamingExcelReader.readFirstSheet(local.getFile(), true, rowHandler);
+            }
+            return;
+        }
+        
+        try (LocalUploadFile local = LocalUploadFile.of(file);
+             Workbook workbook = WorkbookFactory.create(local.getFile(), null, true)) {
+            if (!streamTypedSheet(workbook, workbook.getSheetAt(0), rowHandler)) {
+                throw new Exception("Excel dosyası boş veya başlık satırı bulunamadı");
+            }
+        }
+    }
+    
+    // Tüm sheet'leri tipli olarak oku; başlık satırı olmayan sheet'ler atlanır (sıra dosyadaki sıradır)
+    public Map<String, ColumnarExcelData> readColumnarWorkbook(MultipartFile file) throws Exception {
+        if (file instanceof ImportSessionFile) {
+            return ((ImportSessionFile) file).getSheets();
+        }
+        return Collections.unmodifiableMap(parseColumnarWorkbook(file));
+    }
+    
+    private Map<String, ColumnarExcelData> parseColumnarWorkbook(MultipartFile file) throws Exception {
+        Map<String, ColumnarExcelData> sheets = new LinkedHashMap<>();
+        StreamingExcelReader.RowHandler handler = new StreamingExcelReader.RowHandler() {
+            private String sheetName;
+            private ColumnarExcelData data;
             
-            // Önce mapping'deki alanları ekle
-            for (Map<String, Object> mapping : mappings) {
-                String excelColumn = (String) mapping.get("excelColumn");
-                String grispiField = (String) mapping.get("grispiField");
-                
-                // Excel kolonunun index'ini bul
-                int columnIndex = excelData.getHeaders().indexOf(excelColumn);
-                if (columnIndex >= 0 && columnIndex < row.size()) {
-                    String value = row.get(columnIndex);
-                    transformedRow.put(grispiField, value);
-                }
+            @Override
+            public void onSheetStart(String sheetName) {
+                this.sheetName = sheetName;
+                this.data = null;
             }
             
-            // Sonra mapping'de olmayan ama önemli alanları da ekle
-            for (int i = 0; i < excelData.getHeaders().size() && i < row.size(); i++) {
-                String header = excelData.getHeaders().get(i);
-                String value = row.get(i);
-                
-                // Mapping'de bu header yoksa ve önemli bir alansa ekle
-                boolean isMapped = mappings.stream()
-                    .anyMatch(mapping -> header.equals(mapping.get("excelColumn")));
-                
-                if (!isMapped && !transformedRow.containsKey(header)) {
-                    // Önemli alanları kontrol et (emails, phone, externalId, firstName, lastName, vb.)
-                    String lowerHeader = header.toLowerCase();
-                    if (lowerHeader.contains("email") || lowerHeader.contains("mail") ||
-                        lowerHeader.contains("phone") || lowerHeader.contains("tel") ||
-                        lowerHeader.contains("external") || lowerHeader.contains("id") ||
-                        lowerHeader.contains("first") || lowerHeader.contains("last") ||
-                        lowerHeader.contains("name") || lowerHeader.contains("role") ||
-                        lowerHeader.contains("language") || lowerHeader.contains("organization") ||
-                        lowerHeader.contains("group") || lowerHeader.contains("tag") ||
-                        lowerHeader.contains("enabled")) {
-                        transformedRow.put(header, value);
+            @Override
+            public void onHeader(List<String> headers) {
+                data = newColumnarData(sheetName, headers);
+                sheets.put(sheetName, data);
+            }
+            
+            @Override
+            public void onColumnTypes(List<ColumnType> columnTypes) {
+                data.setColumnTypes(columnTypes);
+            }
+            
+            @Override
+            public void onRow(int rowNumber, List<String> values) {
+                data.addRow(values);
+            }
+        };
+        
+        try {
+            if (isOoxml(file)) {
+                try (LocalUploadFile local = LocalUploadFile.of(file)) {
+                    streamingExcelReader.readAllSheets(local.getFile(), 0, true, handler);
+                }
+            } else {
+                try (LocalUploadFile local = LocalUploadFile.of(file);
+                     Workbook workbook = WorkbookFactory.create(local.getFile(), null, true)) {
+                    for (Sheet sheet : workbook) {
+                        streamTypedSheet(workbook, sheet, handler);
                     }
                 }
             }
+            sheets.values().forEach(ColumnarExcelData::trimToSize);
+        } catch (Exception e) {
+            sheets.values().forEach(ColumnarExcelData::close);
+            throw e;
+        }
+        return sheets;
+    }
+    
+    // .xls sheet'ini TypedRowConverter'dan geçirerek handler'a ver; başlık satırı yoksa false döner
+    private boolean streamTypedSheet(Workbook workbook, Sheet sheet, StreamingExcelReader.RowHandler rowHandler) {
+        Row headerRow = sheet.getRow(0);
+        if (headerRow == null) {
+            return false;
+        }
+        
+        List<String> headers = new ArrayList<>();
+        for (int i = 0; i < headerRow.getLastCellNum(); i++) {
+            Cell cell = headerRow.getCell(i);
+            headers.add(cell != null ? cell.getStringCellValue() : "Column" + i);
+        }
+        rowHandler.onSheetStart(sheet.getSheetName());
+        rowHandler.onHeader(headers);
+        
+        boolean date1904 = workbook instanceof Date1904Support && ((Date1904Support) workbook).isDate1904();
+        TypedRowConverter converter = new TypedRowConverter(headers, date1904, rowHandler);
+        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue;
             
-            if (!transformedRow.isEmpty()) {
-                transformedData.add(transformedRow);
+            TypedRowConverter.RawCell[] cells = new TypedRowConverter.RawCell[headers.size()];
+            for (int j = 0; j < cells.length; j++) {
+                cells[j] = TypedRowConverter.RawCell.of(row.getCell(j));
             }
+            converter.onRow(i + 1, cells);
         }
-        
-        return transformedData;
+        converter.finish();
+        return true;
+    }
+    
+    // Satırları mapping'e göre dönüştürüp import servislerine tek tek verir (Excel satır numarası ile)
+    public void streamTransformedRows(MultipartFile file, List<Map<String, Object>> mappings,
+                                      BiConsumer<Integer, Map<String, Object>> rowConsumer) throws Exception {
+        streamTypedExcel(file, new StreamingExcelReader.RowHandler() {
+            private MappingPlan plan;
+            
+            @Override
+            public void onHeader(List<String> headers) {
+                this.plan = MappingPlan.compile(headers, mappings);
+            }
+            
+            @Override
+            public boolean isColumnNeeded(int column) {
+                return plan.usesColumn(column);
+            }
+            
+            @Override
+            public void onRow(int rowNumber, List<String> values) {
+                Map<String, Object> transformedRow = plan.apply(values);
+                if (!transformedRow.isEmpty()) {
+                    rowConsumer.accept(rowNumber, transformedRow);
+                }
+            }
+        });
     }
     
     // Excel verilerini kaydet
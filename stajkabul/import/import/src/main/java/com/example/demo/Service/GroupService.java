@@ -2,14 +2,11 @@ package com.example.demo.Service;
 
 import com.example.demo.Entity.Group;
 import com.example.demo.Repository.GroupRepository;
+import com.example.demo.Repository.OrganizationGroupRegistry;
 import com.example.demo.Mapper.GroupMapper;
 import com.example.demo.Validation.GroupValidator;
 import com.example.demo.Validation.GroupValidationResult;
-import com.example.demo.Service.ExcelService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,16 +20,19 @@ public class GroupService implements ImportService {
     private final GroupRepository groupRepository;
     private final GroupMapper groupMapper;
     private final GroupValidator groupValidator;
-    private final ObjectMapper objectMapper;
+    private final ParallelRowValidator rowValidator;
+    private final OrganizationGroupRegistry registry;
 
     public GroupService(GroupRepository groupRepository, 
                        GroupMapper groupMapper, 
                        GroupValidator groupValidator,
-                       ObjectMapper objectMapper) {
+                       ParallelRowValidator rowValidator,
+                       OrganizationGroupRegistry registry) {
         this.groupRepository = groupRepository;
         this.groupMapper = groupMapper;
         this.groupValidator = groupValidator;
-        this.objectMapper = objectMapper;
+        this.rowValidator = rowValidator;
+        this.registry = registry;
     }
 
     public List<Group> getAllGroups() {
@@ -52,53 +52,52 @@ public class GroupService implements ImportService {
     }
 
     @Override
-    public Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson) {
+    public Map<String, Object> importExcelWithMapping(ImportContext context) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = objectMapper.readValue(
-                mappingsJson, 
-                new TypeReference<List<Map<String, Object>>>() {}
-            );
+            // Excel verileri controller'da bir kez okunup dönüştürüldü
+            List<Map<String, Object>> transformedData = context.getTransformedData();
             
-            // Mapping'i Map formatına çevir (excelColumn -> grispiField)
-            Map<String, String> columnMappings = new HashMap<>();
-            for (Map<String, Object> mapping : mappings) {
-                String excelColumn = (String) mapping.get("excelColumn");
-                String grispiField = (String) mapping.get("grispiField");
-                if (excelColumn != null && grispiField != null) {
-                    columnMappings.put(excelColumn, grispiField);
+            // Satırlar (gerekirse paralel) map'lenip doğrulanır; sonuçlar satır sırasıyla döner
+            List<ParallelRowValidator.RowResult> rowResults = rowValidator.validate(transformedData.size(), i -> {
+                try {
+                    Group group = groupMapper.mapWithMapping(transformedData.get(i), new HashMap<>());
+                    GroupValidationResult validationResult = groupValidator.validate(group);
+                    return validationResult.isValid()
+                        ? ParallelRowValidator.RowResult.valid(null, group)
+                        : ParallelRowValidator.RowResult.invalid(null, validationResult.getErrors());
+                } catch (Exception e) {
+                    return ParallelRowValidator.RowResult.failed(e);
                 }
-            }
-            
-            // Excel verilerini oku
-            ExcelService excelService = new ExcelService();
-            ExcelService.ExcelData excelData = excelService.readFullExcel(file);
-            List<Map<String, Object>> transformedData = excelService.transformDataWithMapping(excelData, mappings);
+            });
             
             int successCount = 0;
             int errorCount = 0;
             List<String> errors = new ArrayList<>();
+            List<String> pendingNames = new ArrayList<>();
             
-            for (Map<String, Object> row : transformedData) {
-                try {
-                    Group group = groupMapper.mapWithMapping(row, new HashMap<>());
-                    GroupValidationResult validationResult = groupValidator.validate(group);
-                    
-                    if (validationResult.isValid()) {
-                        // DB'ye kayıt yapma - sadece validasyon
-                        successCount++;
-                    } else {
-                        errorCount++;
-                        errors.add("Row validation failed: " + validationResult.getErrors());
+            for (ParallelRowValidator.RowResult rowResult : rowResults) {
+                if (rowResult.isValid()) {
+                    // Tek sheet importta DB'ye kayıt yapma - sadece validasyon
+                    if (context.isPersistValidRows()) {
+                        pendingNames.add(((Group) rowResult.getEntity()).getName());
                     }
-                } catch (Exception e) {
+                    successCount++;
+                } else if (rowResult.getFailure() != null) {
+                    errorCount++;
+                    errors.add("Row processing error: " + rowResult.getFailure().getMessage());
+                } else {
                     errorCount++;
-                    errors.add("Row processing error: " + e.getMessage());
+                    errors.add("Row validation failed: " + rowResult.getErrors());
                 }
             }
             
+            // Çok sheet'li importta gruplar isimle bul-yoksa-oluştur; kişi ve ticket aşamaları bunları kullanır
+            if (!pendingNames.isEmpty()) {
+                context.getWorkbookReferences().registerGroups(registry.getOrCreateGroups(pendingNames).values());
+            }
+            
             result.put("success", true);
             result.put("totalRecords", transformedData.size());
             result.put("successCount", successCount);
@@ -0,0 +1,154 @@
+package com.example.demo.Service;
+
+import com.example.demo.Mapper.ReferenceResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Tek bir import isteği için bir kez okunmuş Excel verisi ve parse edilmiş mapping'ler.
+ * Controller tarafından oluşturulur; ImportService implementasyonları dosyayı tekrar okumaz.
+ * Veri kolon bazlı tutulur, dönüştürülmüş satırlar kolonları okuyan görünümlerdir.
+ * Arka plan işleri dosyayı slice() ile batch'lere böler; batch'ler veriyi ve dosya içi
+ * duplicate kontrolünü paylaşır, satır numaraları dosyadaki yerine göre verilir.
+ * Duplicate kontrolü eşzamanlı bir haritadır: her ID için en küçük satır index'i tutulur,
+ * böylece satırlar hangi sırayla doğrulanırsa doğrulansın ilk geçen satır geçerli sayılır.
+ */
+public class ImportContext {
+
+    private final String importType;
+    private final ColumnarExcelData data;
+    private final List<Map<String, Object>> mappings;
+    private final List<Map<String, Object>> transformedData;
+    private final Map<String, String> columnMappings;
+    // externalId -> dosyada ilk göründüğü satır index'i (paralel doğrulamada da sıradan bağımsız)
+    private final ConcurrentHashMap<String, Integer> externalIdFirstRows;
+    // İş boyunca (tüm batch'lerde) paylaşılan ticket referans önbelleği; ilk ihtiyaçta oluşturulur
+    private final AtomicReference<ReferenceResolver> referenceResolver;
+    // Çok sheet'li işin bir aşamasıysa işin ortak önbelleği, tek sheet importta null
+    private final ReferenceResolver workbookReferences;
+    private final int fromRow;
+    private final int toRow;
+
+    public ImportContext(String importType,
+                         ColumnarExcelData data,
+                         List<Map<String, Object>> mappings) {
+        this(importType, data, mappings, null);
+    }
+
+    /**
+     * Çok sheet'li importun bir aşaması: doğrulanan satırlar kaydedilir ve kaydedilen kayıtlar
+     * workbookReferences'a eklenir; aynı işin sonraki aşamaları referansları buradan çözer.
+     */
+    public ImportContext(String importType,
+                         ColumnarExcelData data,
+                         List<Map<String, Object>> mappings,
+                         ReferenceResolver workbookReferences) {
+        this.importType = importType;
+        this.data = data;
+        this.mappings = mappings != null ? mappings : new ArrayList<>();
+        this.transformedData = data.rowViews(MappingPlan.compile(data.getHeaders(), this.mappings));
+        this.columnMappings = toColumnMappings(this.mappings);
+        this.externalIdFirstRows = new ConcurrentHashMap<>();
+        this.referenceResolver = new AtomicReference<>(workbookReferences);
+        this.workbookReferences = workbookReferences;
+        this.fromRow = 0;
+        this.toRow = data.getRowCount();
+    }
+
+    private ImportContext(ImportContext parent, int fromRow, int toRow) {
+        this.importType = parent.importType;
+        this.data = parent.data;
+        this.mappings = parent.mappings;
+        this.columnMappings = parent.columnMappings;
+        this.externalIdFirstRows = parent.externalIdFirstRows;
+        this.referenceResolver = parent.referenceResolver;
+        this.workbookReferences = parent.workbookReferences;
+        this.fromRow = parent.fromRow + fromRow;
+        this.toRow = parent.fromRow + toRow;
+        // Mapping'siz dosyada dönüştürülmüş satır listesi boştur
+        int size = parent.transformedData.size();
+        this.transformedData = parent.transformedData.subList(Math.min(fromRow, size), Math.min(toRow, size));
+    }
+
+    // [from, to) aralığındaki satırlar için context (from/to bu context'e göre)
+    public ImportContext slice(int from, int to) {
+        if (from < 0 || to > getRowCount() || from > to) {
+            throw new IndexOutOfBoundsException("Aralık: " + from + "-" + to);
+        }
+        return new ImportContext(this, from, to);
+    }
+
+    // Mapping'i Map formatına çevir (excelColumn -> grispiField)
+    private static Map<String, String> toColumnMappings(List<Map<String, Object>> mappings) {
+        Map<String, String> columnMappings = new HashMap<>();
+        for (Map<String, Object> mapping : mappings) {
+            String excelColumn = (String) mapping.get("excelColumn");
+            String grispiField = (String) mapping.get("grispiField");
+            if (excelColumn != null && grispiField != null) {
+                columnMappings.put(excelColumn, grispiField);
+            }
+        }
+        return columnMappings;
+    }
+
+    // Mapping uygulanmamış, Excel başlığına göre anahtarlanmış satırlar
+    public List<Map<String, Object>> getRawRows() {
+        List<String> headers = data.getHeaders();
+        List<Map<String, Object>> rawRows = new ArrayList<>(toRow - fromRow);
+        for (int row = fromRow; row < toRow; row++) {
+            Map<String, Object> rowData = new LinkedHashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                rowData.put(headers.get(i), data.getValue(row, i));
+            }
+            rawRows.add(rowData);
+        }
+        return rawRows;
+    }
+
+    public String getImportType() { return importType; }
+
+    public ColumnarExcelData getData() { return data; }
+
+    public List<Map<String, Object>> getMappings() { return mappings; }
+
+    public List<Map<String, Object>> getTransformedData() { return transformedData; }
+
+    public Map<String, String> getColumnMappings() { return columnMappings; }
+
+    public int getRowCount() { return toRow - fromRow; }
+
+    // Bu context'in ilk satırının dosyadaki index'i (0 tabanlı, başlık hariç)
+    public int getRowOffset() { return fromRow; }
+
+    public ReferenceResolver getReferenceResolver(Supplier<ReferenceResolver> factory) {
+        ReferenceResolver resolver = referenceResolver.get();
+        if (resolver == null) {
+            referenceResolver.compareAndSet(null, factory.get());
+            resolver = referenceResolver.get();
+        }
+        return resolver;
+    }
+
+    public ReferenceResolver getWorkbookReferences() { return workbookReferences; }
+
+    // Doğrulanan satırlar kaydedilmeli mi (sadece çok sheet'li importun aşamalarında)
+    public boolean isPersistValidRows() { return workbookReferences != null; }
+
+    // External ID'nin bu satırda görüldüğünü kaydet; en küçük satır index'i kazanır
+    public void claimExternalId(String externalId, int rowIndex) {
+        externalIdFirstRows.merge(externalId, rowIndex, Math::min);
+    }
+
+    // Tüm satırlar claim edildikten sonra: bu satır, ID'nin dosyadaki ilk geçtiği yer mi
+    public boolean isFirstOccurrence(String externalId, int rowIndex) {
+        Integer firstRow = externalIdFirstRows.get(externalId);
+        return firstRow == null || firstRow == rowIndex;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Çalışan import'ların ilerlemesini Server-Sent Events ile iter.
+ * Güncellemeler import.processing.progressIntervalMs aralığında birleştirilir; bir aralıkta
+ * kaç batch biterse bitsin istemciye en fazla bir olay gider, değişiklik yoksa hiç gitmez.
+ * İş COMPLETED/FAILED/CANCELLED olunca son durum gönderilir ve akış kapanır.
+ * Zamanlayıcı thread'i yalnızca anlık görüntü alır; send'ler progressSendExecutor'da yapılır ve her
+ * abonenin aynı anda en fazla bir gönderimi olur. Yavaş bir istemci sadece kendi akışını geciktirir,
+ * arada kaçırdığı ara durumlar atlanır ve gönderimi bitince en son durum gider.
+ */
+@Service
+public class ImportProgressStreamService {
+
+    private final AsyncImportService asyncImportService;
+    private final ImportConfig importConfig;
+    private final TaskScheduler progressScheduler;
+    private final TaskExecutor progressSendExecutor;
+
+    // importId -> o işi izleyen bağlantılar
+    private final Map<String, CopyOnWriteArrayList<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> tickTask;
+
+    public ImportProgressStreamService(AsyncImportService asyncImportService,
+                                       ImportConfig importConfig,
+                                       @Qualifier("progressScheduler") TaskScheduler progressScheduler,
+                                       @Qualifier("progressSendExecutor") TaskExecutor progressSendExecutor) {
+        this.asyncImportService = asyncImportService;
+        this.importConfig = importConfig;
+        this.progressScheduler = progressScheduler;
+        this.progressSendExecutor = progressSendExecutor;
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private volatile Map<String, Object> lastSent;
+        // Gönderim sürüyorsa yeni gönderim kuyruğa alınmaz
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        long intervalMs = Math.max(50, importConfig.getProcessing().getProgressIntervalMs());
+        tickTask = progressScheduler.scheduleAtFixedRate(this::publish, Duration.ofMillis(intervalMs));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (tickTask != null) {
+            tickTask.cancel(false);
+        }
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    /**
+     * İşe abone olur; iş yoksa null döner. İlk olay bir sonraki aralıkta gönderilir.
+     */
+    public SseEmitter subscribe(String importId) {
+        if (asyncImportService.getImportProgress(importId) == null) {
+            return null;
+        }
+
+        // İş bitince akış kendisi kapandığı için zaman aşımı yok
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.computeIfAbsent(importId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+
+        Runnable remove = () -> unsubscribe(importId, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    private void unsubscribe(String importId, Subscriber subscriber) {
+        subscribers.computeIfPresent(importId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    // Zamanlayıcı thread'inde çalışır: her iş için bir anlık görüntü alınır, değişmişse gönderim abonenin kendi görevine verilir
+    void publish() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, CopyOnWriteArrayList<Subscriber>> entry : subscribers.entrySet()) {
+            String importId = entry.getKey();
+            AsyncImportService.ImportProgress progress = asyncImportService.getImportProgress(importId);
+            if (progress == null) {
+                // İş silinmiş: bağlantıları kapat
+                entry.getValue().forEach(subscriber -> subscriber.emitter.complete());
+                subscribers.remove(importId);
+                continue;
+            }
+
+            // Bitiş, gönderilen anlık görüntüdeki duruma göre belirlenir
+            AsyncImportService.Snapshot snapshot = progress.snapshot();
+            boolean finished = snapshot.getStatus().isFinished();
+            Map<String, Object> state = toState(snapshot);
+            Map<String, Object> event = null;
+            for (Subscriber subscriber : entry.getValue()) {
+                if (Objects.equals(subscriber.lastSent, state) || !subscriber.sending.compareAndSet(false, true)) {
+                    continue;
+                }
+                if (event == null) {
+                    event = withRate(state, snapshot, now);
+                }
+                Map<String, Object> data = event;
+                try {
+                    progressSendExecutor.execute(() -> send(importId, subscriber, state, data, finished));
+                } catch (RuntimeException e) {
+                    // Havuz kapanıyor; bir sonraki aralıkta tekrar denenir
+                    subscriber.sending.set(false);
+                }
+            }
+        }
+    }
+
+    // progressSendExecutor thread'inde çalışır; send istemci yavaşsa bloklayabilir
+    private void send(String importId, Subscriber subscriber, Map<String, Object> state, Map<String, Object> event,
+                      boolean finished) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().name("progress").data(event));
+            subscriber.lastSent = state;
+            if (finished) {
+                subscriber.emitter.complete();
+            }
+        } catch (Exception e) {
+            // İstemci bağlantıyı kapatmış
+            subscriber.emitter.completeWithError(e);
+            unsubscribe(importId, subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    // Sayaçlar ve durum; sadece bunlar değiştiğinde olay gönderilir
+    private Map<String, Object> toState(AsyncImportService.Snapshot snapshot) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("importId", snapshot.getId());
+        state.put("status", snapshot.getStatus());
+        state.put("processedRows", snapshot.getProcessedRows());
+        state.put("totalRows", snapshot.getTotalRows());
+        state.put("successCount", snapshot.getSuccessCount());
+        state.put("errorCount", snapshot.getErrorCount());
+        state.put("progress", snapshot.getProgress());
+        state.put("message", snapshot.getMessage());
+        return state;
+    }
+
+    // Gönderilecek olaya saniyedeki satır ve kalan süre tahminini ekle
+    private Map<String, Object> withRate(Map<String, Object> state, AsyncImportService.Snapshot snapshot, long now) {
+        Map<String, Object> event = new LinkedHashMap<>(state);
+        long processedRows = snapshot.getProcessedRows();
+        int totalRows = snapshot.getTotalRows();
+
+        long startedAt = snapshot.getStartedAt();
+        if (startedAt > 0 && processedRows > 0 && processedRows < totalRows) {
+            double elapsedSeconds = Math.max(1, now - startedAt) / 1000.0;
+            double rowsPerSecond = processedRows / elapsedSeconds;
+            event.put("rowsPerSecond", Math.round(rowsPerSecond));
+            event.put("etaSeconds", Math.round((totalRows - processedRows) / rowsPerSecond));
+        }
+        return event;
+    }
+}
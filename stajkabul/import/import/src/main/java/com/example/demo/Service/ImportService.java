@@ -1,8 +1,7 @@
 package com.example.demo.Service;
 
-import org.springframework.web.multipart.MultipartFile;
 import java.util.Map;
 
 public interface ImportService {
-    Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson);
+    Map<String, Object> importExcelWithMapping(ImportContext context);
 }
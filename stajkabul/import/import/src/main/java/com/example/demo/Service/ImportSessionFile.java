@@ -0,0 +1,35 @@
+package com.example.demo.Service;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Import oturumunun dosyası: spool dosyasının yanında bir kez parse edilmiş sheet'leri de taşır.
+ * ExcelService bu dosya için preview ve kolon bazlı okumaları önbellekten döner, dosyayı tekrar parse etmez.
+ */
+class ImportSessionFile extends SpooledMultipartFile {
+
+    private final Map<String, ColumnarExcelData> sheets;
+    private final String firstSheetName;
+
+    ImportSessionFile(Path path, String originalFilename, long size, String contentHash,
+                      Map<String, ColumnarExcelData> sheets, String firstSheetName) {
+        super(path, originalFilename, size, contentHash);
+        this.sheets = sheets;
+        this.firstSheetName = firstSheetName;
+    }
+
+    // Başlık satırı olan sheet'ler, dosyadaki sırayla (salt okunur)
+    Map<String, ColumnarExcelData> getSheets() {
+        return sheets;
+    }
+
+    // readColumnarExcel ile aynı kural: ilk sheet'in başlığı yoksa dosya boş sayılır
+    ColumnarExcelData getFirstSheet() throws Exception {
+        ColumnarExcelData data = firstSheetName != null ? sheets.get(firstSheetName) : null;
+        if (data == null) {
+            throw new Exception("Excel dosyası boş veya başlık satırı bulunamadı");
+        }
+        return data;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sihirbaz adımlarının (preview, mapping, validate, import) paylaştığı import oturumu.
+ * Dosya bir kez spool dizinine alınır (ChunkedUploadService) ve tüm sheet'leri bir kez kolon bazlı
+ * yapıya parse edilir. Sonraki istekler sessionId verir; ExcelService preview ve import okumalarını bu
+ * önbellekten yapar. Oturum son erişimden ttlMs sonra ya da maxSessions aşılınca dosyasıyla silinir.
+ */
+@Service
+public class ImportSessionService {
+
+    private final Map<String, ImportSession> sessions = new ConcurrentHashMap<>();
+
+    private final ExcelService excelService;
+    private final ChunkedUploadService uploadService;
+    private final ImportConfig importConfig;
+    private final TaskScheduler cleanupScheduler;
+
+    public ImportSessionService(ExcelService excelService,
+                                ChunkedUploadService uploadService,
+                                ImportConfig importConfig,
+                                @Qualifier("cleanupScheduler") TaskScheduler cleanupScheduler) {
+        this.excelService = excelService;
+        this.uploadService = uploadService;
+        this.importConfig = importConfig;
+        this.cleanupScheduler = cleanupScheduler;
+    }
+
+    public static class ImportSession {
+        private final String id;
+        private final String fileId;
+        private final ImportSessionFile file;
+        private final long createdAt;
+        private volatile long lastAccessAt;
+
+        ImportSession(String id, String fileId, ImportSessionFile file) {
+            this.id = id;
+            this.fileId = fileId;
+            this.file = file;
+            this.createdAt = System.currentTimeMillis();
+            this.lastAccessAt = createdAt;
+        }
+
+        public String getId() { return id; }
+        public String getFileId() { return fileId; }
+        public String getFileName() { return file.getOriginalFilename(); }
+        public long getSize() { return file.getSize(); }
+        public Map<String, ColumnarExcelData> getSheets() { return file.getSheets(); }
+        public long getCreatedAt() { return createdAt; }
+        public long getLastAccessAt() { return lastAccessAt; }
+    }
+
+    @PostConstruct
+    void scheduleEviction() {
+        long intervalMs = Math.max(1000, importConfig.getRetention().getSweepIntervalMs());
+        cleanupScheduler.scheduleWithFixedDelay(this::evictExpired, Duration.ofMillis(intervalMs));
+    }
+
+    /**
+     * Oturum aç: multipart dosya spool'a alınır ya da tamamlanmış bir parça parça yükleme (fileId) kullanılır,
+     * ardından tüm sheet'ler bir kez parse edilir
+     */
+    public ImportSession createSession(MultipartFile file, String fileId) throws Exception {
+        boolean spooled = fileId == null || fileId.isBlank();
+        if (spooled) {
+            if (file == null || file.isEmpty()) {
+                throw new IllegalArgumentException("Dosya boş olamaz");
+            }
+            fileId = uploadService.spool(file).getId();
+        }
+        try {
+            MultipartFile spoolFile = uploadService.resolveFile(null, fileId);
+            Map<String, ColumnarExcelData> sheets = excelService.readColumnarWorkbook(spoolFile);
+            List<StreamingExcelReader.SheetInfo> sheetInfos = excelService.readSheetInfo(spoolFile);
+            String firstSheetName = sheetInfos.isEmpty() ? null : sheetInfos.get(0).getName();
+
+            ChunkedUploadService.UploadSession upload = uploadService.getSession(fileId);
+            ImportSessionFile sessionFile = new ImportSessionFile(upload.getPath(), upload.getFileName(), upload.getSize(),
+                    upload.getContentHash(), Collections.unmodifiableMap(sheets), firstSheetName);
+            ImportSession session = new ImportSession(UUID.randomUUID().toString(), fileId, sessionFile);
+            sessions.put(session.getId(), session);
+            evictOverflow();
+            return session;
+        } catch (Exception e) {
+            // Bu istek için spool'a alınan dosya oturum açılamadıysa tutulmaz
+            if (spooled) {
+                uploadService.delete(fileId);
+            }
+            throw e;
+        }
+    }
+
+    public ImportSession getSession(String sessionId) {
+        ImportSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException(sessionId);
+        }
+        session.lastAccessAt = System.currentTimeMillis();
+        // Spool dosyası oturum yaşadıkça silinmesin
+        uploadService.getSession(session.getFileId()).touch();
+        return session;
+    }
+
+    public void deleteSession(String sessionId) {
+        ImportSession session = sessions.remove(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException(sessionId);
+        }
+        deleteUpload(session);
+    }
+
+    /**
+     * Endpoint'lerin dosya parametresi: sessionId verilmişse oturumun (parse önbellekli) dosyası,
+     * yoksa fileId ya da multipart dosya (bkz. ChunkedUploadService.resolveFile)
+     */
+    public MultipartFile resolveFile(MultipartFile file, String fileId, String sessionId) throws IOException {
+        if (sessionId == null || sessionId.isBlank()) {
+            return uploadService.resolveFile(file, fileId);
+        }
+        return getSession(sessionId).file;
+    }
+
+    // Son erişimden bu yana ttlMs geçen oturumları sil
+    void evictExpired() {
+        long expiresBefore = System.currentTimeMillis() - importConfig.getSession().getTtlMs();
+        sessions.values().removeIf(session -> {
+            if (session.getLastAccessAt() >= expiresBefore) {
+                return false;
+            }
+            deleteUpload(session);
+            return true;
+        });
+    }
+
+    // Parse edilmiş sheet'ler heap'te durur: oturum sayısı maxSessions'ı aşarsa en uzun süredir kullanılmayanlar silinir
+    private void evictOverflow() {
+        int overflow = sessions.size() - Math.max(1, importConfig.getSession().getMaxSessions());
+        if (overflow <= 0) {
+            return;
+        }
+        sessions.values().stream()
+                .sorted(Comparator.comparingLong(ImportSession::getLastAccessAt))
+                .limit(overflow)
+                .forEach(session -> {
+                    if (sessions.remove(session.getId(), session)) {
+                        deleteUpload(session);
+                    }
+                });
+    }
+
+    private void deleteUpload(ImportSession session) {
+        try {
+            uploadService.delete(session.getFileId());
+        } catch (ChunkedUploadService.UploadNotFoundException ignored) {
+            // Yükleme kendi süresi dolup silinmiş olabilir
+        }
+    }
+
+    /**
+     * Bilinmeyen ya da süresi dolup silinmiş oturum
+     */
+    public static class SessionNotFoundException extends RuntimeException {
+        public SessionNotFoundException(String sessionId) {
+            super("Import oturumu bulunamadı: " + sessionId);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.Service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Yüklenen dosyanın diskteki hali. POI dosyadan açınca zip'i ZipFile ile rastgele erişimli okur, sadece
+ * istenen parçaları açar; InputStream'den açınca (ZipInputStream) tüm parçaları belleğe alır.
+ * Endpoint'ler dosyayı istek başına bir kez spool'a alır (ChunkedUploadService.resolveFile), bu durumda spool
+ * dosyası doğrudan kullanılır. Spool'da olmayan dosya (web isteği dışındaki çağıranlar) her çağrıda geçici bir
+ * dosyaya kopyalanır ve close'da silinir.
+ */
+final class LocalUploadFile implements AutoCloseable {
+
+    private final File file;
+    private final boolean temporary;
+
+    private LocalUploadFile(File file, boolean temporary) {
+        this.file = file;
+        this.temporary = temporary;
+    }
+
+    static LocalUploadFile of(MultipartFile upload) throws IOException {
+        if (upload instanceof SpooledMultipartFile) {
+            return new LocalUploadFile(((SpooledMultipartFile) upload).getPath().toFile(), false);
+        }
+        Path temp = Files.createTempFile("import-upload", ".tmp");
+        try {
+            // transferTo(File) servlet'in geçici dosyasını taşıyabilir; aynı istekte dosya tekrar okunabilsin diye kopyalanır
+            upload.transferTo(temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new LocalUploadFile(temp.toFile(), true);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
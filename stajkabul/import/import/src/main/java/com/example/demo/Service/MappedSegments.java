@@ -0,0 +1,79 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Geçici dosyaların salt okunur, parça parça bellek eşlemesi (OffHeapSharedStrings ve SpilledRows için).
+ * Okumalar mutlak konumludur; aynı eşleme birden fazla thread'den okunabilir.
+ */
+final class MappedSegments {
+
+    // Tek bir eşleme 2 GB'ı geçemez; dosyalar bu boyutta parçalar halinde eşlenir
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    private MappedSegments() {
+    }
+
+    static MappedByteBuffer[] map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int segmentCount = (int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return segments;
+        }
+    }
+
+    // Offset'ler 8 byte hizalı, SEGMENT_SIZE de 8'in katı: bir long iki parçaya bölünmez
+    static long readLong(MappedByteBuffer[] segments, long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    // int'ler hizalı değildir: parça sınırına denk gelen int byte byte okunur
+    static int readInt(MappedByteBuffer[] segments, long position) {
+        MappedByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+        int offset = (int) (position % SEGMENT_SIZE);
+        if (offset + Integer.BYTES <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (readByte(segments, position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    static byte readByte(MappedByteBuffer[] segments, long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+    }
+
+    // Veri parça sınırına denk gelirse iki parçadan okunur
+    static void read(MappedByteBuffer[] segments, long position, byte[] target) {
+        int copied = 0;
+        while (copied < target.length) {
+            long current = position + copied;
+            MappedByteBuffer segment = segments[(int) (current / SEGMENT_SIZE)];
+            int offset = (int) (current % SEGMENT_SIZE);
+            int length = Math.min(target.length - copied, segment.limit() - offset);
+            segment.get(offset, target, copied, length);
+            copied += length;
+        }
+    }
+
+    // Eşlemeler GC'ye kalır; dosya hemen silinir (açık eşlemeler Linux'ta geçerli kalır)
+    static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
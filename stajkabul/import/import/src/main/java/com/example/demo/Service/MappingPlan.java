@@ -0,0 +1,171 @@
+package com.example.demo.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Başlık satırı ve mapping'lerden bir kez derlenen, değişmez dönüşüm planı.
+ * Kolon index'leri ve mapping dışında taşınacak kolonlar önceden hesaplanır;
+ * her satır tek bir dizi taramasıyla dönüştürülür.
+ */
+public final class MappingPlan {
+
+    // Mapping'de olmasa da taşınan önemli alanlar (emails, phone, externalId, firstName, lastName, vb.)
+    private static final String[] IMPORTANT_KEYWORDS = {
+        "email", "mail", "phone", "tel", "external", "id", "first", "last",
+        "name", "role", "language", "organization", "group", "tag", "enabled"
+    };
+
+    private final int[] mappedIndexes;
+    private final String[] mappedFields;
+    private final int[] passThroughIndexes;
+    private final String[] passThroughHeaders;
+    // Mapping yoksa tüm kolonlar başlık adıyla aynen taşınır
+    private final boolean passThroughAll;
+    private final int expectedSize;
+    // Satırda okunması gereken kolonlar (mapping'deki ve taşınan kolonlar)
+    private final boolean[] usedColumns;
+
+    private MappingPlan(int[] mappedIndexes, String[] mappedFields,
+                        int[] passThroughIndexes, String[] passThroughHeaders,
+                        boolean passThroughAll) {
+        this.mappedIndexes = mappedIndexes;
+        this.mappedFields = mappedFields;
+        this.passThroughIndexes = passThroughIndexes;
+        this.passThroughHeaders = passThroughHeaders;
+        this.passThroughAll = passThroughAll;
+        this.expectedSize = mappedIndexes.length + passThroughIndexes.length;
+        int width = 0;
+        for (int index : mappedIndexes) width = Math.max(width, index + 1);
+        for (int index : passThroughIndexes) width = Math.max(width, index + 1);
+        this.usedColumns = new boolean[width];
+        for (int index : mappedIndexes) usedColumns[index] = true;
+        for (int index : passThroughIndexes) usedColumns[index] = true;
+    }
+
+    public static MappingPlan compile(List<String> headers, List<Map<String, Object>> mappings) {
+        if (mappings == null || mappings.isEmpty()) {
+            int[] indexes = new int[headers.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = i;
+            }
+            return new MappingPlan(new int[0], new String[0], indexes, headers.toArray(new String[0]), true);
+        }
+
+        // Her başlığın ilk geçtiği index (headers.indexOf ile aynı)
+        Map<String, Integer> headerIndexes = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            headerIndexes.putIfAbsent(headers.get(i), i);
+        }
+
+        List<Integer> mappedIndexList = new ArrayList<>();
+        List<String> mappedFieldList = new ArrayList<>();
+        Set<Object> mappedColumns = new HashSet<>();
+        for (Map<String, Object> mapping : mappings) {
+            String excelColumn = (String) mapping.get("excelColumn");
+            mappedColumns.add(mapping.get("excelColumn"));
+
+            Integer columnIndex = headerIndexes.get(excelColumn);
+            if (columnIndex != null) {
+                mappedIndexList.add(columnIndex);
+                mappedFieldList.add((String) mapping.get("grispiField"));
+            }
+        }
+
+        List<Integer> passThroughIndexList = new ArrayList<>();
+        List<String> passThroughHeaderList = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            if (!mappedColumns.contains(header) && isImportantHeader(header)) {
+                passThroughIndexList.add(i);
+                passThroughHeaderList.add(header);
+            }
+        }
+
+        return new MappingPlan(
+            toIntArray(mappedIndexList), mappedFieldList.toArray(new String[0]),
+            toIntArray(passThroughIndexList), passThroughHeaderList.toArray(new String[0]),
+            false);
+    }
+
+    private static boolean isImportantHeader(String header) {
+        String lowerHeader = header.toLowerCase();
+        for (String keyword : IMPORTANT_KEYWORDS) {
+            if (lowerHeader.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    // apply'ın bu kolonun değerine bakıp bakmadığı; bakılmayan hücrelerin metni okunmayabilir
+    public boolean usesColumn(int index) {
+        return index >= 0 && index < usedColumns.length && usedColumns[index];
+    }
+
+    // Başlık genişliğindeki satırlar için sonuç alanı -> kaynak kolon index'i (apply ile aynı öncelik kuralları)
+    public Map<String, Integer> fieldIndexes(int rowSize) {
+        Map<String, Integer> fieldIndexes = new LinkedHashMap<>();
+        if (passThroughAll) {
+            for (int i = 0; i < passThroughIndexes.length && i < rowSize; i++) {
+                fieldIndexes.put(passThroughHeaders[i], passThroughIndexes[i]);
+            }
+            return fieldIndexes;
+        }
+        for (int i = 0; i < mappedIndexes.length; i++) {
+            if (mappedIndexes[i] < rowSize) {
+                fieldIndexes.put(mappedFields[i], mappedIndexes[i]);
+            }
+        }
+        for (int i = 0; i < passThroughIndexes.length; i++) {
+            if (passThroughIndexes[i] < rowSize) {
+                fieldIndexes.putIfAbsent(passThroughHeaders[i], passThroughIndexes[i]);
+            }
+        }
+        return fieldIndexes;
+    }
+
+    // Tek bir satırı plana göre dönüştür
+    public Map<String, Object> apply(List<String> row) {
+        int rowSize = row.size();
+        Map<String, Object> transformedRow = new HashMap<>(Math.max(16, expectedSize * 4 / 3 + 1));
+
+        if (passThroughAll) {
+            for (int i = 0; i < passThroughIndexes.length && i < rowSize; i++) {
+                transformedRow.put(passThroughHeaders[i], row.get(passThroughIndexes[i]));
+            }
+            return transformedRow;
+        }
+
+        // Önce mapping'deki alanlar
+        for (int i = 0; i < mappedIndexes.length; i++) {
+            int columnIndex = mappedIndexes[i];
+            if (columnIndex < rowSize) {
+                transformedRow.put(mappedFields[i], row.get(columnIndex));
+            }
+        }
+
+        // Sonra mapping'de olmayan önemli kolonlar (mapping'le aynı ada yazılmış alan ezilmez)
+        for (int i = 0; i < passThroughIndexes.length; i++) {
+            int columnIndex = passThroughIndexes[i];
+            if (columnIndex < rowSize && !transformedRow.containsKey(passThroughHeaders[i])) {
+                transformedRow.put(passThroughHeaders[i], row.get(columnIndex));
+            }
+        }
+
+        return transformedRow;
+    }
+}
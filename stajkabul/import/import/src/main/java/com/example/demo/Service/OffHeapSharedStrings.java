@@ -0,0 +1,159 @@
+package com.example.demo.Service;
+
+import org.apache.poi.util.XMLHelper;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * sharedStrings.xml'in heap dışı karşılığı.
+ * Dizgiler UTF-8 byte olarak bir geçici dosyaya, her dizginin başlangıç konumu ikinci bir dosyaya yazılır;
+ * iki dosya da bellek eşlemeli (mmap) okunur. String sadece hücre değeri istendiğinde oluşturulur,
+ * böylece yüz MB'lık tablolar GC'nin taradığı heap'te tutulmaz.
+ * Okuma mutlak konumlu olduğu için aynı nesne birden fazla thread'den kullanılabilir.
+ */
+public final class OffHeapSharedStrings implements StreamingExcelReader.SharedStringSource {
+
+    private final Path dataFile;
+    private final Path offsetFile;
+    private final MappedByteBuffer[] data;
+    private final MappedByteBuffer[] offsets;
+    private final int count;
+
+    private OffHeapSharedStrings(Path dataFile, Path offsetFile, int count) throws IOException {
+        this.dataFile = dataFile;
+        this.offsetFile = offsetFile;
+        this.data = MappedSegments.map(dataFile);
+        this.offsets = MappedSegments.map(offsetFile);
+        this.count = count;
+    }
+
+    // sharedStrings.xml'i SAX ile bir kez okuyup geçici dosyalara yazar
+    public static OffHeapSharedStrings load(InputStream sharedStringsXml) throws Exception {
+        Path dataFile = Files.createTempFile("shared-strings", ".data");
+        Path offsetFile = Files.createTempFile("shared-strings", ".offsets");
+        try {
+            SharedStringsWriter writer;
+            try (OutputStream dataOut = new BufferedOutputStream(Files.newOutputStream(dataFile), 1 << 16);
+                 DataOutputStream offsetOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetFile), 1 << 16))) {
+                writer = new SharedStringsWriter(dataOut, offsetOut);
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(writer);
+                parser.parse(new InputSource(sharedStringsXml));
+                // Son dizginin bitişi: i. dizgi [offset(i), offset(i + 1)) aralığındadır
+                offsetOut.writeLong(writer.position);
+            }
+            return new OffHeapSharedStrings(dataFile, offsetFile, writer.count);
+        } catch (Exception e) {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(offsetFile);
+            throw e;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String getString(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Shared string index: " + index + ", count: " + count);
+        }
+        long start = MappedSegments.readLong(offsets, (long) index * Long.BYTES);
+        long end = MappedSegments.readLong(offsets, (long) (index + 1) * Long.BYTES);
+        byte[] bytes = new byte[(int) (end - start)];
+        MappedSegments.read(data, start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Eşlemeler GC'ye kalır; dosyalar hemen silinir (açık eşlemeler Linux'ta geçerli kalır)
+    @Override
+    public void close() {
+        MappedSegments.delete(dataFile);
+        MappedSegments.delete(offsetFile);
+    }
+
+    /**
+     * &lt;si&gt; başına bir dizgi yazar. ReadOnlySharedStringsTable(pkg, false) ile aynı kural:
+     * zengin metin parçalarının (&lt;r&gt;) metinleri birleştirilir, fonetik parçalar (&lt;rPh&gt;) atlanır.
+     */
+    private static class SharedStringsWriter extends DefaultHandler {
+        private final OutputStream dataOut;
+        private final DataOutputStream offsetOut;
+        private final StringBuilder text = new StringBuilder();
+        private boolean inString;
+        private boolean inText;
+        private boolean inPhonetic;
+        private long position;
+        private int count;
+
+        SharedStringsWriter(OutputStream dataOut, DataOutputStream offsetOut) {
+            this.dataOut = dataOut;
+            this.offsetOut = offsetOut;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si":
+                    inString = true;
+                    text.setLength(0);
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    inText = inString && !inPhonetic;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "si":
+                    inString = false;
+                    try {
+                        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                        offsetOut.writeLong(position);
+                        dataOut.write(bytes);
+                        position += bytes.length;
+                        count++;
+                    } catch (IOException e) {
+                        throw new SAXException(e);
+                    }
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "t":
+                    inText = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.example.demo.Service;
 
 import com.example.demo.Entity.Organization;
+import com.example.demo.Repository.BulkInsertRepository;
 import com.example.demo.Repository.OrganizationRepository;
 import com.example.demo.Mapper.OrganizationMapper;
 import com.example.demo.Validation.OrganizationValidator;
 import com.example.demo.Validation.OrganizationValidationResult;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -21,17 +23,20 @@ import java.util.HashMap;
 public class OrganizationService implements ImportService {
 
     private final OrganizationRepository organizationRepository;
+    private final BulkInsertRepository bulkInsertRepository;
     
     @Autowired
     private OrganizationValidator organizationValidator;
 
-    private final ObjectMapper objectMapper;
     private final OrganizationMapper organizationMapper;
+    private final ParallelRowValidator rowValidator;
 
-    public OrganizationService(OrganizationRepository organizationRepository, OrganizationMapper organizationMapper) {
+    public OrganizationService(OrganizationRepository organizationRepository, BulkInsertRepository bulkInsertRepository, OrganizationMapper organizationMapper,
+                               ParallelRowValidator rowValidator) {
         this.organizationRepository = organizationRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
         this.organizationMapper = organizationMapper;
-        this.objectMapper = new ObjectMapper();
+        this.rowValidator = rowValidator;
     }
 
     public List<Organization> getAllOrganizations() {
@@ -43,20 +48,31 @@ public class OrganizationService implements ImportService {
     }
 
     public Organization saveOrganization(Organization organization) {
-        // Duplicate externalId kontrolü
-        if (organization.getExternalId() != null) {
-            Optional<Organization> existingOrganization = organizationRepository.findAll().stream()
-                .filter(o -> organization.getExternalId().equals(o.getExternalId()))
-                .findFirst();
-            
-            if (existingOrganization.isPresent()) {
-                throw new IllegalArgumentException("Organization with externalId " + organization.getExternalId() + " already exists");
-            }
+        // Duplicate externalId kontrolü (tüm tabloyu yüklemeden tek sorgu)
+        if (organization.getExternalId() != null && organizationRepository.existsByExternalId(organization.getExternalId())) {
+            throw new IllegalArgumentException("Organization with externalId " + organization.getExternalId() + " already exists");
         }
         
         return organizationRepository.save(organization);
     }
 
+    // Toplu kayıt için: verilen organizasyonlardan veritabanında zaten olan externalId'ler (parça başına tek sorgu)
+    public Set<String> findExistingExternalIds(Collection<Organization> organizations) {
+        return organizationRepository.findExistingExternalIds(
+            organizations.stream().map(Organization::getExternalId).collect(Collectors.toList()));
+    }
+
+    // existingExternalIds önceden findExistingExternalIds ile alınır; tekrarlar yazmadan önce kontrol edilir,
+    // organizasyonlar JDBC ile parça parça toplu kaydedilir
+    public void saveOrganizations(List<Organization> organizations, Set<String> existingExternalIds) {
+        for (Organization organization : organizations) {
+            if (organization.getExternalId() != null && !existingExternalIds.add(organization.getExternalId())) {
+                throw new IllegalArgumentException("Organization with externalId " + organization.getExternalId() + " already exists");
+            }
+        }
+        bulkInsertRepository.insertOrganizations(organizations);
+    }
+
     public void deleteOrganization(Long id) {
         organizationRepository.deleteById(id);
     }
@@ -99,95 +115,110 @@ public class OrganizationService implements ImportService {
     }
     
     @Override
-    public Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson) {
+    public Map<String, Object> importExcelWithMapping(ImportContext context) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = objectMapper.readValue(
-                mappingsJson, 
-                new TypeReference<List<Map<String, Object>>>() {}
-            );
+            // Excel verileri controller'da bir kez okunup dönüştürüldü
+            Map<String, String> columnMappings = context.getColumnMappings();
+            List<Map<String, Object>> transformedData = context.getTransformedData();
+            int rowOffset = context.getRowOffset();
             
-            // Mapping'i Map formatına çevir (excelColumn -> grispiField)
-            Map<String, String> columnMappings = new HashMap<>();
-            for (Map<String, Object> mapping : mappings) {
-                String excelColumn = (String) mapping.get("excelColumn");
-                String grispiField = (String) mapping.get("grispiField");
-                if (excelColumn != null && grispiField != null) {
-                    columnMappings.put(excelColumn, grispiField);
+            // Satırlar (gerekirse paralel) map'lenip doğrulanır; sonuçlar satır sırasıyla döner
+            List<ParallelRowValidator.RowResult> rowResults = rowValidator.validate(transformedData.size(), i -> {
+                try {
+                    Organization organization = organizationMapper.mapWithMapping(transformedData.get(i), columnMappings);
+                    String externalId = organization.getExternalId();
+                    if (externalId == null || externalId.trim().isEmpty()) {
+                        externalId = null;
+                    } else {
+                        context.claimExternalId(externalId, rowOffset + i);
+                    }
+                    
+                    OrganizationValidationResult validationResult = organizationValidator.validate(organization);
+                    return validationResult.isValid()
+                        ? ParallelRowValidator.RowResult.valid(externalId, organization)
+                        : ParallelRowValidator.RowResult.invalid(externalId, validationResult.getErrors());
+                } catch (Exception e) {
+                    return ParallelRowValidator.RowResult.failed(e);
                 }
-            }
+            });
             
-            // Excel verilerini oku
-            ExcelService excelService = new ExcelService();
-            ExcelService.ExcelData excelData = excelService.readFullExcel(file);
-            List<Map<String, Object>> transformedData = excelService.transformDataWithMapping(excelData, mappings);
+            // Çok sheet'li importta geçerli satırlar kaydedilir; veritabanında olan External ID'ler tek seferde alınır
+            boolean persist = context.isPersistValidRows();
+            List<Organization> pendingOrganizations = new ArrayList<>();
+            List<Integer> pendingRows = new ArrayList<>();
+            Set<String> existingExternalIds = persist
+                ? organizationRepository.findExistingExternalIds(rowResults.stream()
+                    .filter(ParallelRowValidator.RowResult::isValid)
+                    .map(ParallelRowValidator.RowResult::getExternalId)
+                    .collect(Collectors.toList()))
+                : Collections.emptySet();
             
             int successCount = 0;
             int errorCount = 0;
-            List<String> errors = new ArrayList<>();
-            
             List<Map<String, Object>> errorDetails = new ArrayList<>();
             
-            // Dosya içi duplicate kontrolü için Set
-            java.util.Set<String> seenExternalIds = new java.util.HashSet<>();
-            
-            for (int i = 0; i < transformedData.size(); i++) {
-                Map<String, Object> row = transformedData.get(i);
-                try {
-                    Organization organization = organizationMapper.mapWithMapping(row, columnMappings);
-                    
+            for (int i = 0; i < rowResults.size(); i++) {
+                ParallelRowValidator.RowResult rowResult = rowResults.get(i);
+                int rowNumber = rowOffset + i + 1;
+                
+                List<String> errors;
+                if (rowResult.getFailure() != null) {
+                    errors = List.of("Processing error: " + rowResult.getFailure().getMessage());
+                } else if (rowResult.getExternalId() != null
+                        && !context.isFirstOccurrence(rowResult.getExternalId(), rowOffset + i)) {
                     // Dosya içi External ID duplicate kontrolü
-                    if (organization.getExternalId() != null && !organization.getExternalId().trim().isEmpty()) {
-                        if (seenExternalIds.contains(organization.getExternalId())) {
-                            errorCount++;
-                            errors.add("Row " + (i + 1) + ": Duplicate externalId in file: " + organization.getExternalId());
-                            
-                            Map<String, Object> errorDetail = new HashMap<>();
-                            errorDetail.put("rowNumber", i + 1);
-                            errorDetail.put("originalData", row);
-                            errorDetail.put("errors", List.of("Duplicate externalId in file: " + organization.getExternalId()));
-                            errorDetails.add(errorDetail);
-                            continue;
-                        }
-                        seenExternalIds.add(organization.getExternalId());
+                    errors = List.of("Duplicate externalId in file: " + rowResult.getExternalId());
+                } else if (!rowResult.isValid()) {
+                    errors = rowResult.getErrors();
+                } else if (persist && existingExternalIds.contains(rowResult.getExternalId())) {
+                    errors = List.of("External ID already exists: " + rowResult.getExternalId());
+                } else {
+                    // Tek sheet importta DB'ye kayıt yapma - sadece validasyon
+                    if (persist) {
+                        pendingOrganizations.add((Organization) rowResult.getEntity());
+                        pendingRows.add(i);
                     }
-                    
-                    OrganizationValidationResult validationResult = organizationValidator.validate(organization);
-                    
-                    if (validationResult.isValid()) {
-                        // DB'ye kayıt yapma - sadece validasyon
-                        successCount++;
-                    } else {
+                    successCount++;
+                    continue;
+                }
+                
+                errorCount++;
+                Map<String, Object> errorDetail = new HashMap<>();
+                errorDetail.put("rowNumber", rowNumber);
+                errorDetail.put("originalData", transformedData.get(i));
+                errorDetail.put("errors", errors);
+                errorDetails.add(errorDetail);
+            }
+            
+            if (!pendingOrganizations.isEmpty()) {
+                int persistedCount = pendingOrganizations.size();
+                try {
+                    bulkInsertRepository.insertOrganizations(pendingOrganizations);
+                } catch (BulkInsertRepository.PartialInsertException e) {
+                    // Önceki parçalar commit edildi: sadece kaydedilemeyen satırlar hatalı sayılır
+                    persistedCount = e.getPersistedCount();
+                    for (int j = persistedCount; j < pendingOrganizations.size(); j++) {
+                        int i = pendingRows.get(j);
+                        successCount--;
                         errorCount++;
-                        errors.add("Row " + (i + 1) + " validation failed: " + String.join(", ", validationResult.getErrors()));
-                        
-                        // Detaylı hata bilgisi ekle
                         Map<String, Object> errorDetail = new HashMap<>();
-                        errorDetail.put("rowNumber", i + 1);
-                        errorDetail.put("originalData", row);
-                        errorDetail.put("errors", validationResult.getErrors());
+                        errorDetail.put("rowNumber", rowOffset + i + 1);
+                        errorDetail.put("originalData", transformedData.get(i));
+                        errorDetail.put("errors", List.of("Save error: " + e.getMessage()));
                         errorDetails.add(errorDetail);
                     }
-                } catch (Exception e) {
-                    errorCount++;
-                    errors.add("Row " + (i + 1) + " processing error: " + e.getMessage());
-                    
-                    // Detaylı hata bilgisi ekle
-                    Map<String, Object> errorDetail = new HashMap<>();
-                    errorDetail.put("rowNumber", i + 1);
-                    errorDetail.put("originalData", row);
-                                             errorDetail.put("errors", List.of("Processing error: " + e.getMessage()));
-                    errorDetails.add(errorDetail);
                 }
+                // Kişi ve ticket aşamaları organizasyonları bu kayıtlardan çözer
+                context.getWorkbookReferences().registerOrganizations(pendingOrganizations.subList(0, persistedCount));
             }
             
-                         result.put("success", true);
-             result.put("totalRecords", transformedData.size());
-             result.put("successCount", successCount);
-             result.put("errorCount", errorCount);
-             result.put("errors", errorDetails);
+            result.put("success", true);
+            result.put("totalRecords", transformedData.size());
+            result.put("successCount", successCount);
+            result.put("errorCount", errorCount);
+            result.put("errors", errorDetails);
             
         } catch (Exception e) {
             result.put("success", false);
@@ -0,0 +1,127 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+/**
+ * ImportService'lerin satır bazlı map + validate adımını ForkJoinPool üzerinde parçalara bölerek çalıştırır.
+ * Sonuçlar satır sırasıyla döner; sayaçlar ve hata listeleri servislerde bu sırayla birleştirilir,
+ * böylece paralel ve sıralı modun çıktısı aynıdır.
+ * import.processing.parallelValidation kapalıysa ya da satır sayısı bir parçadan azsa sıralı çalışır.
+ */
+@Component
+public class ParallelRowValidator {
+
+    private final ImportConfig importConfig;
+    private final ForkJoinPool pool;
+
+    public ParallelRowValidator(ImportConfig importConfig) {
+        this.importConfig = importConfig;
+        int parallelism = importConfig.getProcessing().getParallelism();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Tek bir satırın map + validate sonucu. Hata mesajları servisin kendi biçimiyle birleştirme sırasında üretilir.
+     */
+    public static class RowResult {
+        private final String externalId;
+        private final List<String> errors;
+        private final Exception failure;
+        private final Object entity;
+
+        private RowResult(String externalId, List<String> errors, Exception failure, Object entity) {
+            this.externalId = externalId;
+            this.errors = errors;
+            this.failure = failure;
+            this.entity = entity;
+        }
+
+        public static RowResult valid(String externalId) {
+            return new RowResult(externalId, null, null, null);
+        }
+
+        // Satır kaydedilecekse (çok sheet'li import) map'lenen entity de taşınır
+        public static RowResult valid(String externalId, Object entity) {
+            return new RowResult(externalId, null, null, entity);
+        }
+
+        public static RowResult invalid(String externalId, List<String> errors) {
+            return new RowResult(externalId, errors, null, null);
+        }
+
+        public static RowResult failed(Exception failure) {
+            return new RowResult(null, null, failure, null);
+        }
+
+        // Boş external ID null olarak tutulur (duplicate kontrolüne girmez)
+        public String getExternalId() { return externalId; }
+        public List<String> getErrors() { return errors; }
+        public Exception getFailure() { return failure; }
+        public Object getEntity() { return entity; }
+
+        public boolean isValid() {
+            return errors == null && failure == null;
+        }
+    }
+
+    // rowTask her satır index'i için bir kez çağrılır; sonuç listesi index sırasındadır
+    public <R> List<R> validate(int rowCount, IntFunction<R> rowTask) {
+        Object[] results = new Object[rowCount];
+        int chunkSize = Math.max(1, importConfig.getProcessing().getParallelChunkSize());
+
+        if (!importConfig.getProcessing().isParallelValidation() || rowCount <= chunkSize) {
+            for (int i = 0; i < rowCount; i++) {
+                results[i] = rowTask.apply(i);
+            }
+        } else {
+            pool.invoke(new ChunkAction(rowTask, results, 0, rowCount, chunkSize));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> ordered = (List<R>) Arrays.asList(results);
+        return ordered;
+    }
+
+    // Aralığı chunkSize'a inene kadar ikiye böler
+    private static class ChunkAction extends RecursiveAction {
+        private final IntFunction<?> rowTask;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ChunkAction(IntFunction<?> rowTask, Object[] results, int from, int to, int chunkSize) {
+            this.rowTask = rowTask;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = rowTask.apply(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(rowTask, results, from, middle, chunkSize),
+                      new ChunkAction(rowTask, results, middle, to, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Dosya içeriğinin hash'ine göre önizleme sonuçları (single-flight).
+ * Hash sadece zaten biliniyorsa kullanılır (spool'a yazılırken hesaplanan SHA-256); önbellek için dosya tekrar okunmaz.
+ * Tam parse edilmiş sheet'ler burada tutulmaz, onları import oturumu (ImportSessionService) taşır.
+ * Aynı anahtar için ilk gelen istek parse eder, aynı anda gelen diğerleri onun sonucunu bekler;
+ * biten sonuç maxEntries ve ttlMs sınırları içinde sonraki isteklere de verilir. Hata önbelleğe alınmaz.
+ * Sonuçlar istekler arasında paylaşıldığı için çağıranlar dönen nesneyi değiştirmemelidir.
+ */
+@Component
+public class ParseResultCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ImportConfig importConfig;
+    private final TaskScheduler cleanupScheduler;
+
+    public ParseResultCache(ImportConfig importConfig,
+                            @Qualifier("cleanupScheduler") TaskScheduler cleanupScheduler) {
+        this.importConfig = importConfig;
+        this.cleanupScheduler = cleanupScheduler;
+    }
+
+    private static class Entry {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile long lastAccessAt = System.currentTimeMillis();
+    }
+
+    @PostConstruct
+    void scheduleEviction() {
+        long intervalMs = Math.max(1000, importConfig.getRetention().getSweepIntervalMs());
+        cleanupScheduler.scheduleWithFixedDelay(this::evictExpired, Duration.ofMillis(intervalMs));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Callable<T> loader) throws Exception {
+        if (importConfig.getParseCache().getMaxEntries() <= 0) {
+            return loader.call();
+        }
+
+        Entry created = new Entry();
+        Entry entry = entries.computeIfAbsent(key, k -> created);
+        if (entry == created) {
+            // Error'lar (ör. OutOfMemoryError) da future'ı tamamlar; yoksa bekleyen istekler sonsuza kadar bekler
+            try {
+                created.result.complete(loader.call());
+            } catch (Throwable e) {
+                entries.remove(key, created);
+                created.result.completeExceptionally(e);
+                throw e;
+            }
+            evictOverflow();
+        }
+        entry.lastAccessAt = System.currentTimeMillis();
+
+        try {
+            return (T) entry.result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : new Exception(cause);
+        }
+    }
+
+    // Son erişimden bu yana ttlMs geçen sonuçları sil (süren parse'lar silinmez)
+    void evictExpired() {
+        long expiresBefore = System.currentTimeMillis() - importConfig.getParseCache().getTtlMs();
+        entries.values().removeIf(entry -> entry.result.isDone() && entry.lastAccessAt < expiresBefore);
+    }
+
+    // Parse sonuçları heap'te durur: maxEntries aşılırsa en uzun süredir kullanılmayan biten sonuçlar silinir
+    private void evictOverflow() {
+        int overflow = entries.size() - importConfig.getParseCache().getMaxEntries();
+        if (overflow <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .filter(e -> e.getValue().result.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessAt))
+                .limit(overflow)
+                .forEach(e -> entries.remove(e.getKey(), e.getValue()));
+    }
+}
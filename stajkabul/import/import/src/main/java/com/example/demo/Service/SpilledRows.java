@@ -0,0 +1,148 @@
+package com.example.demo.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * ColumnarExcelData'nın heap'e sığmayan satırları.
+ * Satırlar bir geçici dosyaya sırayla eklenir: önce hücre bitişlerinin tablosu (kolon başına int, satırın
+ * veri kısmına göre), sonra hücrelerin UTF-8 byte'ları. Her satırın başlangıç konumu ikinci bir dosyaya
+ * yazılır. seal() ile dosyalar bellek eşlemeli açılıp silinir; hücre istendiğinde tablodan konumu
+ * okunur (kolon sayısından bağımsız), sadece o hücrenin byte'larından String oluşturulur.
+ * Yazma tek thread'den yapılır; seal()'dan sonra okumalar birden fazla thread'den yapılabilir.
+ */
+final class SpilledRows implements AutoCloseable {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int width;
+    private final byte[][] cells;
+    private final Path dataFile;
+    private final Path offsetFile;
+    private OutputStream dataOut;
+    private DataOutputStream offsetOut;
+    private long position;
+    private int count;
+    private MappedByteBuffer[] data;
+    private MappedByteBuffer[] offsets;
+
+    private SpilledRows(int width, Path dataFile, Path offsetFile) throws IOException {
+        this.width = width;
+        this.cells = new byte[width][];
+        this.dataFile = dataFile;
+        this.offsetFile = offsetFile;
+        this.dataOut = new BufferedOutputStream(Files.newOutputStream(dataFile), 1 << 16);
+        this.offsetOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetFile), 1 << 16));
+    }
+
+    // directory null ise java.io.tmpdir kullanılır
+    static SpilledRows create(Path directory, int width) throws IOException {
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path dataFile = directory != null ? Files.createTempFile(directory, "rows", ".data") : Files.createTempFile("rows", ".data");
+        Path offsetFile = directory != null ? Files.createTempFile(directory, "rows", ".offsets") : Files.createTempFile("rows", ".offsets");
+        try {
+            return new SpilledRows(width, dataFile, offsetFile);
+        } catch (IOException e) {
+            MappedSegments.delete(dataFile);
+            MappedSegments.delete(offsetFile);
+            throw e;
+        }
+    }
+
+    // Eksik hücreler "" olarak yazılır
+    void append(List<String> row) throws IOException {
+        if (dataOut == null) {
+            throw new IllegalStateException("Satır deposu kapatıldı");
+        }
+        offsetOut.writeLong(position);
+        int end = 0;
+        for (int i = 0; i < width; i++) {
+            String value = i < row.size() ? row.get(i) : null;
+            cells[i] = value != null ? value.getBytes(StandardCharsets.UTF_8) : EMPTY;
+            end += cells[i].length;
+            writeInt(end);
+        }
+        for (int i = 0; i < width; i++) {
+            dataOut.write(cells[i]);
+            cells[i] = null;
+        }
+        position += (long) width * Integer.BYTES + end;
+        count++;
+    }
+
+    // Yazmayı bitirir: son satırın bitişi yazılır, dosyalar eşlenip silinir
+    void seal() throws IOException {
+        if (dataOut == null) {
+            return;
+        }
+        try {
+            offsetOut.writeLong(position);
+            closeStreams();
+            data = MappedSegments.map(dataFile);
+            offsets = MappedSegments.map(offsetFile);
+        } finally {
+            close();
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    String get(int row, int column) {
+        if (data == null) {
+            throw new IllegalStateException("Satır deposu henüz kapatılmadı");
+        }
+        long rowStart = MappedSegments.readLong(offsets, (long) row * Long.BYTES);
+        long table = rowStart + (long) column * Integer.BYTES;
+        int start = column == 0 ? 0 : MappedSegments.readInt(data, table - Integer.BYTES);
+        int end = MappedSegments.readInt(data, table);
+        if (end == start) {
+            return "";
+        }
+        byte[] bytes = new byte[end - start];
+        MappedSegments.read(data, rowStart + (long) width * Integer.BYTES + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Yarım kalan yazmada da çağrılır; eşlenmiş satırlar GC'ye kadar okunabilir kalır
+    @Override
+    public void close() {
+        try {
+            closeStreams();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            MappedSegments.delete(dataFile);
+            MappedSegments.delete(offsetFile);
+        }
+    }
+
+    private void closeStreams() throws IOException {
+        if (dataOut == null) {
+            return;
+        }
+        try (OutputStream dataStream = dataOut; DataOutputStream offsetStream = offsetOut) {
+            dataOut = null;
+            offsetOut = null;
+        }
+    }
+
+    // DataOutputStream ile aynı sıra (big-endian); MappedByteBuffer varsayılan olarak böyle okur
+    private void writeInt(int value) throws IOException {
+        dataOut.write(value >>> 24);
+        dataOut.write(value >>> 16);
+        dataOut.write(value >>> 8);
+        dataOut.write(value);
+    }
+}
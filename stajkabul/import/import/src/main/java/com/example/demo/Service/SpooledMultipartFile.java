@@ -0,0 +1,90 @@
+package com.example.demo.Service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Parça parça yüklenip diske yazılmış dosyayı MultipartFile olarak gösterir.
+ * Okumalar her seferinde dosyadan yeni bir stream açar; içerik belleğe alınmaz (getBytes hariç).
+ */
+class SpooledMultipartFile implements MultipartFile {
+
+    private final String uploadId;
+    private final Path path;
+    private final String originalFilename;
+    private final long size;
+    private final String contentHash;
+
+    SpooledMultipartFile(Path path, String originalFilename, long size, String contentHash) {
+        this(null, path, originalFilename, size, contentHash);
+    }
+
+    SpooledMultipartFile(String uploadId, Path path, String originalFilename, long size, String contentHash) {
+        this.uploadId = uploadId;
+        this.path = path;
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    // ChunkedUploadService'teki yüklemenin id'si (oturum dosyalarında null)
+    String getUploadId() {
+        return uploadId;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Spool'a yazılırken hesaplanan SHA-256 (hex)
+    String getContentHash() {
+        return contentHash;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    // Spool dosyası taşınmaz, kopyalanır: aynı fileId ile tekrar import edilebilir
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Entity.Organization;
+import com.example.demo.Entity.Ticket;
+import com.example.demo.Entity.User;
+import com.example.demo.Mapper.OrganizationMapper;
+import com.example.demo.Mapper.TicketMapper;
+import com.example.demo.Mapper.UserMapper;
+import com.example.demo.Repository.BulkInsertRepository;
+import com.example.demo.Repository.StagingImportRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Staging import modu (Contact/User, Organization, Ticket).
+ * Dosya ImportContext'e alınmadan satır satır okunur ve parça parça yazıcı bağlantısındaki geçici bir staging
+ * tablosuna yüklenir. Satır içi dönüşümler (enum, tarih, telefon gösterimi) mevcut mapper'larla Java'da yapılır;
+ * zorunlu alanlar, format kuralları, dosya içi tekrarlar ve mevcut kayıtlarla çakışmalar tüm tabloya set tabanlı
+ * SQL ile işaretlenir, geçerli satırlar INSERT ... ON CONFLICT ile aktarılır.
+ * Satırlar ve hatalar SQLite'ın geçici dosyasında durur: yığın kullanımı satır sayısına bağlı değildir,
+ * yanıttaki hata listesi import.staging.maxReportedErrors ile sınırlanır. Bu sadece staging modu içindir;
+ * normal import yolu satırları ColumnarExcelData'da tutar (import.rowStore) ve BatchedImportRunner ile batch'ler halinde işler.
+ * SQL kuralları Validator sınıflarıyla aynı sonucu verir (StagingValidationTest).
+ */
+@Service
+public class StagingImportService {
+
+    private static final String[] USER_COLUMNS = {"enabled", "external_id", "first_name", "language", "last_name",
+            "phone", "role", "organization_key"};
+    private static final String[] ORGANIZATION_COLUMNS = {"description", "details", "external_id", "name", "notes",
+            "group_key"};
+    private static final String[] TICKET_COLUMNS = {"channel", "created_at", "description", "external_id", "form",
+            "priority", "solved_at", "status", "subject", "type", "updated_at", "creator_key", "requester_key",
+            "assignee_key", "assignee_group_key", "organization_key"};
+
+    // UserValidator ile aynı pattern'ler (SQL'de SqliteWriter'ın REGEXP fonksiyonuyla çalışır)
+    private static final String EMAIL_PATTERN = "^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$";
+    private static final String PHONE_E164_PATTERN = "^\\+\\d{10,15}$";
+
+    private final ExcelService excelService;
+    private final StagingImportRepository stagingRepository;
+    private final BulkInsertRepository bulkInsertRepository;
+    private final UserMapper userMapper;
+    private final OrganizationMapper organizationMapper;
+    private final TicketMapper ticketMapper;
+    private final ImportConfig importConfig;
+
+    public StagingImportService(ExcelService excelService,
+                                StagingImportRepository stagingRepository,
+                                BulkInsertRepository bulkInsertRepository,
+                                UserMapper userMapper,
+                                OrganizationMapper organizationMapper,
+                                TicketMapper ticketMapper,
+                                ImportConfig importConfig) {
+        this.excelService = excelService;
+        this.stagingRepository = stagingRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.userMapper = userMapper;
+        this.organizationMapper = organizationMapper;
+        this.ticketMapper = ticketMapper;
+        this.importConfig = importConfig;
+    }
+
+    public boolean isSupported(String importType) {
+        return Arrays.asList("User", "Contact", "Organization", "Ticket").contains(importType);
+    }
+
+    public Map<String, Object> importExcel(String importType, MultipartFile file, List<Map<String, Object>> mappings) throws Exception {
+        if (!isSupported(importType)) {
+            throw new IllegalArgumentException("Staging modu bu import türünü desteklemiyor: " + importType);
+        }
+        boolean tickets = "Ticket".equals(importType);
+        boolean organizations = "Organization".equals(importType);
+        String[] columns = tickets ? TICKET_COLUMNS : organizations ? ORGANIZATION_COLUMNS : USER_COLUMNS;
+
+        String table = stagingRepository.create(columns);
+        try {
+            long totalRecords = load(importType, file, mappings, table, columns);
+            stagingRepository.createIndexes(table, "external_id");
+
+            int merged;
+            if (tickets) {
+                validateTickets(table);
+                merged = stagingRepository.mergeTickets(table);
+            } else if (organizations) {
+                validateOrganizations(table);
+                merged = stagingRepository.mergeOrganizations(table);
+            } else {
+                validateUsers(table);
+                merged = stagingRepository.mergeUsers(table);
+                // Bu kişileri bekleyen ticket'lar bağlanır
+                bulkInsertRepository.resolvePendingTicketReferences();
+            }
+            return toResult(importType, table, totalRecords, merged);
+        } finally {
+            stagingRepository.drop(table);
+        }
+    }
+
+    // Satırları dönüştürüp insertBatchSize'lık parçalarla staging tablosuna yükler; yüklenen satır sayısını döner
+    private long load(String importType, MultipartFile file, List<Map<String, Object>> mappings,
+                      String table, String[] columns) throws Exception {
+        int batchSize = Math.max(1, importConfig.getProcessing().getInsertBatchSize());
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        List<Object[]> values = new ArrayList<>();
+        long[] loaded = new long[1];
+
+        excelService.streamTransformedRows(file, mappings, (rowNumber, row) -> {
+            if ("Ticket".equals(importType)) {
+                stageTicket(rowNumber, row, rows, values);
+            } else if ("Organization".equals(importType)) {
+                stageOrganization(rowNumber, row, rows, values);
+            } else {
+                stageUser(rowNumber, row, mappings, rows, values);
+            }
+            if (rows.size() >= batchSize) {
+                loaded[0] += rows.size();
+                stagingRepository.load(table, columns, rows, values);
+                rows.clear();
+                values.clear();
+            }
+        });
+        if (!rows.isEmpty()) {
+            loaded[0] += rows.size();
+            stagingRepository.load(table, columns, rows, values);
+        }
+        return loaded[0];
+    }
+
+    // Referans alanları çıkarılıp map'lenir (mapper sorgu yapmaz); referanslar ham anahtar olarak yüklenir
+    private void stageUser(int rowNumber, Map<String, Object> row, List<Map<String, Object>> mappings,
+                           List<Object[]> rows, List<Object[]> values) {
+        Map<String, Object> scalars = without(row, "organization", "groups");
+        // organization/groups olmadığı için ContactReferences kullanılmaz
+        User user = userMapper.mapWithMapping(scalars, mappings, null);
+        rows.add(new Object[]{rowNumber, user.isEnabled(), user.getExternalId(), user.getFirstName(), user.getLanguage(),
+                user.getLastName(), user.getPhone(), user.getRole(), key(row, "organization")});
+        addValues(values, rowNumber, "email", user.getEmails());
+        addValues(values, rowNumber, "tag", user.getTags());
+        String groups = key(row, "groups");
+        if (groups != null) {
+            addValues(values, rowNumber, "group", Arrays.asList(groups.split("\\s+")));
+        }
+    }
+
+    private void stageOrganization(int rowNumber, Map<String, Object> row, List<Object[]> rows, List<Object[]> values) {
+        Organization organization = organizationMapper.mapWithMapping(without(row, "group"), new HashMap<>());
+        rows.add(new Object[]{rowNumber, organization.getDescription(), organization.getDetails(),
+                organization.getExternalId(), organization.getName(), organization.getNotes(), key(row, "group")});
+        addValues(values, rowNumber, "domain", organization.getDomains());
+        addValues(values, rowNumber, "tag", organization.getTags());
+    }
+
+    private void stageTicket(int rowNumber, Map<String, Object> row, List<Object[]> rows, List<Object[]> values) {
+        Map<String, Object> scalars = without(row, "creator", "requester", "assignee", "assigneeGroup", "organization");
+        // Referans alanları olmadığı için ReferenceResolver kullanılmaz
+        Ticket ticket = ticketMapper.mapWithMapping(scalars, new HashMap<>(), null);
+        rows.add(new Object[]{rowNumber, ticket.getChannel(), ticket.getCreatedAt(), ticket.getDescription(),
+                ticket.getExternalId(), ticket.getForm(), ticket.getPriority(), ticket.getSolvedAt(), ticket.getStatus(),
+                ticket.getSubject(), ticket.getType(), ticket.getUpdatedAt(), key(row, "creator"), key(row, "requester"),
+                key(row, "assignee"), key(row, "assigneeGroup"), key(row, "organization")});
+        addValues(values, rowNumber, "tag", ticket.getTags());
+    }
+
+    // UserValidator kuralları, tüm tabloya birer UPDATE olarak
+    private void validateUsers(String table) {
+        markDuplicates(table);
+        stagingRepository.addError(table,
+                "coalesce(trim(s.first_name), '') = '' and coalesce(trim(s.external_id), '') = ''"
+                        + " and coalesce(trim(s.phone), '') = ''"
+                        + " and not exists (select 1 from " + table + "_values v where v.row_number = s.row_number and v.kind = 'email')",
+                "'At least one of these fields is required: {fields}'");
+        String invalidEmails = "from " + table + "_values v where v.row_number = s.row_number and v.kind = 'email'"
+                + " and not (v.value regexp '" + EMAIL_PATTERN + "')";
+        stagingRepository.addError(table, "exists (select 1 " + invalidEmails + ")",
+                "select group_concat('Invalid email: ' || v.value, char(10)) " + invalidEmails);
+        stagingRepository.normalizePhones(table);
+        stagingRepository.addError(table,
+                "coalesce(trim(s.phone), '') <> '' and not (s.phone regexp '" + PHONE_E164_PATTERN + "')",
+                "'Phone is not in E.164 format: ' || s.phone");
+    }
+
+    private void validateOrganizations(String table) {
+        markDuplicates(table);
+        stagingRepository.addError(table, "coalesce(trim(s.external_id), '') = ''", "'externalId cannot be empty.'");
+    }
+
+    private void validateTickets(String table) {
+        markDuplicates(table);
+        stagingRepository.addError(table, "coalesce(trim(s.external_id), '') = ''", "'External ID cannot be empty.'");
+        stagingRepository.addError(table, "coalesce(trim(s.subject), '') <> '' and length(s.subject) < 3",
+                "'Subject must be at least 3 characters long.'");
+    }
+
+    // Dosya içi tekrar: aynı External ID'nin ilk geçtiği satır geçerli sayılır
+    private void markDuplicates(String table) {
+        stagingRepository.addError(table,
+                "coalesce(s.external_id, '') <> '' and exists (select 1 from " + table + " f"
+                        + " where f.external_id = s.external_id and f.row_number < s.row_number)",
+                "'Duplicate External ID in file: ' || s.external_id");
+    }
+
+    private Map<String, Object> toResult(String importType, String table, long totalRecords, int merged) {
+        long errorCount = stagingRepository.count(table, "s.error is not null");
+        int maxReportedErrors = importConfig.getStaging().getMaxReportedErrors();
+
+        List<Map<String, Object>> errorDetails = new ArrayList<>();
+        for (Map<String, Object> errorRow : stagingRepository.findErrors(table, maxReportedErrors)) {
+            Map<String, Object> errorDetail = new HashMap<>();
+            errorDetail.put("rowNumber", errorRow.get("row_number"));
+            errorDetail.put("externalId", errorRow.get("external_id"));
+            errorDetail.put("errors", Arrays.asList(errorRow.get("error").toString().split("\n")));
+            errorDetails.add(errorDetail);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("importType", importType);
+        result.put("totalRecords", totalRecords);
+        result.put("successCount", merged);
+        result.put("errorCount", errorCount);
+        result.put("errors", errorDetails);
+        result.put("errorsTruncated", errorCount > errorDetails.size());
+        return result;
+    }
+
+    private Map<String, Object> without(Map<String, Object> row, String... fields) {
+        Map<String, Object> copy = new HashMap<>(row);
+        for (String field : fields) {
+            copy.remove(field);
+        }
+        return copy;
+    }
+
+    private String key(Map<String, Object> row, String field) {
+        Object value = row.get(field);
+        if (value == null) return null;
+        String key = value.toString().trim();
+        return key.isEmpty() ? null : key;
+    }
+
+    private void addValues(List<Object[]> values, int rowNumber, String kind, List<String> items) {
+        if (items == null) return;
+        for (String item : items) {
+            if (!"group".equals(kind) || !item.isEmpty()) {
+                values.add(new Object[]{rowNumber, kind, item});
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * xlsx dosyalarını POI event modeli (XSSFReader + SAX) ile satır satır okur.
+ * Workbook DOM'u kurulmaz; bellek kullanımı dosya boyutuna değil satır genişliğine bağlıdır.
+ * Dosya diskten açılır (bkz. LocalUploadFile); zip parçaları rastgele erişimle, sadece gerektiğinde okunur.
+ * Büyük shared strings tabloları heap dışında tutulur (bkz. OffHeapSharedStrings).
+ */
+@Component
+public class StreamingExcelReader {
+
+    private final ImportConfig importConfig;
+
+    public StreamingExcelReader(ImportConfig importConfig) {
+        this.importConfig = importConfig;
+    }
+
+    /**
+     * Okunan satırları alan callback
+     */
+    public interface RowHandler {
+        default void onSheetStart(String sheetName) {}
+
+        void onHeader(List<String> headers);
+
+        // Sadece tipli okumada, ilk veri satırından önce bir kez çağrılır
+        default void onColumnTypes(List<ColumnType> columnTypes) {}
+
+        // rowNumber Excel'deki 1 tabanlı satır numarasıdır
+        void onRow(int rowNumber, List<String> values);
+
+        // false dönen kolonlardaki shared string hücrelerinin metni okunmaz, değer boş gelir (başlık satırı hariç)
+        default boolean isColumnNeeded(int column) { return true; }
+    }
+
+    /**
+     * Shared strings tablosundan index ile dizgi okuma
+     */
+    public interface SharedStringSource extends AutoCloseable {
+        String getString(int index);
+
+        @Override
+        default void close() {}
+    }
+
+    /**
+     * Sheet'in adı ve &lt;dimension&gt; elementinden okunan boyutları
+     */
+    public static class SheetInfo {
+        private final String name;
+        private final String dimension;
+        private final Integer rowCount;
+        private final Integer columnCount;
+
+        public SheetInfo(String name, String dimension, Integer rowCount, Integer columnCount) {
+            this.name = name;
+            this.dimension = dimension;
+            this.rowCount = rowCount;
+            this.columnCount = columnCount;
+        }
+
+        public String getName() { return name; }
+        public String getDimension() { return dimension; }
+        public Integer getRowCount() { return rowCount; }
+        public Integer getColumnCount() { return columnCount; }
+    }
+
+    // İlk sheet'i stream ederek oku (readFullExcel ile aynı kurallar: ilk satır başlık)
+    public void readFirstSheet(File file, RowHandler rowHandler) throws Exception {
+        readFirstSheet(file, false, rowHandler);
+    }
+
+    // typedCells: hücreler Double.toString yerine kolon türüne göre çevrilir (bkz. TypedRowConverter)
+    public void readFirstSheet(File file, boolean typedCells, RowHandler rowHandler) throws Exception {
+        OPCPackage pkg = open(file);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new Exception("Excel dosyası boş veya başlık satırı bulunamadı");
+            }
+
+            try (SharedStringSource sharedStrings = openSharedStrings(pkg)) {
+                SheetHandler handler = new SheetHandler(sharedStrings,
+                        reader.getStylesTable(), isDate1904(reader), rowHandler, 0, typedCells);
+                try (InputStream sheetStream = sheets.next()) {
+                    rowHandler.onSheetStart(sheets.getSheetName());
+                    parse(sheetStream, handler);
+                }
+                handler.finish();
+                if (!handler.isHeaderSeen()) {
+                    throw new Exception("Excel dosyası boş veya başlık satırı bulunamadı");
+                }
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    // Tüm sheet'leri sırayla oku; maxDataRows > 0 ise her sheet'te o kadar veri satırından sonra parse durur.
+    // İlk satırı 1. satır olmayan (başlıksız) sheet'ler için onHeader çağrılmaz.
+    public void readAllSheets(File file, int maxDataRows, RowHandler rowHandler) throws Exception {
+        readAllSheets(file, maxDataRows, false, rowHandler);
+    }
+
+    // typedCells: her sheet'in kolon türleri kendi ilk satırlarından çıkarılır (bkz. readFirstSheet)
+    public void readAllSheets(File file, int maxDataRows, boolean typedCells, RowHandler rowHandler) throws Exception {
+        OPCPackage pkg = open(file);
+        try (SharedStringSource sharedStrings = openSharedStrings(pkg)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    rowHandler.onSheetStart(sheets.getSheetName());
+                    SheetHandler handler = new SheetHandler(sharedStrings, styles, date1904, rowHandler, maxDataRows, typedCells);
+                    parse(sheetStream, handler);
+                    handler.finish();
+                }
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    // Sheet adlarını ve boyutlarını satırlara hiç girmeden döner
+    public List<SheetInfo> readSheetInfo(File file) throws Exception {
+        List<SheetInfo> sheetInfos = new ArrayList<>();
+        OPCPackage pkg = open(file);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    DimensionHandler handler = new DimensionHandler();
+                    parse(sheetStream, handler);
+                    sheetInfos.add(toSheetInfo(sheets.getSheetName(), handler.dimension));
+                }
+            }
+        } finally {
+            pkg.revert();
+        }
+        return sheetInfos;
+    }
+
+    // Dosya salt okunur açılır: zip ZipFile ile rastgele erişimli okunur, sadece okunan parçalar açılır.
+    // Salt okunur paket close yerine revert ile bırakılır (close kaydetmeye çalışır)
+    private OPCPackage open(File file) throws Exception {
+        return OPCPackage.open(file, PackageAccess.READ);
+    }
+
+    // sharedStrings.xml eşik değerinden büyükse heap dışı tablo, değilse POI'nin tablosu
+    private SharedStringSource openSharedStrings(OPCPackage pkg) throws Exception {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        long threshold = importConfig.getProcessing().getOffHeapSharedStringsThresholdBytes();
+        if (!parts.isEmpty() && parts.get(0).getSize() >= threshold) {
+            try (InputStream sharedStringsXml = parts.get(0).getInputStream()) {
+                return OffHeapSharedStrings.load(sharedStringsXml);
+            }
+        }
+        ReadOnlySharedStringsTable table = new ReadOnlySharedStringsTable(pkg, false);
+        return index -> table.getItemAt(index).getString();
+    }
+
+    private void parse(InputStream xml, DefaultHandler handler) throws Exception {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(handler);
+        try {
+            parser.parse(new InputSource(xml));
+        } catch (StopParsingException e) {
+            // Handler gerekli kısmı okudu, sheet'in geri kalanı parse edilmez
+        }
+    }
+
+    // "A1:F200001" -> 200001 satır, 6 kolon
+    static SheetInfo toSheetInfo(String sheetName, String dimension) {
+        if (dimension == null || dimension.isEmpty()) {
+            return new SheetInfo(sheetName, null, null, null);
+        }
+        String[] range = dimension.split(":");
+        String first = range[0];
+        String last = range.length > 1 ? range[1] : range[0];
+        int rowCount = rowNumber(last) - rowNumber(first) + 1;
+        int columnCount = columnIndex(last) - columnIndex(first) + 1;
+        return new SheetInfo(sheetName, dimension, rowCount, columnCount);
+    }
+
+    // "AB12" -> 12
+    static int rowNumber(String cellReference) {
+        int i = 0;
+        while (i < cellReference.length() && !Character.isDigit(cellReference.charAt(i))) i++;
+        return i < cellReference.length() ? Integer.parseInt(cellReference.substring(i)) : 1;
+    }
+
+    // workbook.xml içindeki workbookPr/@date1904 bayrağını oku
+    private boolean isDate1904(XSSFReader reader) throws Exception {
+        boolean[] date1904 = new boolean[1];
+        try (InputStream workbookXml = reader.getWorkbookData()) {
+            parse(workbookXml, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                }
+            });
+        }
+        return date1904[0];
+    }
+
+    // "AB12" -> 27 (0 tabanlı kolon index'i)
+    static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char ch = cellReference.charAt(i);
+            if (ch < 'A' || ch > 'Z') break;
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    // Parse'ı erken bitirmek için handler'dan fırlatılır
+    private static class StopParsingException extends SAXException {
+        StopParsingException() {
+            super("Parse durduruldu");
+        }
+    }
+
+    /**
+     * Sadece &lt;dimension&gt; elementini okur; &lt;sheetData&gt; başlayınca parse'ı durdurur
+     */
+    static class DimensionHandler extends DefaultHandler {
+        private String dimension;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("dimension".equals(localName)) {
+                dimension = attributes.getValue("ref");
+            } else if ("sheetData".equals(localName)) {
+                throw new StopParsingException();
+            }
+        }
+    }
+
+    /**
+     * Sheet XML'ini işleyen SAX handler.
+     * Hücre değerleri ExcelService.getCellValueAsString ile aynı biçimde string'e çevrilir;
+     * typedCells açıksa veri satırları ham hücre olarak TypedRowConverter'a verilir.
+     */
+    static class SheetHandler extends DefaultHandler {
+
+        private final SharedStringSource sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler rowHandler;
+        private final int maxDataRows;
+        private final boolean typedCells;
+        private final Map<Integer, Boolean> dateStyleCache = new HashMap<>();
+
+        private final StringBuilder text = new StringBuilder();
+        private boolean collectText;
+        private boolean inInlineString;
+
+        private List<String> headers;
+        private List<String> currentRow;
+        private List<TypedRowConverter.RawCell> currentRawRow;
+        private TypedRowConverter typedConverter;
+        private int currentRowNumber;
+        private int currentColumn;
+        private String cellType;
+        private String cellStyle;
+        private boolean cellHasFormula;
+
+        SheetHandler(SharedStringSource sharedStrings, StylesTable styles, boolean date1904,
+                     RowHandler rowHandler, int maxDataRows, boolean typedCells) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.rowHandler = rowHandler;
+            this.maxDataRows = maxDataRows;
+            this.typedCells = typedCells;
+        }
+
+        boolean isHeaderSeen() {
+            return headers != null;
+        }
+
+        // Sheet bitti (ya da parse durduruldu): türü çıkarılmayı bekleyen satırları gönder
+        void finish() {
+            if (typedConverter != null) {
+                typedConverter.finish();
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    currentRowNumber = r != null ? Integer.parseInt(r) : currentRowNumber + 1;
+                    // Başlıksız sheet ya da önizleme limiti aşıldı: sheet'in geri kalanını okuma
+                    if ((headers == null && currentRowNumber != 1)
+                            || (maxDataRows > 0 && currentRowNumber > maxDataRows + 1)) {
+                        throw new StopParsingException();
+                    }
+                    if (typedConverter != null) {
+                        currentRawRow = new ArrayList<>(headers.size());
+                    } else {
+                        currentRow = new ArrayList<>(headers != null ? headers.size() : 16);
+                    }
+                    currentColumn = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    currentColumn = ref != null ? columnIndex(ref) : currentColumn + 1;
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    cellHasFormula = false;
+                    text.setLength(0);
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "f":
+                    cellHasFormula = true;
+                    break;
+                case "v":
+                    text.setLength(0);
+                    collectText = true;
+                    break;
+                case "t":
+                    if (inInlineString) collectText = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collectText = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    if (typedConverter != null) {
+                        setCell(currentRawRow, currentColumn, rawCell(text.toString()));
+                    } else {
+                        setCell(currentRow, currentColumn, formatValue(text.toString()));
+                    }
+                    break;
+                case "row":
+                    endRow();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private static <T> void setCell(List<T> row, int column, T value) {
+            if (column < 0) return;
+            while (row.size() < column) {
+                row.add(null);
+            }
+            if (row.size() == column) {
+                row.add(value);
+            } else {
+                row.set(column, value);
+            }
+        }
+
+        private void endRow() {
+            if (headers == null) {
+                // İlk satır başlık olarak kabul edilir
+                headers = new ArrayList<>(currentRow.size());
+                for (int i = 0; i < currentRow.size(); i++) {
+                    String header = currentRow.get(i);
+                    headers.add(header != null ? header : "Column" + i);
+                }
+                rowHandler.onHeader(headers);
+                if (typedCells) {
+                    typedConverter = new TypedRowConverter(headers, date1904, rowHandler);
+                }
+                return;
+            }
+
+            if (typedConverter != null) {
+                TypedRowConverter.RawCell[] cells = new TypedRowConverter.RawCell[headers.size()];
+                for (int i = 0; i < cells.length && i < currentRawRow.size(); i++) {
+                    cells[i] = currentRawRow.get(i);
+                }
+                typedConverter.onRow(currentRowNumber, cells);
+                return;
+            }
+
+            // Satırı başlık genişliğine getir (eksik hücreler "" olur)
+            List<String> values = new ArrayList<>(headers.size());
+            for (int i = 0; i < headers.size(); i++) {
+                String value = i < currentRow.size() ? currentRow.get(i) : null;
+                values.add(value != null ? value : "");
+            }
+            rowHandler.onRow(currentRowNumber, values);
+        }
+
+        private String formatValue(String raw) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (raw.isEmpty()) {
+                    // Önbellek değeri olmayan sayısal formül DOM okuyucuda 0.0 döner
+                    return cellHasFormula ? Double.toString(0.0) : "";
+                }
+                double number = Double.parseDouble(raw);
+                if (isDateStyle() && DateUtil.isValidExcelDate(number)) {
+                    return DateUtil.getJavaDate(number, date1904).toString();
+                }
+                return Double.toString(number);
+            }
+            switch (cellType) {
+                case "s":
+                    if (raw.isEmpty() || !isColumnNeeded()) return "";
+                    return sharedStrings.getString(Integer.parseInt(raw));
+                case "inlineStr":
+                case "str":
+                    return raw;
+                case "b":
+                    return Boolean.toString("1".equals(raw));
+                default:
+                    // Hata hücreleri (t="e") DOM okuyucuda olduğu gibi boş döner
+                    return "";
+            }
+        }
+
+        // Tipli okuma: değer metne çevrilmeden türüyle birlikte tutulur
+        private TypedRowConverter.RawCell rawCell(String raw) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (raw.isEmpty()) {
+                    return cellHasFormula ? TypedRowConverter.RawCell.number("0") : null;
+                }
+                if (isDateStyle()) {
+                    double serial = Double.parseDouble(raw);
+                    if (DateUtil.isValidExcelDate(serial)) {
+                        return TypedRowConverter.RawCell.date(raw, serial);
+                    }
+                }
+                return TypedRowConverter.RawCell.number(raw);
+            }
+            switch (cellType) {
+                case "s":
+                    if (raw.isEmpty() || !isColumnNeeded()) return null;
+                    return TypedRowConverter.RawCell.string(sharedStrings.getString(Integer.parseInt(raw)));
+                case "inlineStr":
+                case "str":
+                    return TypedRowConverter.RawCell.string(raw);
+                case "b":
+                    return TypedRowConverter.RawCell.bool("1".equals(raw));
+                default:
+                    return null;
+            }
+        }
+
+        // Başlık satırının tamamı okunur; veri satırlarında başlık dışı ve handler'ın istemediği kolonlar atlanır
+        private boolean isColumnNeeded() {
+            return headers == null || (currentColumn < headers.size() && rowHandler.isColumnNeeded(currentColumn));
+        }
+
+        private boolean isDateStyle() {
+            if (cellStyle == null || styles == null) return false;
+            int styleIndex = Integer.parseInt(cellStyle);
+            return dateStyleCache.computeIfAbsent(styleIndex, index -> {
+                XSSFCellStyle style = styles.getStyleAt(index);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package com.example.demo.Service;
 
 import com.example.demo.Entity.Ticket;
+import com.example.demo.Repository.BulkInsertRepository;
 import com.example.demo.Repository.TicketRepository;
+import com.example.demo.Mapper.ReferenceResolver;
 import com.example.demo.Mapper.TicketMapper;
 import com.example.demo.Validation.TicketValidator;
 import com.example.demo.Validation.TicketValidationResult;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
@@ -20,18 +23,21 @@ import java.util.ArrayList;
 public class TicketService implements ImportService {
 
     private final TicketRepository ticketRepository;
+    private final BulkInsertRepository bulkInsertRepository;
     private final TicketMapper ticketMapper;
     private final TicketValidator ticketValidator;
-    private final ObjectMapper objectMapper;
+    private final ParallelRowValidator rowValidator;
 
     public TicketService(TicketRepository ticketRepository, 
+                        BulkInsertRepository bulkInsertRepository,
                         TicketMapper ticketMapper, 
                         TicketValidator ticketValidator,
-                        ObjectMapper objectMapper) {
+                        ParallelRowValidator rowValidator) {
         this.ticketRepository = ticketRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
         this.ticketMapper = ticketMapper;
         this.ticketValidator = ticketValidator;
-        this.objectMapper = objectMapper;
+        this.rowValidator = rowValidator;
     }
 
     public List<Ticket> getAllTickets() {
@@ -43,118 +49,147 @@ public class TicketService implements ImportService {
     }
 
     public Ticket saveTicket(Ticket ticket) {
-        // Duplicate externalId kontrolü
-        if (ticket.getExternalId() != null) {
-            Optional<Ticket> existingTicket = ticketRepository.findAll().stream()
-                .filter(t -> ticket.getExternalId().equals(t.getExternalId()))
-                .findFirst();
-            
-            if (existingTicket.isPresent()) {
-                throw new IllegalArgumentException("Ticket with externalId " + ticket.getExternalId() + " already exists");
-            }
+        // Duplicate externalId kontrolü (tüm tabloyu yüklemeden tek sorgu)
+        if (ticket.getExternalId() != null && ticketRepository.existsByExternalId(ticket.getExternalId())) {
+            throw new IllegalArgumentException("Ticket with externalId " + ticket.getExternalId() + " already exists");
         }
         
         return ticketRepository.save(ticket);
     }
 
+    // Toplu kayıt için: verilen ticket'lardan veritabanında zaten olan externalId'ler (parça başına tek sorgu)
+    public Set<String> findExistingExternalIds(Collection<Ticket> tickets) {
+        return ticketRepository.findExistingExternalIds(
+            tickets.stream().map(Ticket::getExternalId).collect(Collectors.toList()));
+    }
+
+    // existingExternalIds önceden findExistingExternalIds ile alınır; tekrarlar yazmadan önce kontrol edilir,
+    // ticket'lar JDBC ile parça parça toplu kaydedilir
+    public void saveTickets(List<Ticket> tickets, Set<String> existingExternalIds) {
+        for (Ticket ticket : tickets) {
+            if (ticket.getExternalId() != null && !existingExternalIds.add(ticket.getExternalId())) {
+                throw new IllegalArgumentException("Ticket with externalId " + ticket.getExternalId() + " already exists");
+            }
+        }
+        bulkInsertRepository.insertTickets(tickets);
+    }
+
+    // Kullanıcısı sonradan gelen ertelenmiş creator/requester/assignee referanslarını bağlar (toplu kullanıcı
+    // kaydından sonra kendiliğinden çalışır; JPA ile tek tek eklenen kullanıcılar için elle çağrılır)
+    public int resolvePendingReferences() {
+        return bulkInsertRepository.resolvePendingTicketReferences();
+    }
+
     public void deleteTicket(Long id) {
         ticketRepository.deleteById(id);
     }
 
     public void save(Ticket ticket) {
-        // Duplicate externalId kontrolü
-        if (ticket.getExternalId() != null) {
-            Optional<Ticket> existingTicket = ticketRepository.findAll().stream()
-                .filter(t -> ticket.getExternalId().equals(t.getExternalId()))
-                .findFirst();
-            
-            if (existingTicket.isPresent()) {
-                throw new IllegalArgumentException("Ticket with externalId " + ticket.getExternalId() + " already exists");
-            }
+        // Duplicate externalId kontrolü (tüm tabloyu yüklemeden tek sorgu)
+        if (ticket.getExternalId() != null && ticketRepository.existsByExternalId(ticket.getExternalId())) {
+            throw new IllegalArgumentException("Ticket with externalId " + ticket.getExternalId() + " already exists");
         }
         
         ticketRepository.save(ticket);
     }
 
     @Override
-    public Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson) {
+    public Map<String, Object> importExcelWithMapping(ImportContext context) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = objectMapper.readValue(
-                mappingsJson, 
-                new TypeReference<List<Map<String, Object>>>() {}
-            );
+            // Excel verileri controller'da bir kez okunup dönüştürüldü
+            Map<String, String> columnMappings = context.getColumnMappings();
+            List<Map<String, Object>> transformedData = context.getTransformedData();
+            int rowOffset = context.getRowOffset();
+            
+            // Kullanıcı/grup/organizasyon referansları satır başına değil, batch başına toplu yüklenir
+            ReferenceResolver references = context.getReferenceResolver(ticketMapper::newReferenceResolver);
+            references.preload(transformedData);
             
-            // Mapping'i Map formatına çevir
-            Map<String, String> columnMappings = new HashMap<>();
-            for (Map<String, Object> mapping : mappings) {
-                String excelColumn = (String) mapping.get("excelColumn");
-                String grispiField = (String) mapping.get("grispiField");
-                if (excelColumn != null && grispiField != null) {
-                    columnMappings.put(excelColumn, grispiField);
+            // Satırlar (gerekirse paralel) map'lenip doğrulanır; sonuçlar satır sırasıyla döner
+            List<ParallelRowValidator.RowResult> rowResults = rowValidator.validate(transformedData.size(), i -> {
+                try {
+                    Ticket ticket = ticketMapper.mapWithMapping(transformedData.get(i), columnMappings, references);
+                    String externalId = ticket.getExternalId();
+                    if (externalId == null || externalId.trim().isEmpty()) {
+                        externalId = null;
+                    } else {
+                        context.claimExternalId(externalId, rowOffset + i);
+                    }
+                    
+                    TicketValidationResult validationResult = ticketValidator.validate(ticket);
+                    return validationResult.isValid()
+                        ? ParallelRowValidator.RowResult.valid(externalId, ticket)
+                        : ParallelRowValidator.RowResult.invalid(externalId, validationResult.getErrors());
+                } catch (Exception e) {
+                    return ParallelRowValidator.RowResult.failed(e);
                 }
-            }
+            });
             
-            // Excel verilerini oku
-            ExcelService excelService = new ExcelService();
-            ExcelService.ExcelData excelData = excelService.readFullExcel(file);
-            List<Map<String, Object>> transformedData = excelService.transformDataWithMapping(excelData, mappings);
+            // Çok sheet'li importta geçerli satırlar kaydedilir; veritabanında olan External ID'ler tek seferde alınır
+            boolean persist = context.isPersistValidRows();
+            List<Ticket> pendingTickets = new ArrayList<>();
+            List<Integer> pendingRows = new ArrayList<>();
+            Set<String> existingExternalIds = persist
+                ? ticketRepository.findExistingExternalIds(rowResults.stream()
+                    .filter(ParallelRowValidator.RowResult::isValid)
+                    .map(ParallelRowValidator.RowResult::getExternalId)
+                    .collect(Collectors.toList()))
+                : Collections.emptySet();
             
             int successCount = 0;
             int errorCount = 0;
-            List<String> errors = new ArrayList<>();
             List<Map<String, Object>> errorDetails = new ArrayList<>();
             
-            // Dosya içi duplicate kontrolü için Set
-            java.util.Set<String> seenExternalIds = new java.util.HashSet<>();
-            
-            for (int i = 0; i < transformedData.size(); i++) {
-                Map<String, Object> row = transformedData.get(i);
-                try {
-                    Ticket ticket = ticketMapper.mapWithMapping(row, columnMappings);
-                    
+            for (int i = 0; i < rowResults.size(); i++) {
+                ParallelRowValidator.RowResult rowResult = rowResults.get(i);
+                int rowNumber = rowOffset + i + 1;
+                
+                List<String> errors;
+                if (rowResult.getFailure() != null) {
+                    errors = List.of("Processing error: " + rowResult.getFailure().getMessage());
+                } else if (rowResult.getExternalId() != null
+                        && !context.isFirstOccurrence(rowResult.getExternalId(), rowOffset + i)) {
                     // Dosya içi External ID duplicate kontrolü
-                    if (ticket.getExternalId() != null && !ticket.getExternalId().trim().isEmpty()) {
-                        if (seenExternalIds.contains(ticket.getExternalId())) {
-                            errorCount++;
-                            errors.add("Row " + (i + 1) + ": Duplicate externalId in file: " + ticket.getExternalId());
-                            
-                            Map<String, Object> errorDetail = new HashMap<>();
-                            errorDetail.put("rowNumber", i + 1);
-                            errorDetail.put("originalData", row);
-                            errorDetail.put("errors", List.of("Duplicate externalId in file: " + ticket.getExternalId()));
-                            errorDetails.add(errorDetail);
-                            continue;
-                        }
-                        seenExternalIds.add(ticket.getExternalId());
+                    errors = List.of("Duplicate externalId in file: " + rowResult.getExternalId());
+                } else if (!rowResult.isValid()) {
+                    errors = rowResult.getErrors();
+                } else if (persist && existingExternalIds.contains(rowResult.getExternalId())) {
+                    errors = List.of("External ID already exists: " + rowResult.getExternalId());
+                } else {
+                    // Tek sheet importta DB'ye kayıt yapma - sadece validasyon
+                    if (persist) {
+                        pendingTickets.add((Ticket) rowResult.getEntity());
+                        pendingRows.add(i);
                     }
-                    
-                    TicketValidationResult validationResult = ticketValidator.validate(ticket);
-                    
-                    if (validationResult.isValid()) {
-                        // DB'ye kayıt yapma - sadece validasyon
-                        successCount++;
-                    } else {
+                    successCount++;
+                    continue;
+                }
+                
+                errorCount++;
+                Map<String, Object> errorDetail = new HashMap<>();
+                errorDetail.put("rowNumber", rowNumber);
+                errorDetail.put("originalData", transformedData.get(i));
+                errorDetail.put("errors", errors);
+                errorDetails.add(errorDetail);
+            }
+            
+            if (!pendingTickets.isEmpty()) {
+                try {
+                    bulkInsertRepository.insertTickets(pendingTickets);
+                } catch (BulkInsertRepository.PartialInsertException e) {
+                    // Önceki parçalar commit edildi: sadece kaydedilemeyen satırlar hatalı sayılır
+                    for (int j = e.getPersistedCount(); j < pendingTickets.size(); j++) {
+                        int i = pendingRows.get(j);
+                        successCount--;
                         errorCount++;
-                        errors.add("Row " + (i + 1) + " validation failed: " + String.join(", ", validationResult.getErrors()));
-                        
                         Map<String, Object> errorDetail = new HashMap<>();
-                        errorDetail.put("rowNumber", i + 1);
-                        errorDetail.put("originalData", row);
-                        errorDetail.put("errors", validationResult.getErrors());
+                        errorDetail.put("rowNumber", rowOffset + i + 1);
+                        errorDetail.put("originalData", transformedData.get(i));
+                        errorDetail.put("errors", List.of("Save error: " + e.getMessage()));
                         errorDetails.add(errorDetail);
                     }
-                } catch (Exception e) {
-                    errorCount++;
-                    errors.add("Row " + (i + 1) + " processing error: " + e.getMessage());
-                    
-                    Map<String, Object> errorDetail = new HashMap<>();
-                    errorDetail.put("rowNumber", i + 1);
-                    errorDetail.put("originalData", row);
-                    errorDetail.put("errors", List.of("Processing error: " + e.getMessage()));
-                    errorDetails.add(errorDetail);
                 }
             }
             
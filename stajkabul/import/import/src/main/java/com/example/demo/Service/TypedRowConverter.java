@@ -0,0 +1,225 @@
+package com.example.demo.Service;
+
+import com.example.demo.Service.ColumnType.CellKind;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Ham hücreleri kolon türüne göre değere çevirir; sayılar Double.toString ile biçimlendirilip
+ * mapper'da tekrar parse edilmez. İlk SAMPLE_ROWS satır tamponlanır, her kolonun türü başlık ve
+ * bu örneklerden bir kez çıkarılır, sonraki satırlar doğrudan çevrilir. Tür yalnızca hücreyle
+ * uyuşmadığında devreye girer: DATE kolonunda seri numarası tarihe, BOOLEAN kolonunda 1/0 ve
+ * DOĞRU/YANLIŞ true/false'a, INTEGER kolonunda metin olarak girilmiş üslü sayı sade sayıya çevrilir.
+ */
+class TypedRowConverter {
+
+    static final int SAMPLE_ROWS = 50;
+
+    // TicketMapper'ın beklediği tarih biçimi
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final Pattern SCIENTIFIC_NUMBER = Pattern.compile("\\s*-?\\d+(\\.\\d+)?[eE][+-]?\\d+\\s*");
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+
+    /**
+     * Tek hücrenin türü ve ham metni. Sayılarda metin sade ondalık gösterimdir ("5952159955");
+     * tarih biçimli hücrelerde serial Excel seri numarasıdır, metin yalnızca geçersiz tarihte kullanılır.
+     */
+    static final class RawCell {
+        final CellKind kind;
+        final String text;
+        final double serial;
+
+        private RawCell(CellKind kind, String text, double serial) {
+            this.kind = kind;
+            this.text = text;
+            this.serial = serial;
+        }
+
+        static RawCell string(String value) {
+            return new RawCell(CellKind.STRING, value, Double.NaN);
+        }
+
+        static RawCell bool(boolean value) {
+            return new RawCell(CellKind.BOOLEAN, Boolean.toString(value), Double.NaN);
+        }
+
+        // XML'deki sayı metninden (ör. "5952159955" ya da "5.952159955E9")
+        static RawCell number(String raw) {
+            String plain = plainNumber(raw);
+            return new RawCell(plain.indexOf('.') < 0 ? CellKind.INTEGRAL : CellKind.DECIMAL, plain, Double.NaN);
+        }
+
+        // Tarih biçimli sayı hücresi; raw yalnızca geçersiz tarihte sade sayıya çevrilir
+        static RawCell date(String raw, double serial) {
+            return new RawCell(CellKind.DATE, raw, serial);
+        }
+
+        // DOM hücresinden (.xls yolu): double değer metne çevrilip tekrar parse edilmez
+        static RawCell of(Cell cell) {
+            if (cell == null) return null;
+            CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+            switch (type) {
+                case STRING:
+                    return string(cell.getStringCellValue());
+                case BOOLEAN:
+                    return bool(cell.getBooleanCellValue());
+                case NUMERIC:
+                    double value = cell.getNumericCellValue();
+                    if (DateUtil.isCellDateFormatted(cell)) {
+                        return date(null, value);
+                    }
+                    String plain = plainNumber(value);
+                    return new RawCell(plain.indexOf('.') < 0 ? CellKind.INTEGRAL : CellKind.DECIMAL, plain, value);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final List<String> headers;
+    private final boolean date1904;
+    private final StreamingExcelReader.RowHandler rowHandler;
+
+    private ColumnType[] columnTypes;
+    private final List<RawCell[]> sampleRows = new ArrayList<>();
+    private final List<Integer> sampleRowNumbers = new ArrayList<>();
+
+    TypedRowConverter(List<String> headers, boolean date1904, StreamingExcelReader.RowHandler rowHandler) {
+        this.headers = headers;
+        this.date1904 = date1904;
+        this.rowHandler = rowHandler;
+    }
+
+    // cells başlık genişliğindedir; boş hücreler null
+    void onRow(int rowNumber, RawCell[] cells) {
+        if (columnTypes != null) {
+            rowHandler.onRow(rowNumber, convert(cells));
+            return;
+        }
+        sampleRows.add(cells);
+        sampleRowNumbers.add(rowNumber);
+        if (sampleRows.size() >= SAMPLE_ROWS) {
+            flushSamples();
+        }
+    }
+
+    // Sheet bitti: örnek sayısına ulaşılmadıysa türleri eldeki satırlardan çıkar
+    void finish() {
+        if (columnTypes == null) {
+            flushSamples();
+        }
+    }
+
+    private void flushSamples() {
+        columnTypes = new ColumnType[headers.size()];
+        for (int c = 0; c < columnTypes.length; c++) {
+            List<CellKind> kinds = new ArrayList<>(sampleRows.size());
+            for (RawCell[] row : sampleRows) {
+                kinds.add(row[c] != null ? row[c].kind : CellKind.EMPTY);
+            }
+            columnTypes[c] = ColumnType.infer(headers.get(c), kinds);
+        }
+        rowHandler.onColumnTypes(Arrays.asList(columnTypes));
+
+        for (int i = 0; i < sampleRows.size(); i++) {
+            rowHandler.onRow(sampleRowNumbers.get(i), convert(sampleRows.get(i)));
+        }
+        sampleRows.clear();
+        sampleRowNumbers.clear();
+    }
+
+    private List<String> convert(RawCell[] cells) {
+        List<String> values = new ArrayList<>(cells.length);
+        for (int c = 0; c < cells.length; c++) {
+            values.add(convert(cells[c], columnTypes[c]));
+        }
+        return values;
+    }
+
+    private String convert(RawCell cell, ColumnType columnType) {
+        if (cell == null) return "";
+        switch (cell.kind) {
+            case STRING:
+                return convertText(cell.text, columnType);
+            case BOOLEAN:
+                return cell.text;
+            case DATE:
+                return toDateTime(cell);
+            case INTEGRAL:
+                // Boolean kolonunda 1/0 girilmiş değerler mapper'ın Boolean.parseBoolean'ı için true/false olur
+                if (columnType == ColumnType.BOOLEAN && (cell.text.equals("1") || cell.text.equals("0"))) {
+                    return Boolean.toString(cell.text.equals("1"));
+                }
+                // fall through
+            case DECIMAL:
+                // Tarih kolonunda biçimsiz girilmiş seri numaraları da tarihe çevrilir
+                return columnType == ColumnType.DATE ? toDateTime(cell) : cell.text;
+            default:
+                return "";
+        }
+    }
+
+    // Metin olarak girilmiş değerler: telefon kolonunda "5.952159955E9", boolean kolonunda "DOĞRU"/"YANLIŞ"
+    private static String convertText(String text, ColumnType columnType) {
+        switch (columnType) {
+            case INTEGER:
+                return SCIENTIFIC_NUMBER.matcher(text).matches() ? plainNumber(text.trim()) : text;
+            case BOOLEAN:
+                String lower = text.trim().toLowerCase(TURKISH);
+                if (lower.equals("doğru") || lower.equals("evet")) return "true";
+                if (lower.equals("yanlış") || lower.equals("hayır")) return "false";
+                return text;
+            default:
+                return text;
+        }
+    }
+
+    private String toDateTime(RawCell cell) {
+        double value = Double.isNaN(cell.serial) ? Double.parseDouble(cell.text) : cell.serial;
+        if (!DateUtil.isValidExcelDate(value)) {
+            return cell.text != null ? plainNumber(cell.text) : plainNumber(value);
+        }
+        return DateUtil.getLocalDateTime(value, date1904).format(DATE_TIME_FORMAT);
+    }
+
+    // "5.952159955E9" -> "5952159955", "1.0" -> "1"; zaten sade olan tam sayılar olduğu gibi döner
+    static String plainNumber(String raw) {
+        if (isPlainInteger(raw)) {
+            return raw;
+        }
+        return new BigDecimal(raw).stripTrailingZeros().toPlainString();
+    }
+
+    // Double.toString'in sade olmayan (üslü) çıktısı yalnızca gerektiğinde BigDecimal'e gider
+    static String plainNumber(double value) {
+        if (isIntegral(value)) {
+            return Long.toString((long) value);
+        }
+        String text = Double.toString(value);
+        return text.indexOf('E') < 0 ? text : new BigDecimal(text).stripTrailingZeros().toPlainString();
+    }
+
+    // long'a kayıpsız sığan tam sayı değerleri
+    private static boolean isIntegral(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15;
+    }
+
+    private static boolean isPlainInteger(String raw) {
+        int start = raw.startsWith("-") ? 1 : 0;
+        if (start == raw.length()) return false;
+        for (int i = start; i < raw.length(); i++) {
+            char ch = raw.charAt(i);
+            if (ch < '0' || ch > '9') return false;
+        }
+        return true;
+    }
+}
@@ -3,38 +3,44 @@ package com.example.demo.Service;
 import com.example.demo.Entity.User;
 import com.example.demo.Entity.enums.Language;
 import com.example.demo.Entity.enums.Role;
+import com.example.demo.Repository.BulkInsertRepository;
 import com.example.demo.Repository.UserRepository;
 import com.example.demo.Mapper.UserMapper;
 import com.example.demo.Validation.UserValidator;
 import com.example.demo.Validation.UserValidationResult;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.HashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService implements ImportService {
 
     private final UserRepository userRepository;
+    private final BulkInsertRepository bulkInsertRepository;
     private final UserMapper userMapper;
     private final UserValidator userValidator;
-    private final ObjectMapper objectMapper;
+    private final ParallelRowValidator rowValidator;
 
     public UserService(UserRepository userRepository, 
+                       BulkInsertRepository bulkInsertRepository,
                        UserMapper userMapper, 
                        UserValidator userValidator,
-                       ObjectMapper objectMapper) {
+                       ParallelRowValidator rowValidator) {
         this.userRepository = userRepository;
+        this.bulkInsertRepository = bulkInsertRepository;
         this.userMapper = userMapper;
         this.userValidator = userValidator;
-        this.objectMapper = objectMapper;
+        this.rowValidator = rowValidator;
     }
 
     // Tüm kullanıcıları getir
@@ -50,90 +56,142 @@ public class UserService implements ImportService {
     // Yeni kullanıcı kaydet
     public User saveUser(User user) {
         // Sadece External ID tekrar kontrolü - aynı ID varsa kaydetme
-        if (user.getExternalId() != null && !user.getExternalId().trim().isEmpty()) {
-            Optional<User> existingUser = userRepository.findByExternalId(user.getExternalId());
-            if (existingUser.isPresent()) {
-                throw new IllegalArgumentException("External ID already exists: " + user.getExternalId());
-            }
+        if (user.getExternalId() != null && !user.getExternalId().trim().isEmpty()
+                && userRepository.existsByExternalId(user.getExternalId())) {
+            throw new IllegalArgumentException("External ID already exists: " + user.getExternalId());
         }
         
         User savedUser = userRepository.save(user);
         return savedUser;
     }
 
+    // Toplu kayıt için: verilen kullanıcılardan veritabanında zaten olan External ID'ler (parça başına tek sorgu)
+    public Set<String> findExistingExternalIds(Collection<User> users) {
+        return userRepository.findExistingExternalIds(
+            users.stream().map(User::getExternalId).collect(Collectors.toList()));
+    }
+
+    // existingExternalIds önceden findExistingExternalIds ile alınır; tekrarlar yazmadan önce kontrol edilir,
+    // kullanıcılar JDBC ile parça parça toplu kaydedilir
+    public void saveUsers(List<User> users, Set<String> existingExternalIds) {
+        for (User user : users) {
+            if (user.getExternalId() != null && !user.getExternalId().trim().isEmpty()
+                    && !existingExternalIds.add(user.getExternalId())) {
+                throw new IllegalArgumentException("External ID already exists: " + user.getExternalId());
+            }
+        }
+        bulkInsertRepository.insertUsers(users);
+    }
+
     // Kullanıcı sil
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
     }
 
     @Override
-    public Map<String, Object> importExcelWithMapping(MultipartFile file, String mappingsJson) {
+    public Map<String, Object> importExcelWithMapping(ImportContext context) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // Mapping JSON'ını parse et
-            List<Map<String, Object>> mappings = objectMapper.readValue(
-                mappingsJson, 
-                new TypeReference<List<Map<String, Object>>>() {}
-            );
+            // Excel verileri controller'da bir kez okunup dönüştürüldü
+            List<Map<String, Object>> mappings = context.getMappings();
+            List<Map<String, Object>> transformedData = context.getTransformedData();
+            int rowOffset = context.getRowOffset();
             
-            // Excel verilerini oku
-            ExcelService excelService = new ExcelService();
-            ExcelService.ExcelData excelData = excelService.readFullExcel(file);
-            List<Map<String, Object>> transformedData = excelService.transformDataWithMapping(excelData, mappings);
+            // Organizasyon ve gruplar satır başına değil, batch başına toplu bulunur/oluşturulur
+            UserMapper.ContactReferences references = userMapper.resolveReferences(transformedData, context.getWorkbookReferences());
+            
+            // Satırlar (gerekirse paralel) map'lenip doğrulanır; sonuçlar satır sırasıyla döner
+            List<ParallelRowValidator.RowResult> rowResults = rowValidator.validate(transformedData.size(), i -> {
+                try {
+                    User user = userMapper.mapWithMapping(transformedData.get(i), mappings, references);
+                    String externalId = user.getExternalId();
+                    if (externalId == null || externalId.trim().isEmpty()) {
+                        externalId = null;
+                    } else {
+                        context.claimExternalId(externalId, rowOffset + i);
+                    }
+                    
+                    UserValidationResult validationResult = userValidator.validate(user);
+                    return validationResult.isValid()
+                        ? ParallelRowValidator.RowResult.valid(externalId, user)
+                        : ParallelRowValidator.RowResult.invalid(externalId, validationResult.getErrors());
+                } catch (Exception e) {
+                    return ParallelRowValidator.RowResult.failed(e);
+                }
+            });
+            
+            // Çok sheet'li importta geçerli satırlar kaydedilir; veritabanında olan External ID'ler tek seferde alınır
+            boolean persist = context.isPersistValidRows();
+            List<User> pendingUsers = new ArrayList<>();
+            List<Integer> pendingRows = new ArrayList<>();
+            Set<String> existingExternalIds = persist
+                ? userRepository.findExistingExternalIds(rowResults.stream()
+                    .filter(ParallelRowValidator.RowResult::isValid)
+                    .map(ParallelRowValidator.RowResult::getExternalId)
+                    .collect(Collectors.toList()))
+                : Collections.emptySet();
             
             int successCount = 0;
             int errorCount = 0;
             List<Map<String, Object>> errorDetails = new ArrayList<>();
             
-            // Dosya içi duplicate kontrolü için Set
-            java.util.Set<String> seenExternalIds = new java.util.HashSet<>();
+            for (int i = 0; i < rowResults.size(); i++) {
+                ParallelRowValidator.RowResult rowResult = rowResults.get(i);
+                Map<String, Object> row = transformedData.get(i);
+                // Excel'de header satırı olduğu için +2 yapıyoruz (header + 1-based indexing)
+                int actualRowNumber = rowOffset + i + 2;
+                
+                List<String> errors;
+                if (rowResult.getFailure() != null) {
+                    errors = List.of("Row processing error: " + rowResult.getFailure().getMessage());
+                } else if (rowResult.getExternalId() != null
+                        && !context.isFirstOccurrence(rowResult.getExternalId(), rowOffset + i)) {
+                    // Dosya içi External ID duplicate kontrolü
+                    errors = List.of("Duplicate External ID in file: " + rowResult.getExternalId());
+                } else if (!rowResult.isValid()) {
+                    errors = rowResult.getErrors();
+                } else if (persist && existingExternalIds.contains(rowResult.getExternalId())) {
+                    errors = List.of("External ID already exists: " + rowResult.getExternalId());
+                } else {
+                    // Tek sheet importta DB'ye kayıt yapma - sadece validasyon
+                    if (persist) {
+                        pendingUsers.add((User) rowResult.getEntity());
+                        pendingRows.add(i);
+                    }
+                    successCount++;
+                    continue;
+                }
+                
+                errorCount++;
+                Map<String, Object> errorDetail = new HashMap<>();
+                errorDetail.put("rowNumber", actualRowNumber);
+                errorDetail.put("originalData", row);
+                errorDetail.put("errors", errors);
+                errorDetails.add(errorDetail);
+            }
             
-                         for (int i = 0; i < transformedData.size(); i++) {
-                 Map<String, Object> row = transformedData.get(i);
-                 // Excel'de header satırı olduğu için +2 yapıyoruz (header + 1-based indexing)
-                 int actualRowNumber = i + 2;
-                 try {
-                     User user = userMapper.mapWithMapping(row, mappings);
-                     
-                     // Dosya içi External ID duplicate kontrolü
-                     if (user.getExternalId() != null && !user.getExternalId().trim().isEmpty()) {
-                         if (seenExternalIds.contains(user.getExternalId())) {
-                             errorCount++;
-                                                      Map<String, Object> errorDetail = new HashMap<>();
-                         errorDetail.put("rowNumber", actualRowNumber);
-                         errorDetail.put("originalData", row);
-                         errorDetail.put("errors", List.of("Duplicate External ID in file: " + user.getExternalId()));
-                         errorDetails.add(errorDetail);
-                             continue; // Bu satırı atla, sonrakine geç
-                         }
-                         seenExternalIds.add(user.getExternalId());
-                     }
-                     
-                     // Telefon ve email duplicate kontrolü yok - sadece dosya içi external ID kontrolü
-                     
-                    UserValidationResult validationResult = userValidator.validate(user);
-                    
-                    if (validationResult.isValid()) {
-                        // DB'ye kayıt yapma - sadece validasyon
-                        successCount++;
-                     } else {
-                         errorCount++;
-                         Map<String, Object> errorDetail = new HashMap<>();
-                         errorDetail.put("rowNumber", actualRowNumber);
-                         errorDetail.put("originalData", row);
-                         errorDetail.put("errors", validationResult.getErrors());
-                         errorDetails.add(errorDetail);
-                     }
-                 } catch (Exception e) {
-                     errorCount++;
-                     Map<String, Object> errorDetail = new HashMap<>();
-                     errorDetail.put("rowNumber", actualRowNumber);
-                     errorDetail.put("originalData", row);
-                     errorDetail.put("errors", List.of("Row processing error: " + e.getMessage()));
-                     errorDetails.add(errorDetail);
-                 }
-             }
+            if (!pendingUsers.isEmpty()) {
+                int persistedCount = pendingUsers.size();
+                try {
+                    bulkInsertRepository.insertUsers(pendingUsers);
+                } catch (BulkInsertRepository.PartialInsertException e) {
+                    // Önceki parçalar commit edildi: sadece kaydedilemeyen satırlar hatalı sayılır
+                    persistedCount = e.getPersistedCount();
+                    for (int j = persistedCount; j < pendingUsers.size(); j++) {
+                        int i = pendingRows.get(j);
+                        successCount--;
+                        errorCount++;
+                        Map<String, Object> errorDetail = new HashMap<>();
+                        errorDetail.put("rowNumber", rowOffset + i + 2);
+                        errorDetail.put("originalData", transformedData.get(i));
+                        errorDetail.put("errors", List.of("Save error: " + e.getMessage()));
+                        errorDetails.add(errorDetail);
+                    }
+                }
+                // Ticket aşaması creator/requester/assignee'yi bu kayıtlardan çözer
+                context.getWorkbookReferences().registerUsers(pendingUsers.subList(0, persistedCount));
+            }
             
             result.put("success", true);
             result.put("totalRecords", transformedData.size());
@@ -158,15 +216,36 @@ public class UserService implements ImportService {
         result.setErrorCount(0);
         result.setErrors(new ArrayList<>());
 
+        // Önce tüm satırlar User'a çevrilir, var olan External ID'ler tek seferde (IN sorgularıyla) alınır
+        List<User> users = new ArrayList<>(data.size());
+        List<Exception> conversionErrors = new ArrayList<>(data.size());
+        for (Map<String, Object> row : data) {
+            try {
+                users.add(createUserFromMap(row));
+                conversionErrors.add(null);
+            } catch (Exception e) {
+                users.add(null);
+                conversionErrors.add(e);
+            }
+        }
+        Set<String> existingExternalIds = userRepository.findExistingExternalIds(users.stream()
+            .filter(Objects::nonNull)
+            .map(User::getExternalId)
+            .collect(Collectors.toList()));
+
+        // Kaydedilecek kullanıcılar ve satır numaraları; yazma döngüden sonra toplu yapılır
+        List<User> pendingUsers = new ArrayList<>();
+        List<Integer> pendingRows = new ArrayList<>();
         for (int i = 0; i < data.size(); i++) {
-            Map<String, Object> row = data.get(i);
             try {
-                User user = createUserFromMap(row);
+                if (conversionErrors.get(i) != null) {
+                    throw conversionErrors.get(i);
+                }
+                User user = users.get(i);
                 
                 // Sadece External ID kontrolü - aynı ID varsa kaydetme
                 if (user.getExternalId() != null && !user.getExternalId().trim().isEmpty()) {
-                    Optional<User> existingUser = userRepository.findByExternalId(user.getExternalId());
-                    if (existingUser.isPresent()) {
+                    if (existingExternalIds.contains(user.getExternalId())) {
                         result.setErrorCount(result.getErrorCount() + 1);
                         result.getErrors().add("Satır " + (i + 1) + ": External ID zaten mevcut - " + user.getExternalId());
                         continue; // Bu satırı atla, sonrakine geç
@@ -175,14 +254,38 @@ public class UserService implements ImportService {
                 
                 // Email ve telefon duplicate kontrolü kaldırıldı - artık kayıt edilebilir
                 
-                userRepository.save(user);
-                result.setSuccessCount(result.getSuccessCount() + 1);
+                pendingUsers.add(user);
+                pendingRows.add(i);
+                if (user.getExternalId() != null) {
+                    existingExternalIds.add(user.getExternalId());
+                }
             } catch (Exception e) {
                 result.setErrorCount(result.getErrorCount() + 1);
                 result.getErrors().add("Satır " + (i + 1) + ": " + e.getMessage());
             }
         }
 
+        int persistedCount = pendingUsers.size();
+        try {
+            bulkInsertRepository.insertUsers(pendingUsers);
+        } catch (BulkInsertRepository.PartialInsertException e) {
+            // Hata veren parça ve sonrası satır satır kaydedilir ki hata doğru satıra yazılsın
+            persistedCount = e.getPersistedCount();
+        }
+        for (int j = 0; j < pendingUsers.size(); j++) {
+            User user = pendingUsers.get(j);
+            if (j >= persistedCount) {
+                try {
+                    userRepository.save(user);
+                } catch (Exception e) {
+                    result.setErrorCount(result.getErrorCount() + 1);
+                    result.getErrors().add("Satır " + (pendingRows.get(j) + 1) + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            result.setSuccessCount(result.getSuccessCount() + 1);
+        }
+
         return result;
     }
 
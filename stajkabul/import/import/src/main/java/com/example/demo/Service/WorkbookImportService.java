@@ -0,0 +1,206 @@
+package com.example.demo.Service;
+
+import com.example.demo.Factory.ImportServiceFactory;
+import com.example.demo.Mapper.ReferenceResolver;
+import com.example.demo.Mapper.TicketMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tek bir Excel dosyasındaki birden fazla sheet'i (Organizations, Groups, Contacts, Tickets ...) tek işte import eder.
+ * Her sheet ImportServiceFactory üzerinden bir import türüne eşlenir ve türler arasındaki bağımlılıklardan
+ * (Group -> Organization -> User -> Ticket, Group -> CustomField) aşamalar kurulur. Birbirine bağlı olmayan
+ * sheet'ler importExecutor'da paralel çalışır; bir sheet, bağlı olduğu sheet'lerin hepsi bittikten sonra başlar.
+ * Aşamalar doğrulanan satırları kaydeder. Kaydedilen organizasyon, grup ve kişiler iş boyunca paylaşılan
+ * ReferenceResolver'a eklenir; sonraki aşamalar bunları veritabanına tekrar sormadan kullanır.
+ */
+@Service
+public class WorkbookImportService {
+
+    // import türü -> önce bitmesi gereken türler
+    private static final Map<String, List<String>> DEPENDENCIES = Map.of(
+        // Organizasyon satırındaki "group" isimle aranır
+        "Organization", List.of("Group"),
+        "Group", List.of(),
+        "User", List.of("Organization", "Group"),
+        "Contact", List.of("Organization", "Group"),
+        "Ticket", List.of("Organization", "Group", "User", "Contact"),
+        "CustomField", List.of("Group"));
+
+    private final ImportServiceFactory serviceFactory;
+    private final ExcelService excelService;
+    private final TicketMapper ticketMapper;
+    private final TaskExecutor importExecutor;
+    private final BatchedImportRunner batchedImportRunner;
+
+    public WorkbookImportService(ImportServiceFactory serviceFactory,
+                                 ExcelService excelService,
+                                 TicketMapper ticketMapper,
+                                 @Qualifier("importExecutor") TaskExecutor importExecutor,
+                                 BatchedImportRunner batchedImportRunner) {
+        this.serviceFactory = serviceFactory;
+        this.excelService = excelService;
+        this.ticketMapper = ticketMapper;
+        this.importExecutor = importExecutor;
+        this.batchedImportRunner = batchedImportRunner;
+    }
+
+    /**
+     * Bir sheet'in hangi türde ve hangi mapping'le import edileceği.
+     * importType verilmezse sheet adından çıkarılır ("Contacts" -> "Contact").
+     */
+    public static class SheetImport {
+        private String sheetName;
+        private String importType;
+        private List<Map<String, Object>> mappings;
+
+        public String getSheetName() { return sheetName; }
+        public void setSheetName(String sheetName) { this.sheetName = sheetName; }
+
+        public String getImportType() { return importType; }
+        public void setImportType(String importType) { this.importType = importType; }
+
+        public List<Map<String, Object>> getMappings() { return mappings; }
+        public void setMappings(List<Map<String, Object>> mappings) { this.mappings = mappings; }
+    }
+
+    public Map<String, Object> importWorkbook(MultipartFile file, List<SheetImport> sheetImports) throws Exception {
+        Map<String, ColumnarExcelData> sheets = excelService.readColumnarWorkbook(file);
+
+        // Sheet'leri türlerine eşle; dosya bir kez okunur, tüm aşamalar aynı önbelleği paylaşır
+        ReferenceResolver references = ticketMapper.newReferenceResolver();
+        Map<String, ImportContext> contexts = new LinkedHashMap<>();
+        for (SheetImport sheetImport : sheetImports) {
+            String sheetName = sheetImport.getSheetName();
+            ColumnarExcelData data = sheets.get(sheetName);
+            if (data == null) {
+                throw new IllegalArgumentException("Sheet bulunamadı ya da başlık satırı yok: " + sheetName);
+            }
+            if (contexts.containsKey(sheetName)) {
+                throw new IllegalArgumentException("Sheet birden fazla kez verildi: " + sheetName);
+            }
+            String importType = resolveImportType(sheetImport);
+            contexts.put(sheetName, new ImportContext(importType, data, sheetImport.getMappings(), references));
+        }
+
+        List<List<String>> stages = buildStages(contexts);
+
+        // Her sheet, bağlı olduğu sheet'lerin future'ları tamamlanınca kuyruğa girer
+        Map<String, CompletableFuture<Map<String, Object>>> futures = new ConcurrentHashMap<>();
+        for (List<String> stage : stages) {
+            for (String sheetName : stage) {
+                ImportContext context = contexts.get(sheetName);
+                List<String> upstream = upstreamSheets(sheetName, contexts);
+                CompletableFuture<?>[] dependencies = upstream.stream().map(futures::get).toArray(CompletableFuture[]::new);
+                futures.put(sheetName, CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(ignored -> runSheet(context, upstream, futures), importExecutor)
+                    .exceptionally(e -> failure("Import error: " + e.getMessage())));
+            }
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+
+        boolean success = true;
+        Map<String, Object> sheetResults = new LinkedHashMap<>();
+        for (Map.Entry<String, ImportContext> entry : contexts.entrySet()) {
+            Map<String, Object> sheetResult = new LinkedHashMap<>();
+            sheetResult.put("importType", entry.getValue().getImportType());
+            sheetResult.putAll(futures.get(entry.getKey()).join());
+            success &= Boolean.TRUE.equals(sheetResult.get("success"));
+            sheetResults.put(entry.getKey(), sheetResult);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", success);
+        result.put("stages", stages);
+        result.put("sheets", sheetResults);
+        return result;
+    }
+
+    // Bağlı olduğu sheet'lerden biri tamamen başarısızsa bu sheet çalıştırılmaz (referansları eksik kalır)
+    private Map<String, Object> runSheet(ImportContext context, List<String> upstream,
+                                         Map<String, CompletableFuture<Map<String, Object>>> futures) {
+        for (String sheetName : upstream) {
+            if (!Boolean.TRUE.equals(futures.get(sheetName).join().get("success"))) {
+                return failure("Skipped: dependency sheet failed: " + sheetName);
+            }
+        }
+        return batchedImportRunner.run(serviceFactory.getService(context.getImportType()), context);
+    }
+
+    private Map<String, Object> failure(String error) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("error", error);
+        return result;
+    }
+
+    private String resolveImportType(SheetImport sheetImport) {
+        String importType = sheetImport.getImportType();
+        if (importType != null && !importType.isBlank()) {
+            if (!serviceFactory.isSupported(importType)) {
+                throw new IllegalArgumentException("Desteklenmeyen import türü: " + importType);
+            }
+            return importType;
+        }
+
+        // Sheet adı tekil ya da çoğul tür adı olabilir: "Ticket", "Tickets"
+        String sheetName = sheetImport.getSheetName().trim();
+        if (serviceFactory.isSupported(sheetName)) {
+            return sheetName;
+        }
+        if (sheetName.endsWith("s") && serviceFactory.isSupported(sheetName.substring(0, sheetName.length() - 1))) {
+            return sheetName.substring(0, sheetName.length() - 1);
+        }
+        throw new IllegalArgumentException("Sheet için import türü belirlenemedi: " + sheetName);
+    }
+
+    // Aynı işteki, bu sheet'in türünün bağlı olduğu türlerdeki sheet'ler
+    private List<String> upstreamSheets(String sheetName, Map<String, ImportContext> contexts) {
+        List<String> dependencies = DEPENDENCIES.getOrDefault(contexts.get(sheetName).getImportType(), List.of());
+        List<String> upstream = new ArrayList<>();
+        for (Map.Entry<String, ImportContext> entry : contexts.entrySet()) {
+            if (dependencies.contains(entry.getValue().getImportType())) {
+                upstream.add(entry.getKey());
+            }
+        }
+        return upstream;
+    }
+
+    // Aşama = bağlı olduğu en uzun zincirin uzunluğu; aynı aşamadaki sheet'ler birbirinden bağımsızdır
+    private List<List<String>> buildStages(Map<String, ImportContext> contexts) {
+        Map<String, Integer> levels = new HashMap<>();
+        List<List<String>> stages = new ArrayList<>();
+        for (String sheetName : contexts.keySet()) {
+            int level = level(sheetName, contexts, levels);
+            while (stages.size() <= level) {
+                stages.add(new ArrayList<>());
+            }
+            stages.get(level).add(sheetName);
+        }
+        return stages;
+    }
+
+    private int level(String sheetName, Map<String, ImportContext> contexts, Map<String, Integer> levels) {
+        Integer known = levels.get(sheetName);
+        if (known != null) {
+            return known;
+        }
+        // DEPENDENCIES döngüsüz olduğu için özyineleme biter
+        int level = 0;
+        for (String upstream : upstreamSheets(sheetName, contexts)) {
+            level = Math.max(level, level(upstream, contexts, levels) + 1);
+        }
+        levels.put(sheetName, level);
+        return level;
+    }
+}
@@ -0,0 +1,20 @@
+-- Daha önce ddl-auto ile üretilen şema; mevcut veritabanlarında tablolar zaten varsa dokunulmaz
+create table if not exists groups (id integer, name varchar(255), primary key (id));
+
+create table if not exists organizations (id integer, description varchar(255), details varchar(255), external_id varchar(255), name varchar(255), notes varchar(255), group_id bigint, primary key (id));
+create table if not exists organization_domains (organization_id bigint not null, domain varchar(255));
+create table if not exists organization_tags (organization_id bigint not null, tag varchar(255));
+
+create table if not exists users (id integer, enabled boolean not null, external_id varchar(255), first_name varchar(255), language varchar(255), last_name varchar(255), phone varchar(255), role varchar(255), organization_id bigint, primary key (id));
+create table if not exists user_emails (user_id bigint not null, email varchar(255));
+create table if not exists user_tags (user_id bigint not null, tag varchar(255));
+create table if not exists user_groups (user_id bigint not null, group_id bigint not null);
+
+create table if not exists tickets (id integer, channel varchar(255), created_at datetime, description varchar(255), external_id varchar(255), form varchar(255), priority varchar(255), solved_at datetime, status varchar(255), subject varchar(255), type varchar(255), updated_at datetime, assignee_id bigint, assignee_group_id bigint, creator_id bigint, organization_id bigint, requester_id bigint, primary key (id));
+create table if not exists ticket_tags (ticket_id bigint not null, tag varchar(255));
+
+create table if not exists custom_fields (id integer, description varchar(255), description_for_agents varchar(255), description_for_customers varchar(255), enabled boolean not null, key varchar(255), name varchar(255), permission varchar(255), required boolean not null, title_for_agents varchar(255), title_for_customers varchar(255), type varchar(255), primary key (id));
+create table if not exists custom_field_options (custom_field_id bigint not null, option_value varchar(255));
+create table if not exists custom_field_groups (custom_field_id bigint not null, group_id bigint not null);
+
+create table if not exists mapping_templates (id integer, created_at datetime not null, created_by varchar(255) not null, description TEXT, import_type varchar(255) not null, is_active boolean, is_default boolean, mappings_json TEXT not null, name varchar(255) not null, updated_at datetime not null, primary key (id));
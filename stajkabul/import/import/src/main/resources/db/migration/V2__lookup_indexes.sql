@@ -0,0 +1,25 @@
+-- Import sırasında kullanılan arama kolonları. Unique index'ler NULL değerleri çakışma saymaz.
+-- Mevcut veride tekrar eden externalId/isim varsa bu migration hata verir; önce tekrarlar temizlenmelidir.
+create unique index if not exists ux_users_external_id on users (external_id);
+create index if not exists ix_users_phone on users (phone);
+create index if not exists ix_users_organization_id on users (organization_id);
+create index if not exists ix_user_emails_email on user_emails (email);
+create index if not exists ix_user_emails_user_id on user_emails (user_id);
+create index if not exists ix_user_tags_user_id on user_tags (user_id);
+create index if not exists ix_user_groups_user_id on user_groups (user_id);
+
+create unique index if not exists ux_organizations_external_id on organizations (external_id);
+create index if not exists ix_organization_domains_organization_id on organization_domains (organization_id);
+create index if not exists ix_organization_tags_organization_id on organization_tags (organization_id);
+
+create unique index if not exists ux_groups_name on groups (name);
+
+create unique index if not exists ux_tickets_external_id on tickets (external_id);
+create index if not exists ix_tickets_requester_id on tickets (requester_id);
+create index if not exists ix_ticket_tags_ticket_id on ticket_tags (ticket_id);
+
+create unique index if not exists ux_custom_fields_key on custom_fields (key);
+create index if not exists ix_custom_field_options_custom_field_id on custom_field_options (custom_field_id);
+create index if not exists ix_custom_field_groups_custom_field_id on custom_field_groups (custom_field_id);
+
+create index if not exists ix_mapping_templates_import_type on mapping_templates (import_type);
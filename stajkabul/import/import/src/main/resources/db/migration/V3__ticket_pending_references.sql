@@ -0,0 +1,4 @@
+-- Ticket importunda henüz olmayan kullanıcılara verilen referanslar (role: creator, requester, assignee).
+-- Kullanıcılar eklendikçe BulkInsertRepository.resolvePendingTicketReferences tek UPDATE ... FROM ile bağlar.
+create table if not exists ticket_pending_references (ticket_id bigint not null, role varchar(16) not null, external_id varchar(255) not null, primary key (ticket_id, role));
+create index if not exists ix_ticket_pending_references_external_id on ticket_pending_references (external_id);
@@ -0,0 +1,112 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Config.SchemaMigrator;
+import com.example.demo.Entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Geçici bir SQLite dosyasında (migration'larla kurulmuş şema) BulkInsertRepository'nin parça parça
+ * yazması: ID blokları mevcut max(id)'den devam eder, hata veren parçanın id'leri boşa döner ve
+ * kaydedilen baş kısmın boyu exception'la döner.
+ */
+class BulkInsertRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteWriter writer;
+    private JdbcTemplate reader;
+    private BulkInsertRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("bulk.sqlite");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        new SchemaMigrator(dataSource).migrate();
+        reader = new JdbcTemplate(dataSource);
+
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        ImportConfig importConfig = new ImportConfig();
+        importConfig.getProcessing().setInsertBatchSize(2);
+        writer = new SqliteWriter(dataSourceProperties, importConfig);
+        writer.start();
+        repository = new BulkInsertRepository(writer, importConfig);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.stop();
+    }
+
+    @Test
+    void allocateIdsContinuesAfterExistingRows() {
+        assertEquals(1L, (long) writer.execute(jdbc -> repository.allocateIds(jdbc, "users")));
+
+        reader.update("insert into users (id, enabled, external_id) values (41, 1, 'existing')");
+        assertEquals(42L, (long) writer.execute(jdbc -> repository.allocateIds(jdbc, "users")));
+    }
+
+    @Test
+    void insertUsersAssignsContiguousIdsAcrossChunks() {
+        reader.update("insert into users (id, enabled, external_id) values (10, 1, 'existing')");
+        List<User> users = users("u1", "u2", "u3", "u4", "u5");
+        users.get(0).setEmails(List.of("u1@example.com", "u1@example.org"));
+        users.get(4).setEmails(List.of("u5@example.com"));
+
+        repository.insertUsers(users);
+
+        assertEquals(List.of(11L, 12L, 13L, 14L, 15L), users.stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(List.of("existing", "u1", "u2", "u3", "u4", "u5"),
+                reader.queryForList("select external_id from users order by id", String.class));
+        assertEquals(List.of("11:u1@example.com", "11:u1@example.org", "15:u5@example.com"),
+                reader.queryForList("select user_id || ':' || email from user_emails order by user_id, email", String.class));
+    }
+
+    @Test
+    void failedChunkClearsItsIdsAndKeepsEarlierChunks() {
+        reader.update("insert into users (id, enabled, external_id) values (1, 1, 'u3')");
+        // Parçalar: [u1, u2] [u3, u4] [u5]; ikinci parça unique externalId'ye çarpar
+        List<User> users = users("u1", "u2", "u3", "u4", "u5");
+
+        BulkInsertRepository.PartialInsertException error =
+                assertThrows(BulkInsertRepository.PartialInsertException.class, () -> repository.insertUsers(users));
+
+        assertEquals(2, error.getPersistedCount());
+
+        assertEquals(2L, (long) users.get(0).getId());
+        assertEquals(3L, (long) users.get(1).getId());
+        for (User user : users.subList(2, users.size())) {
+            assertNull(user.getId(), user.getExternalId());
+        }
+        assertEquals(List.of("u3", "u1", "u2"),
+                reader.queryForList("select external_id from users order by id", String.class));
+    }
+
+    private static List<User> users(String... externalIds) {
+        List<User> users = new ArrayList<>();
+        for (String externalId : Arrays.asList(externalIds)) {
+            User user = new User();
+            user.setExternalId(externalId);
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.demo.Repository;
+
+import com.example.demo.Config.ImportConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Geçici bir SQLite dosyası üzerinde SqliteWriter: grup içinde savepoint izolasyonu, yazmadan çıkan Error, commit hatası
+ * ve kapanırken kuyruğun boşaltılması. Yazmaları aynı gruba almak için yazıcı thread'i bir latch'te
+ * bekletilir, diğer yazmalar kuyrukta biriktikten sonra bırakılır.
+ */
+class SqliteWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private SqliteWriter writer;
+    private JdbcTemplate reader;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        callers.shutdownNow();
+        writer.stop();
+    }
+
+    @Test
+    void failedWriteIsRolledBackToItsSavepointOnly() throws Exception {
+        start("");
+        reader.execute("create table items (id integer primary key, name varchar(255) not null)");
+
+        CountDownLatch release = blockWriter();
+        Future<Object> first = submit(jdbc -> jdbc.update("insert into items (name) values ('a')"));
+        awaitPending(1);
+        Future<Object> failing = submit(jdbc -> {
+            jdbc.update("insert into items (name) values ('b')");
+            throw new IllegalArgumentException("hatalı satır");
+        });
+        awaitPending(2);
+        // Aynı transaction'da: önceki yazmayı görür, geri alınan yazmayı görmez
+        Future<Object> last = submit(jdbc -> {
+            jdbc.update("insert into items (name) values ('c')");
+            return jdbc.queryForObject("select count(*) from items", Integer.class);
+        });
+        awaitPending(3);
+        release.countDown();
+
+        assertEquals(1, first.get(10, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertEquals(2, last.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "c"), reader.queryForList("select name from items order by id", String.class));
+    }
+
+    @Test
+    void errorFromWriteFailsOnlyThatWriteAndWriterKeepsRunning() throws Exception {
+        start("");
+        reader.execute("create table items (id integer primary key, name varchar(255) not null)");
+
+        CountDownLatch release = blockWriter();
+        Future<Object> failing = submit(jdbc -> {
+            jdbc.update("insert into items (name) values ('a')");
+            throw new StackOverflowError("regexp");
+        });
+        awaitPending(1);
+        Future<Object> sameGroup = submit(jdbc -> jdbc.update("insert into items (name) values ('b')"));
+        awaitPending(2);
+        release.countDown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, error.getCause());
+        assertEquals(1, sameGroup.get(10, TimeUnit.SECONDS));
+
+        // Yazıcı thread'i ölmedi: sonraki yazma da tamamlanır
+        Future<Object> next = submit(jdbc -> jdbc.update("insert into items (name) values ('c')"));
+        assertEquals(1, next.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("b", "c"), reader.queryForList("select name from items order by id", String.class));
+    }
+
+    @Test
+    void commitFailureFailsEveryWriteInTheGroup() throws Exception {
+        // Ertelenmiş foreign key ihlali statement'ta değil commit'te yakalanır
+        start("?foreign_keys=on");
+        reader.execute("create table parents (id integer primary key)");
+        reader.execute("create table children (id integer primary key,"
+                + " parent_id integer references parents (id) deferrable initially deferred)");
+
+        CountDownLatch release = blockWriter();
+        Future<Object> valid = submit(jdbc -> jdbc.update("insert into parents (id) values (1)"));
+        awaitPending(1);
+        Future<Object> orphan = submit(jdbc -> jdbc.update("insert into children (parent_id) values (99)"));
+        awaitPending(2);
+        release.countDown();
+
+        for (Future<Object> write : List.of(valid, orphan)) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> write.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            assertTrue(error.getCause().getMessage().contains("commit"));
+        }
+        assertEquals(0, reader.queryForObject("select count(*) from parents", Integer.class));
+
+        // Yazıcı sonraki gruplarla devam eder
+        assertEquals(Integer.valueOf(1), writer.execute(jdbc -> jdbc.update("insert into parents (id) values (2)")));
+        assertEquals(List.of(2), reader.queryForList("select id from parents", Integer.class));
+    }
+
+    @Test
+    void stopCommitsQueuedWritesBeforeClosing() throws Exception {
+        start("");
+        reader.execute("create table items (id integer primary key, name varchar(255) not null)");
+
+        CountDownLatch release = blockWriter();
+        List<Future<Object>> queued = List.of(
+                submit(jdbc -> jdbc.update("insert into items (name) values ('a')")),
+                submit(jdbc -> jdbc.update("insert into items (name) values ('b')")),
+                submit(jdbc -> jdbc.update("insert into items (name) values ('c')")));
+        awaitPending(3);
+
+        Thread stopper = new Thread(() -> {
+            try {
+                writer.stop();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        stopper.start();
+        // stop() yazıcı thread'ini join ile bekliyor: yeni yazma kabul edilmez, kuyruktakiler yine de çalışır
+        while (stopper.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        assertThrows(IllegalStateException.class, () -> writer.execute(jdbc -> null));
+        release.countDown();
+        stopper.join(TimeUnit.SECONDS.toMillis(10));
+
+        for (Future<Object> write : queued) {
+            assertEquals(1, write.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(3, reader.queryForObject("select count(*) from items", Integer.class));
+    }
+
+    @Test
+    void executeFromWriterThreadIsRejected() throws Exception {
+        start("");
+
+        assertThrows(IllegalStateException.class, () -> writer.execute(jdbc -> writer.execute(inner -> null)));
+    }
+
+    private void start(String urlParameters) throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("writer.sqlite") + urlParameters;
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        writer = new SqliteWriter(dataSourceProperties, new ImportConfig());
+        writer.start();
+        reader = new JdbcTemplate(new DriverManagerDataSource(url));
+    }
+
+    // Yazıcı thread'ini latch bırakılana kadar bir yazmanın içinde tutar
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        submit(jdbc -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private Future<Object> submit(Function<JdbcTemplate, Object> work) {
+        return callers.submit(() -> writer.execute(work));
+    }
+
+    private void awaitPending(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (writer.pendingWrites() < count) {
+            assertTrue(System.nanoTime() < deadline, "yazmalar kuyruğa girmedi");
+            Thread.sleep(5);
+        }
+    }
+}
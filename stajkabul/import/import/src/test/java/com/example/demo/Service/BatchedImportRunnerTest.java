@@ -0,0 +1,60 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Senkron import dilimlere bölünür: sayaçlar tüm dilimlerin toplamıdır, hata listesi sınırlıdır.
+ */
+class BatchedImportRunnerTest {
+
+    @Test
+    void slicesContextAndCapsReportedErrors() {
+        ImportConfig importConfig = new ImportConfig();
+        importConfig.getProcessing().setBatchSize(4);
+        importConfig.getRowStore().setMaxReportedErrors(3);
+
+        ColumnarExcelData data = new ColumnarExcelData("Sheet1", List.of("externalId"));
+        for (int i = 0; i < 10; i++) {
+            data.addRow(List.of("e" + i));
+        }
+        data.trimToSize();
+        Map<String, Object> mapping = new HashMap<>();
+        mapping.put("excelColumn", "externalId");
+        mapping.put("grispiField", "externalId");
+        ImportContext context = new ImportContext("User", data, List.of(mapping));
+
+        // Her dilimde satırların hepsi hatalı sayılır
+        List<Integer> batchSizes = new ArrayList<>();
+        ImportService failingRows = batch -> {
+            batchSizes.add(batch.getRowCount());
+            List<Object> errors = new ArrayList<>();
+            for (Map<String, Object> row : batch.getTransformedData()) {
+                errors.add(row.get("externalId"));
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("totalRecords", batch.getRowCount());
+            result.put("successCount", 0);
+            result.put("errorCount", errors.size());
+            result.put("errors", errors);
+            return result;
+        };
+
+        Map<String, Object> result = new BatchedImportRunner(importConfig).run(failingRows, context);
+
+        assertEquals(List.of(4, 4, 2), batchSizes);
+        assertEquals(true, result.get("success"));
+        assertEquals(10, result.get("totalRecords"));
+        assertEquals(10, result.get("errorCount"));
+        assertEquals(List.of("e0", "e1", "e2"), result.get("errors"));
+        assertEquals(true, result.get("errorsTruncated"));
+    }
+}
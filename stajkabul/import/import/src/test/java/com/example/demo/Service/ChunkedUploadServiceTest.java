@@ -0,0 +1,169 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parça parça yüklemede kaldığı yerden devam: kabul edilmeyen her parçadan sonra receivedBytes
+ * en fazla parçanın offset'i olur, istemci oradan devam ederek dosyayı tamamlayabilir.
+ * Düz multipart dosya istek başına bir kez spool'a alınır ve istek bitince silinir.
+ */
+class ChunkedUploadServiceTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path spoolDir;
+
+    private ThreadPoolTaskScheduler scheduler;
+    private ChunkedUploadService uploadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ImportConfig importConfig = new ImportConfig();
+        importConfig.getUpload().setSpoolDir(spoolDir.toString());
+        importConfig.getUpload().setMaxChunkBytes(6);
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        uploadService = new ChunkedUploadService(importConfig, scheduler);
+        uploadService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void resumesFromReceivedBytesAfterDroppedConnection() throws Exception {
+        String uploadId = uploadService.createSession("data.xlsx", CONTENT.length, sha256(CONTENT)).getId();
+        assertEquals(4, write(uploadId, 0, 4).getReceivedBytes());
+
+        // Bağlantı 2 byte yazıldıktan sonra kopar
+        InputStream dropped = new InputStream() {
+            private int position = 4;
+
+            @Override
+            public int read() throws IOException {
+                if (position == 6) {
+                    throw new IOException("bağlantı koptu");
+                }
+                return CONTENT[position++];
+            }
+        };
+        assertThrows(IOException.class, () -> uploadService.writeChunk(uploadId, 4, dropped, sha256(slice(4, 10))));
+        assertEquals(4, uploadService.getSession(uploadId).getReceivedBytes());
+
+        write(uploadId, 4, 10);
+        ChunkedUploadService.UploadSession session = uploadService.complete(uploadId);
+
+        assertEquals(sha256(CONTENT), session.getContentHash());
+        assertArrayEquals(CONTENT, Files.readAllBytes(session.getPath()));
+    }
+
+    @Test
+    void badChecksumRollsBackToChunkOffset() throws Exception {
+        String uploadId = uploadService.createSession("data.xlsx", CONTENT.length, null).getId();
+        write(uploadId, 0, 6);
+
+        // Doğrulanmış kısmın üzerine farklı veri gönderilir
+        byte[] corrupt = "xxxx".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class,
+                () -> uploadService.writeChunk(uploadId, 2, new ByteArrayInputStream(corrupt), sha256(slice(2, 6))));
+        assertEquals(2, uploadService.getSession(uploadId).getReceivedBytes());
+        assertThrows(IllegalStateException.class, () -> uploadService.complete(uploadId));
+
+        write(uploadId, 2, 6);
+        write(uploadId, 6, 10);
+        assertEquals(sha256(CONTENT), uploadService.complete(uploadId).getContentHash());
+    }
+
+    @Test
+    void oversizedChunkRollsBackToChunkOffset() throws Exception {
+        String uploadId = uploadService.createSession("data.xlsx", CONTENT.length, null).getId();
+        write(uploadId, 0, 4);
+
+        // maxChunkBytes 6: offset 2'den 7 byte
+        assertThrows(IllegalArgumentException.class, () -> write(uploadId, 2, 9));
+        assertEquals(2, uploadService.getSession(uploadId).getReceivedBytes());
+
+        // Dosya boyutunu aşan parça da reddedilir
+        write(uploadId, 2, 8);
+        byte[] tooLong = Arrays.copyOf(slice(8, 10), 3);
+        assertThrows(IllegalArgumentException.class,
+                () -> uploadService.writeChunk(uploadId, 8, new ByteArrayInputStream(tooLong), sha256(tooLong)));
+        assertEquals(8, uploadService.getSession(uploadId).getReceivedBytes());
+
+        write(uploadId, 8, 10);
+        assertEquals(sha256(CONTENT), uploadService.complete(uploadId).getContentHash());
+    }
+
+    @Test
+    void plainUploadIsSpooledOncePerRequestAndDeletedWhenItEnds() throws Exception {
+        ServletRequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        try {
+            MockMultipartFile upload = new MockMultipartFile("file", "data.xlsx", null, CONTENT);
+            SpooledMultipartFile kept = (SpooledMultipartFile) uploadService.resolveFile(upload, null);
+            SpooledMultipartFile detached = (SpooledMultipartFile) uploadService.resolveFile(upload, null);
+
+            assertEquals(sha256(CONTENT), kept.getContentHash());
+            assertArrayEquals(CONTENT, Files.readAllBytes(kept.getPath()));
+            // Zaten spool'daki dosya tekrar kopyalanmaz
+            assertSame(kept, uploadService.resolveFile(kept, null));
+            // Arka plan işi devralan dosyayı istek silmez
+            assertEquals(detached.getUploadId(), uploadService.detachFromRequest(detached));
+
+            request.requestCompleted();
+
+            assertFalse(Files.exists(kept.getPath()));
+            assertThrows(ChunkedUploadService.UploadNotFoundException.class, () -> uploadService.getSession(kept.getUploadId()));
+            assertTrue(Files.exists(detached.getPath()));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private ChunkedUploadService.UploadSession write(String uploadId, int from, int to) throws IOException {
+        byte[] chunk = slice(from, to);
+        return uploadService.writeChunk(uploadId, from, new ByteArrayInputStream(chunk), sha256(chunk));
+    }
+
+    private static byte[] slice(int from, int to) {
+        return Arrays.copyOfRange(CONTENT, from, to);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
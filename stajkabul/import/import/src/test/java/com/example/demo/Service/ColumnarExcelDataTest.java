@@ -0,0 +1,111 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * maxInMemoryRows'u aşan satırlar geçici dosyaya yazılır; okuma sonucu heap'teki satırlarla aynıdır.
+ */
+class ColumnarExcelDataTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void rowsPastTheLimitAreSpilledAndReadBack() throws Exception {
+        List<String> headers = List.of("externalId", "name", "notes");
+        ColumnarExcelData data = new ColumnarExcelData("Sheet1", headers, 2, spillDirectory);
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(List.of("1", "Ayşe", ""));
+        rows.add(List.of("2", "Bob", "not"));
+        rows.add(List.of("3", "Çağrı Öztürk", "x".repeat(300)));
+        rows.add(List.of("4"));
+        rows.add(Arrays.asList("5", null, "日本語"));
+        for (List<String> row : rows) {
+            data.addRow(row);
+        }
+        data.trimToSize();
+
+        assertEquals(5, data.getRowCount());
+        assertEquals(3, data.getSpilledRowCount());
+        // Eşlendikten sonra dosyalar silinir
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+
+        assertEquals(List.of("1", "Ayşe", ""), data.getRow(0));
+        assertEquals(List.of("3", "Çağrı Öztürk", "x".repeat(300)), data.getRow(2));
+        assertEquals(List.of("4", "", ""), data.getRow(3));
+        assertEquals(List.of("5", "", "日本語"), data.getRow(4));
+
+        List<Map<String, Object>> views = data.rowViews(MappingPlan.compile(headers,
+                List.of(mapping("externalId", "externalId"), mapping("notes", "notes"))));
+        assertEquals(5, views.size());
+        assertEquals("2", views.get(1).get("externalId"));
+        assertEquals("x".repeat(300), views.get(2).get("notes"));
+        assertEquals("日本語", views.get(4).get("notes"));
+        assertEquals("", views.get(4).get("name"));
+    }
+
+    @Test
+    void everyCellOfWideSpilledRowsIsReadDirectly() throws Exception {
+        List<String> headers = new ArrayList<>();
+        for (int c = 0; c < 100; c++) {
+            headers.add("Kolon " + c);
+        }
+        ColumnarExcelData data = new ColumnarExcelData("Sheet1", headers, 1, spillDirectory);
+        for (int r = 0; r < 20; r++) {
+            List<String> row = new ArrayList<>();
+            for (int c = 0; c < 100; c++) {
+                // Boş, kısa ve çok byte'lı hücreler karışık
+                row.add(c % 7 == 0 ? "" : c % 5 == 0 ? "ç" + r + "ş" + c : "r" + r + "c" + c);
+            }
+            data.addRow(row);
+        }
+        data.trimToSize();
+
+        assertEquals(19, data.getSpilledRowCount());
+        // Sondan başa: her hücre satırın önceki hücrelerinden bağımsız bulunur
+        for (int r = 19; r >= 0; r--) {
+            for (int c = 99; c >= 0; c--) {
+                String expected = c % 7 == 0 ? "" : c % 5 == 0 ? "ç" + r + "ş" + c : "r" + r + "c" + c;
+                assertEquals(expected, data.getValue(r, c), "satır " + r + ", kolon " + c);
+            }
+        }
+    }
+
+    @Test
+    void closeDeletesFilesOfAnUnfinishedRead() throws Exception {
+        ColumnarExcelData data = new ColumnarExcelData("Sheet1", List.of("externalId"), 1, spillDirectory);
+        data.addRow(List.of("1"));
+        data.addRow(List.of("2"));
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertTrue(files.count() > 0);
+        }
+
+        data.close();
+
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static Map<String, Object> mapping(String excelColumn, String grispiField) {
+        Map<String, Object> mapping = new HashMap<>();
+        mapping.put("excelColumn", excelColumn);
+        mapping.put("grispiField", grispiField);
+        return mapping;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 100 kolonlu bir sheet'te eski satır bazlı dönüşüm ile derlenmiş MappingPlan'ın sürelerini yazdırır.
+ * Normal test çalıştırmasına girmez (benchmark tag'i), süre üzerinde assert yoktur:
+ * mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class MappingPlanBenchmarkTest {
+
+    private static final int COLUMNS = 100;
+    private static final int ROWS = 5_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void legacyTransformVersusCompiledPlan() {
+        ExcelService.ExcelData excelData = MappingPlanTest.sheet(COLUMNS, ROWS);
+        List<Map<String, Object>> mappings = MappingPlanTest.everyOtherColumn(excelData.getHeaders());
+        ExcelService excelService = new ExcelService();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            assertEquals(MappingPlanTest.legacyTransform(excelData, mappings),
+                    excelService.transformDataWithMapping(excelData, mappings));
+        }
+
+        // Her iki yol için en iyi tur alınır
+        long legacyNanos = Long.MAX_VALUE;
+        long planNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            MappingPlanTest.legacyTransform(excelData, mappings);
+            legacyNanos = Math.min(legacyNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            excelService.transformDataWithMapping(excelData, mappings);
+            planNanos = Math.min(planNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("transformDataWithMapping %d satır x %d kolon: eski %.1f ms, plan %.1f ms, hızlanma %.1fx%n",
+                ROWS, COLUMNS, legacyNanos / 1e6, planNanos / 1e6, (double) legacyNanos / planNanos);
+    }
+}
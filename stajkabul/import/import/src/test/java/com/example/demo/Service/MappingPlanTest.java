@@ -0,0 +1,121 @@
+package com.example.demo.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 100 kolonlu bir sheet üzerinde eski satır bazlı dönüşüm ile derlenmiş MappingPlan'ı karşılaştırır:
+ * sonuçlar birebir aynı olmalıdır.
+ */
+class MappingPlanTest {
+
+    private static final int COLUMNS = 100;
+    private static final int ROWS = 500;
+
+    @Test
+    void compiledPlanMatchesLegacyTransform() {
+        ExcelService.ExcelData excelData = sheet(COLUMNS, ROWS);
+        List<Map<String, Object>> mappings = everyOtherColumn(excelData.getHeaders());
+        ExcelService excelService = new ExcelService();
+
+        assertEquals(legacyTransform(excelData, mappings), excelService.transformDataWithMapping(excelData, mappings));
+        assertEquals(legacyTransform(excelData, new ArrayList<>()), excelService.transformDataWithMapping(excelData, new ArrayList<>()));
+    }
+
+    static ExcelService.ExcelData sheet(int columns, int rowCount) {
+        List<String> headers = new ArrayList<>();
+        for (int c = 0; c < columns; c++) {
+            // Kolonların bir kısmı "önemli alan" anahtar kelimeleri içerir
+            headers.add(c % 3 == 0 ? "Contact email " + c : "Kolon " + c);
+        }
+
+        List<List<String>> rows = new ArrayList<>();
+        for (int r = 0; r < rowCount; r++) {
+            List<String> row = new ArrayList<>(columns);
+            for (int c = 0; c < columns; c++) {
+                row.add("r" + r + "c" + c);
+            }
+            rows.add(row);
+        }
+
+        ExcelService.ExcelData excelData = new ExcelService.ExcelData();
+        excelData.setHeaders(headers);
+        excelData.setRows(rows);
+        return excelData;
+    }
+
+    static List<Map<String, Object>> everyOtherColumn(List<String> headers) {
+        List<Map<String, Object>> mappings = new ArrayList<>();
+        for (int c = 0; c < headers.size(); c += 2) {
+            Map<String, Object> mapping = new HashMap<>();
+            mapping.put("excelColumn", headers.get(c));
+            mapping.put("grispiField", "field" + c);
+            mappings.add(mapping);
+        }
+        return mappings;
+    }
+
+    // MappingPlan öncesindeki satır bazlı dönüşüm (karşılaştırma için)
+    static List<Map<String, Object>> legacyTransform(ExcelService.ExcelData excelData, List<Map<String, Object>> mappings) {
+        List<Map<String, Object>> transformedData = new ArrayList<>();
+
+        if (mappings == null || mappings.isEmpty()) {
+            for (List<String> row : excelData.getRows()) {
+                Map<String, Object> transformedRow = new HashMap<>();
+                for (int i = 0; i < excelData.getHeaders().size() && i < row.size(); i++) {
+                    transformedRow.put(excelData.getHeaders().get(i), row.get(i));
+                }
+                if (!transformedRow.isEmpty()) {
+                    transformedData.add(transformedRow);
+                }
+            }
+            return transformedData;
+        }
+
+        for (List<String> row : excelData.getRows()) {
+            Map<String, Object> transformedRow = new HashMap<>();
+
+            for (Map<String, Object> mapping : mappings) {
+                String excelColumn = (String) mapping.get("excelColumn");
+                String grispiField = (String) mapping.get("grispiField");
+                int columnIndex = excelData.getHeaders().indexOf(excelColumn);
+                if (columnIndex >= 0 && columnIndex < row.size()) {
+                    transformedRow.put(grispiField, row.get(columnIndex));
+                }
+            }
+
+            for (int i = 0; i < excelData.getHeaders().size() && i < row.size(); i++) {
+                String header = excelData.getHeaders().get(i);
+                String value = row.get(i);
+                boolean isMapped = mappings.stream()
+                    .anyMatch(mapping -> header.equals(mapping.get("excelColumn")));
+
+                if (!isMapped && !transformedRow.containsKey(header)) {
+                    String lowerHeader = header.toLowerCase();
+                    if (lowerHeader.contains("email") || lowerHeader.contains("mail") ||
+                        lowerHeader.contains("phone") || lowerHeader.contains("tel") ||
+                        lowerHeader.contains("external") || lowerHeader.contains("id") ||
+                        lowerHeader.contains("first") || lowerHeader.contains("last") ||
+                        lowerHeader.contains("name") || lowerHeader.contains("role") ||
+                        lowerHeader.contains("language") || lowerHeader.contains("organization") ||
+                        lowerHeader.contains("group") || lowerHeader.contains("tag") ||
+                        lowerHeader.contains("enabled")) {
+                        transformedRow.put(header, value);
+                    }
+                }
+            }
+
+            if (!transformedRow.isEmpty()) {
+                transformedData.add(transformedRow);
+            }
+        }
+
+        return transformedData;
+    }
+}
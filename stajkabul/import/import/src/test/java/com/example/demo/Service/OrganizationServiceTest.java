@@ -0,0 +1,113 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Config.SchemaMigrator;
+import com.example.demo.Entity.Organization;
+import com.example.demo.Mapper.OrganizationMapper;
+import com.example.demo.Mapper.ReferenceResolver;
+import com.example.demo.Repository.BulkInsertRepository;
+import com.example.demo.Repository.OrganizationRepository;
+import com.example.demo.Repository.SqliteWriter;
+import com.example.demo.Validation.OrganizationValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Çok sheet'li importta toplu kaydın bir parçası hata verirse önceki parçalar commit edilmiş kalır:
+ * sonuç başarılıdır, sadece kaydedilemeyen satırlar hata sayılır ve kaydedilenler sonraki aşamalara bildirilir.
+ */
+class OrganizationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteWriter writer;
+    private JdbcTemplate reader;
+    private ParallelRowValidator rowValidator;
+    private OrganizationService organizationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("organizations.sqlite");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        new SchemaMigrator(dataSource).migrate();
+        reader = new JdbcTemplate(dataSource);
+
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        ImportConfig importConfig = new ImportConfig();
+        importConfig.getProcessing().setInsertBatchSize(2);
+        writer = new SqliteWriter(dataSourceProperties, importConfig);
+        ReflectionTestUtils.invokeMethod(writer, "start");
+        rowValidator = new ParallelRowValidator(importConfig);
+        // Var olan External ID kontrolü boş döner: çakışma yazma sırasında unique index'te yakalanır
+        organizationService = new OrganizationService(mock(OrganizationRepository.class),
+                new BulkInsertRepository(writer, importConfig), new OrganizationMapper(null), rowValidator);
+        ReflectionTestUtils.setField(organizationService, "organizationValidator", new OrganizationValidator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(rowValidator, "shutdown");
+        ReflectionTestUtils.invokeMethod(writer, "stop");
+    }
+
+    @Test
+    void failedChunkReportsOnlyItsRowsAndRegistersTheCommittedPrefix() {
+        reader.update("insert into organizations (id, external_id, name) values (1, 'o3', 'Var olan')");
+        ColumnarExcelData data = new ColumnarExcelData("Organizations", List.of("externalId", "name"));
+        for (int i = 1; i <= 5; i++) {
+            data.addRow(List.of("o" + i, "Organizasyon " + i));
+        }
+        data.trimToSize();
+        ReferenceResolver workbookReferences = mock(ReferenceResolver.class);
+        ImportContext context = new ImportContext("Organization", data,
+                List.of(mapping("externalId"), mapping("name")), workbookReferences);
+
+        // Parçalar: [o1, o2] [o3, o4] [o5]; ikinci parça unique externalId'ye çarpar
+        Map<String, Object> result = organizationService.importExcelWithMapping(context);
+
+        assertEquals(true, result.get("success"));
+        assertEquals(2, result.get("successCount"));
+        assertEquals(3, result.get("errorCount"));
+        List<Integer> failedRows = new ArrayList<>();
+        for (Object error : (List<?>) result.get("errors")) {
+            failedRows.add((Integer) ((Map<?, ?>) error).get("rowNumber"));
+        }
+        assertEquals(List.of(3, 4, 5), failedRows);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Organization>> registered = ArgumentCaptor.forClass(Collection.class);
+        verify(workbookReferences).registerOrganizations(registered.capture());
+        assertEquals(List.of("o1", "o2"),
+                registered.getValue().stream().map(Organization::getExternalId).collect(Collectors.toList()));
+        assertEquals(List.of("o3", "o1", "o2"),
+                reader.queryForList("select external_id from organizations order by id", String.class));
+    }
+
+    private static Map<String, Object> mapping(String column) {
+        Map<String, Object> mapping = new HashMap<>();
+        mapping.put("excelColumn", column);
+        mapping.put("grispiField", column);
+        return mapping;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Yükleyici Error fırlatırsa (ör. OutOfMemoryError) bekleyen istekler de hatayı alır, anahtar önbellekte kalmaz.
+ */
+class ParseResultCacheTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void errorFromLoaderReachesWaitersAndIsNotCached() throws Exception {
+        ParseResultCache cache = new ParseResultCache(new ImportConfig(), new ThreadPoolTaskScheduler());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> first = callers.submit(() -> cache.get("preview:key", () -> {
+            loading.countDown();
+            release.await();
+            throw new OutOfMemoryError("parse");
+        }));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        // Aynı anahtarla gelen istek ilk yükleyiciyi bekler
+        AtomicReference<Throwable> waiterError = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                cache.get("preview:key", () -> "ikinci yükleyici çalışmamalı");
+            } catch (Throwable e) {
+                waiterError.set(e);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(OutOfMemoryError.class, error.getCause());
+        waiter.join(TimeUnit.SECONDS.toMillis(10));
+        assertInstanceOf(OutOfMemoryError.class, waiterError.get());
+        assertEquals("yeniden", cache.get("preview:key", () -> "yeniden"));
+    }
+}
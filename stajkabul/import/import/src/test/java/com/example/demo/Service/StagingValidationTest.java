@@ -0,0 +1,199 @@
+package com.example.demo.Service;
+
+import com.example.demo.Config.ImportConfig;
+import com.example.demo.Config.SchemaMigrator;
+import com.example.demo.Mapper.OrganizationMapper;
+import com.example.demo.Mapper.TicketMapper;
+import com.example.demo.Mapper.UserMapper;
+import com.example.demo.Repository.BulkInsertRepository;
+import com.example.demo.Repository.SqliteWriter;
+import com.example.demo.Repository.StagingImportRepository;
+import com.example.demo.Validation.OrganizationValidator;
+import com.example.demo.Validation.TicketValidator;
+import com.example.demo.Validation.UserValidator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Staging modunun set tabanlı SQL kuralları ile normal import yolunun Validator sınıfları aynı satırlara
+ * aynı hataları vermelidir. Aynı dosya iki yoldan geçirilir: staging importu geçici bir SQLite dosyasında
+ * çalışır, diğer tarafta aynı dönüştürülmüş satırlar mapper + Validator'dan geçer.
+ * Satırlarda dosya içi tekrar yoktur (Validator'lar tekrarı kontrol etmez, servisler eder).
+ */
+class StagingValidationTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteWriter writer;
+    private ExcelService excelService;
+    private UserMapper userMapper;
+    private OrganizationMapper organizationMapper;
+    private TicketMapper ticketMapper;
+    private StagingImportService stagingImportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("staging.sqlite");
+        new SchemaMigrator(new DriverManagerDataSource(url)).migrate();
+
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+        ImportConfig importConfig = new ImportConfig();
+        importConfig.getProcessing().setInsertBatchSize(3);
+        writer = new SqliteWriter(dataSourceProperties, importConfig);
+        // start/stop yaşam döngüsü metotları paket içinde
+        ReflectionTestUtils.invokeMethod(writer, "start");
+        BulkInsertRepository bulkInsertRepository = new BulkInsertRepository(writer, importConfig);
+
+        excelService = new ExcelService();
+        ReflectionTestUtils.setField(excelService, "streamingExcelReader", new StreamingExcelReader(importConfig));
+        // Referans kolonları olmayan satırlarda mapper'lar veritabanına gitmez
+        userMapper = new UserMapper(null);
+        organizationMapper = new OrganizationMapper(null);
+        ticketMapper = new TicketMapper(null, null, null);
+        stagingImportService = new StagingImportService(excelService, new StagingImportRepository(writer, bulkInsertRepository),
+                bulkInsertRepository, userMapper, organizationMapper, ticketMapper, importConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(writer, "stop");
+    }
+
+    @Test
+    void userRulesMatchUserValidator() throws Exception {
+        List<String> headers = List.of("externalId", "firstName", "lastName", "emails", "phone");
+        MockMultipartFile file = workbook(headers,
+                row("u1", "Ayşe", "Yılmaz", "ayse@example.com", "+905321234567"),
+                row("", "", "Sadece Soyad", "", ""),
+                row("", "   ", "", "", ""),
+                row("u4", "", "", "gecersiz-eposta", ""),
+                row("u5", "", "", "iyi@example.com, kotu@", ""),
+                row("", "", "", "", "5321234567"),
+                row("u7", "", "", "", "12345"),
+                row("u8", "", "", "", "+90 532 123 45 67"),
+                row("", "", "", "a.b-c@alt.example.org", ""),
+                row("u10", "Zeynep", "", "", "053212345678"));
+
+        UserValidator validator = new UserValidator();
+        assertSameErrors(file, headers, "User",
+                row -> validator.validate(userMapper.mapWithMapping(row, mappings(headers), null)).getErrors());
+    }
+
+    @Test
+    void organizationRulesMatchOrganizationValidator() throws Exception {
+        List<String> headers = List.of("externalId", "name", "description");
+        MockMultipartFile file = workbook(headers,
+                row("o1", "Acme", "açıklama"),
+                row("", "İsimsiz Dış ID", ""),
+                row("   ", "Boşluklu Dış ID", ""),
+                row("o4", "", ""));
+
+        OrganizationValidator validator = new OrganizationValidator();
+        assertSameErrors(file, headers, "Organization",
+                row -> validator.validate(organizationMapper.mapWithMapping(row, new HashMap<>())).getErrors());
+    }
+
+    @Test
+    void ticketRulesMatchTicketValidator() throws Exception {
+        List<String> headers = List.of("externalId", "subject", "description");
+        MockMultipartFile file = workbook(headers,
+                row("t1", "Yazıcı çalışmıyor", "detay"),
+                row("t2", "ab", ""),
+                row("", "Konu", ""),
+                row("", "x", ""),
+                row("t5", "", "konusuz"),
+                row("t6", "abc", ""),
+                row("t7", "  a", ""),
+                row("t8", "\t", ""),
+                row("\t", "Konu", ""));
+
+        TicketValidator validator = new TicketValidator();
+        assertSameErrors(file, headers, "Ticket",
+                row -> validator.validate(ticketMapper.mapWithMapping(row, new HashMap<>(), null)).getErrors());
+    }
+
+    // Satır numarası -> hata mesajları; iki yoldan da aynı olmalı
+    private void assertSameErrors(MockMultipartFile file, List<String> headers, String importType,
+                                  Function<Map<String, Object>, List<String>> validate) throws Exception {
+        Map<Integer, List<String>> expected = new TreeMap<>();
+        excelService.streamTransformedRows(file, mappings(headers), (rowNumber, row) -> {
+            List<String> errors = validate.apply(row);
+            if (!errors.isEmpty()) {
+                expected.put(rowNumber, errors);
+            }
+        });
+        assertFalse(expected.isEmpty());
+
+        Map<String, Object> result = stagingImportService.importExcel(importType, file, mappings(headers));
+        Map<Integer, List<String>> actual = new TreeMap<>();
+        for (Object error : (List<?>) result.get("errors")) {
+            Map<?, ?> errorDetail = (Map<?, ?>) error;
+            @SuppressWarnings("unchecked")
+            List<String> messages = (List<String>) errorDetail.get("errors");
+            actual.put(((Number) errorDetail.get("rowNumber")).intValue(), messages);
+        }
+
+        assertEquals(expected, actual);
+        assertEquals((long) expected.size(), ((Number) result.get("errorCount")).longValue());
+    }
+
+    private static List<Map<String, Object>> mappings(List<String> headers) {
+        List<Map<String, Object>> mappings = new ArrayList<>();
+        for (String header : headers) {
+            Map<String, Object> mapping = new HashMap<>();
+            mapping.put("excelColumn", header);
+            mapping.put("grispiField", header);
+            mappings.add(mapping);
+        }
+        return mappings;
+    }
+
+    private static List<String> row(String... values) {
+        return List.of(values);
+    }
+
+    @SafeVarargs
+    private static MockMultipartFile workbook(List<String> headers, List<String>... rows) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            write(sheet.createRow(0), headers);
+            for (int i = 0; i < rows.length; i++) {
+                write(sheet.createRow(i + 1), rows[i]);
+            }
+            workbook.write(out);
+            return new MockMultipartFile("file", "staging.xlsx",
+                    "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", out.toByteArray());
+        }
+    }
+
+    private static void write(Row row, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                row.createCell(i).setCellValue(values.get(i));
+            }
+        }
+    }
+}